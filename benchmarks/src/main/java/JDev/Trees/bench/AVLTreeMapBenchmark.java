@@ -0,0 +1,146 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.AVLTreeMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A Long counter per Integer key, looked up and updated at random keys that are all in the tree:
+ * <ul>
+ * <li>COMPOSITE: an AVLTree of Comparable key + value objects, the only way before AVLTreeMap.
+ * A lookup is a find with a probe object, an update is a remove and an insert of a new object.</li>
+ * <li>MAP: AVLTreeMap, the value of an existing key is replaced in place.</li>
+ * <li>TREEMAP: java.util.TreeMap, for reference.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AVLTreeMapBenchmark {
+
+    public enum Implementation {
+        COMPOSITE, MAP, TREEMAP
+    }
+
+    /**
+     * Key and value in one object, ordered by the key.
+     */
+    public static final class Entry implements Comparable<Entry> {
+
+        final Integer key;
+        final Long value;
+
+        Entry(Integer key, Long value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return key.compareTo(other.key);
+        }
+    }
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"COMPOSITE", "MAP", "TREEMAP"})
+    public Implementation implementation;
+
+    private Integer[] probes;
+    /**
+     * Probe objects of COMPOSITE, created up front like the keys of the other implementations.
+     */
+    private Entry[] probeEntries;
+    private int probeCursor;
+    private AVLTree<Entry> composite;
+    private Map<Integer, Long> map;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        Random random = new Random(42);
+        int[] keys = KeyDistribution.RANDOM.indexes(size, size, random);
+        int[] indexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        probes = new Integer[size];
+        probeEntries = new Entry[size];
+        for (int j = 0; j < size; j++) {
+            probes[j] = indexes[j];
+            probeEntries[j] = new Entry(probes[j], null);
+        }
+        composite = new AVLTree<>();
+        map = implementation == Implementation.MAP ? new AVLTreeMap<Integer, Long>() : new TreeMap<Integer, Long>();
+        for (int key : keys) {
+            if (implementation == Implementation.COMPOSITE) {
+                composite.insert(new Entry(key, 0L));
+            } else {
+                map.put(key, 0L);
+            }
+        }
+        probeCursor = 0;
+    }
+
+    private int nextProbe() {
+        int j = probeCursor++;
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return j;
+    }
+
+    @Benchmark
+    public Long get() {
+        int j = nextProbe();
+        if (implementation == Implementation.COMPOSITE) {
+            return composite.find(probeEntries[j]).value;
+        }
+        return map.get(probes[j]);
+    }
+
+    /**
+     * Replace the value of a key.
+     */
+    @Benchmark
+    public void put() {
+        int j = nextProbe();
+        Long value = (long) j;
+        if (implementation == Implementation.COMPOSITE) {
+            composite.remove(probeEntries[j]);
+            composite.insert(new Entry(probes[j], value));
+        } else {
+            map.put(probes[j], value);
+        }
+    }
+
+    /**
+     * Increment the counter of a key.
+     */
+    @Benchmark
+    public void merge() {
+        int j = nextProbe();
+        if (implementation == Implementation.COMPOSITE) {
+            Entry old = composite.find(probeEntries[j]);
+            composite.remove(old);
+            composite.insert(new Entry(old.key, old.value + 1));
+        } else {
+            map.merge(probes[j], 1L, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to insert n random keys into an empty AVLTree
+ * and to remove all n keys again. Each iteration is a single full build or
+ * a single full tear down, so the score divided by n is the cost per update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AVLTreeUpdateBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    private Integer[] keys;
+    private AVLTree<Comparable> tree;
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+        // Fisher-Yates shuffle with a fixed seed, so every run sees the same order
+        Random random = new Random(42);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer temp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = temp;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillTree() {
+        tree = new AVLTree<>();
+        for (Integer key : keys) {
+            tree.insert(key);
+        }
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> insert() {
+        AVLTree<Comparable> t = new AVLTree<>();
+        for (Integer key : keys) {
+            t.insert(key);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> remove() {
+        AVLTree<Comparable> t = tree;
+        for (Integer key : keys) {
+            t.remove(key);
+        }
+        return t;
+    }
+}
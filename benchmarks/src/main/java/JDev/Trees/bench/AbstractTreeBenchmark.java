@@ -0,0 +1,76 @@
+package JDev.Trees.bench;
+
+import java.util.Random;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Level;
+
+/**
+ * Common key generation for the per-operation tree benchmarks.
+ * Subclasses declare the size parameter and the benchmark methods.
+ */
+@State(Scope.Thread)
+public abstract class AbstractTreeBenchmark {
+
+    /**
+     * Maximum number of lookup keys, the probes are reused in a cycle.
+     */
+    private static final int MAX_PROBES = 1 << 20;
+
+    @Param({"RANDOM", "SEQUENTIAL", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    @Param({"INTEGER", "LONG", "STRING"})
+    public KeyType keyType;
+
+    /**
+     * Keys for the insert benchmark, in distribution order.
+     * For ZIPFIAN this contains duplicates.
+     */
+    protected Comparable[] inserts;
+
+    /**
+     * All distinct keys, in the order used to fill the tree for the other benchmarks.
+     * ZIPFIAN fills in random order.
+     */
+    protected Comparable[] fill;
+
+    /**
+     * Keys to look up or update, in distribution order. These are equal to,
+     * but not the same objects as the keys in the tree.
+     */
+    protected Comparable[] probes;
+
+    protected int insertCursor;
+    protected int probeCursor;
+
+    /**
+     * @return number of distinct keys in the tree
+     */
+    protected abstract int size();
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        int size = size();
+        Random random = new Random(42);
+        inserts = keyType.keys(distribution.indexes(size, size, random));
+        KeyDistribution fillOrder = distribution == KeyDistribution.ZIPFIAN ? KeyDistribution.RANDOM : distribution;
+        fill = keyType.keys(fillOrder.indexes(size, size, random));
+        probes = keyType.keys(distribution.indexes(size, Math.min(size, MAX_PROBES), random));
+        insertCursor = 0;
+        probeCursor = 0;
+    }
+
+    /**
+     * @return the next lookup key
+     */
+    protected Comparable nextProbe() {
+        Comparable key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,135 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.ArrayAVLTree;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ArrayAVLTree against AVLTree: lookups, inserts and the pause of a full GC while the
+ * tree is alive. The setup prints the retained heap per key of the filled tree.
+ * Keys are Integers in both trees, so the difference is the node storage only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ArrayAVLTreeBenchmark {
+
+    public enum Layout {
+        OBJECTS, ARRAYS
+    }
+
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"OBJECTS", "ARRAYS"})
+    public Layout layout;
+
+    private Integer[] keys;
+    private Integer[] probes;
+    private int probeCursor;
+    private int insertCursor;
+
+    private AVLTree<Comparable> objectTree;
+    private ArrayAVLTree<Comparable> arrayTree;
+    private AVLTree<Comparable> objectInsertTree;
+    private ArrayAVLTree<Comparable> arrayInsertTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        Random random = new Random(42);
+        keys = box(KeyDistribution.RANDOM.indexes(size, size, random));
+        probes = box(KeyDistribution.RANDOM.indexes(size, size, random));
+
+        // the first full collections after start up release JVM internal memory, skip them
+        usedHeap();
+        long before = usedHeap();
+        if (layout == Layout.OBJECTS) {
+            objectTree = new AVLTree<>();
+            for (Integer key : keys) {
+                objectTree.insert(key);
+            }
+        } else {
+            arrayTree = new ArrayAVLTree<>();
+            for (Integer key : keys) {
+                arrayTree.insert(key);
+            }
+        }
+        long after = usedHeap();
+        System.out.printf("%n%s: retained %.1f bytes per key (without the Integer keys)%n",
+                layout, (after - before) / (double) size);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetInsertTree() {
+        objectInsertTree = new AVLTree<>();
+        arrayInsertTree = new ArrayAVLTree<>();
+        insertCursor = 0;
+    }
+
+    private static Integer[] box(int[] indexes) {
+        Integer[] result = new Integer[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            result[i] = indexes[i];
+        }
+        return result;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public Comparable find() {
+        Integer key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return layout == Layout.OBJECTS ? objectTree.find(key) : arrayTree.find(key);
+    }
+
+    @Benchmark
+    public void insert() {
+        if (insertCursor == keys.length) {
+            resetInsertTree();
+        }
+        Integer key = keys[insertCursor++];
+        if (layout == Layout.OBJECTS) {
+            objectInsertTree.insert(key);
+        } else {
+            arrayInsertTree.insert(key);
+        }
+    }
+
+    /**
+     * Time of a full collection with the filled tree alive: the cost of marking the tree.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+}
@@ -0,0 +1,120 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.BPlusTree;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BPlusTree with different fan-outs against AVLTree, at sizes where the tree does not fit
+ * into the last level cache (an AVLTree of 1M Integer keys needs about 56 MB, of 10M about 560 MB).
+ * The keys are inserted in random order, so the nodes of the AVLTree are scattered over the heap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class BPlusTreeBenchmark {
+
+    public enum Implementation {
+        AVL_TREE(0), B_PLUS_TREE_16(16), B_PLUS_TREE_64(64), B_PLUS_TREE_256(256);
+
+        final int fanOut;
+
+        Implementation(int fanOut) {
+            this.fanOut = fanOut;
+        }
+    }
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"AVL_TREE", "B_PLUS_TREE_16", "B_PLUS_TREE_64", "B_PLUS_TREE_256"})
+    public Implementation implementation;
+
+    private Integer[] keys;
+    private int[] probes;
+    private int probeCursor;
+    private AVLTree<Comparable> avlTree;
+    private BPlusTree<Comparable> bPlusTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+        Random random = new Random(42);
+        int[] order = KeyDistribution.RANDOM.indexes(size, size, random);
+        probes = KeyDistribution.RANDOM.indexes(size, 1 << 20, random);
+        if (implementation == Implementation.AVL_TREE) {
+            avlTree = new AVLTree<>();
+            for (int i : order) {
+                avlTree.insert(keys[i]);
+            }
+        } else {
+            bPlusTree = new BPlusTree<>(implementation.fanOut);
+            for (int i : order) {
+                bPlusTree.insert(keys[i]);
+            }
+        }
+    }
+
+    private Integer nextProbe() {
+        Integer key = keys[probes[probeCursor++]];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+
+    @Benchmark
+    public Comparable find() {
+        Integer key = nextProbe();
+        return avlTree != null ? avlTree.find(key) : bPlusTree.find(key);
+    }
+
+    /**
+     * Remove a key and insert it again, so the tree keeps its size.
+     */
+    @Benchmark
+    public void removeInsert() {
+        Integer key = nextProbe();
+        if (avlTree != null) {
+            avlTree.remove(key);
+            avlTree.insert(key);
+        } else {
+            bPlusTree.remove(key);
+            bPlusTree.insert(key);
+        }
+    }
+
+    /**
+     * Read the 100 keys from a random key on.
+     */
+    @Benchmark
+    public void rangeHundred(Blackhole blackhole) {
+        Integer lo = nextProbe();
+        Integer hi = lo + 99;
+        Iterator iterator = avlTree != null ? avlTree.range(lo, hi) : bPlusTree.range(lo, hi);
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+}
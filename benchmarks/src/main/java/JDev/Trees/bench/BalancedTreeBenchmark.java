@@ -0,0 +1,132 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.BalanceMode;
+import JDev.Trees.BinarySearchTree;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BinarySearchTree with BalanceMode.SCAPEGOAT against AVLTree: building a tree with one
+ * insert per key, find, and remove + reinsert, for sorted, random and Zipfian keys.
+ * An unbalanced BinarySearchTree is left out, sorted input makes building it quadratic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BalancedTreeBenchmark {
+
+    public enum Implementation {
+        AVL_TREE, SCAPEGOAT
+    }
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"SEQUENTIAL", "RANDOM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    @Param({"AVL_TREE", "SCAPEGOAT"})
+    public Implementation implementation;
+
+    /**
+     * Keys in distribution order, for ZIPFIAN with duplicates.
+     */
+    private Comparable[] inserts;
+    /**
+     * Keys to look up, in distribution order.
+     */
+    private Comparable[] probes;
+    private int probeCursor;
+    private AVLTree<Comparable> avlTree;
+    private BinarySearchTree<Comparable> scapegoatTree;
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        Random random = new Random(42);
+        inserts = KeyType.INTEGER.keys(distribution.indexes(size, size, random));
+        probes = KeyType.INTEGER.keys(distribution.indexes(size, size, random));
+    }
+
+    @Setup(Level.Iteration)
+    public void fillTree() {
+        avlTree = null;
+        scapegoatTree = null;
+        if (implementation == Implementation.AVL_TREE) {
+            avlTree = buildAVLTree();
+        } else {
+            scapegoatTree = buildScapegoatTree();
+        }
+        probeCursor = 0;
+    }
+
+    private AVLTree<Comparable> buildAVLTree() {
+        AVLTree<Comparable> tree = new AVLTree<>();
+        for (Comparable key : inserts) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    private BinarySearchTree<Comparable> buildScapegoatTree() {
+        BinarySearchTree<Comparable> tree = new BinarySearchTree<>(BalanceMode.SCAPEGOAT);
+        for (Comparable key : inserts) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    private Comparable nextProbe() {
+        Comparable key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+
+    /**
+     * Insert all keys into an empty tree.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object build() {
+        return implementation == Implementation.AVL_TREE ? buildAVLTree() : buildScapegoatTree();
+    }
+
+    @Benchmark
+    public Comparable find() {
+        Comparable key = nextProbe();
+        return implementation == Implementation.AVL_TREE ? avlTree.find(key) : scapegoatTree.find(key);
+    }
+
+    /**
+     * Remove a key and insert it again, so the tree keeps its size.
+     */
+    @Benchmark
+    public void removeInsert() {
+        Comparable key = nextProbe();
+        if (implementation == Implementation.AVL_TREE) {
+            avlTree.remove(key);
+            avlTree.insert(key);
+        } else {
+            scapegoatTree.remove(key);
+            scapegoatTree.insert(key);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A batch of new random keys is inserted into a tree of one million keys and removed again,
+ * with insertAll/removeAll against one insert/remove call per key.
+ * The score divided by twice the batch size is the cost per update. The benchmark cycles
+ * through a few different batches, so the paths of one batch are not all in the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BatchUpdateBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int batchSize;
+
+    private static final int BATCHES = 8;
+
+    private AVLTree<Comparable> tree;
+    private List<List<Integer>> batches;
+    private int batchCursor;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        Random random = new Random(42);
+        // the tree holds the even keys, the batch odd keys in random order
+        int[] order = KeyDistribution.RANDOM.indexes(size, size, random);
+        tree = new AVLTree<>();
+        for (int i : order) {
+            tree.insert(2 * i);
+        }
+        batches = new ArrayList<List<Integer>>(BATCHES);
+        for (int b = 0; b < BATCHES; b++) {
+            List<Integer> batch = new ArrayList<Integer>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(2 * random.nextInt(size) + 1);
+            }
+            batches.add(batch);
+        }
+    }
+
+    private List<Integer> nextBatch() {
+        List<Integer> batch = batches.get(batchCursor);
+        batchCursor = (batchCursor + 1) % BATCHES;
+        return batch;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> batch() {
+        List<Integer> batch = nextBatch();
+        tree.insertAll(batch);
+        tree.removeAll(batch);
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> perKey() {
+        List<Integer> batch = nextBatch();
+        for (Integer key : batch) {
+            tree.insert(key);
+        }
+        for (Integer key : batch) {
+            tree.remove(key);
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,149 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.BinarySearchTree;
+import JDev.Trees.VisitMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-operation benchmarks for BinarySearchTree: throughput and latency percentiles
+ * of insert, find, remove (as remove + reinsert), rank, select, floor, range scans,
+ * toArrayList and the iterator.
+ * SEQUENTIAL input degenerates the tree into a list, so the sizes are smaller than
+ * for AVLTree. The methods use loops, so the default thread stack is enough.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BinarySearchTreeBenchmark extends AbstractTreeBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private BinarySearchTree<Comparable> insertTree;
+    private BinarySearchTree<Comparable> tree;
+    private int selectIndex;
+    private Comparable maxKey;
+
+    @Override
+    protected int size() {
+        return size;
+    }
+
+    @Setup(Level.Iteration)
+    public void fillTree() {
+        insertTree = new BinarySearchTree<>();
+        insertCursor = 0;
+        tree = new BinarySearchTree<>();
+        for (Comparable key : fill) {
+            tree.insert(key);
+        }
+        maxKey = tree.findMax();
+    }
+
+    /**
+     * Insert the next key; the tree is replaced by an empty one after all keys are inserted,
+     * so the score is the average over tree sizes 0 to size.
+     */
+    @Benchmark
+    public void insert() {
+        if (insertCursor == inserts.length) {
+            insertTree = new BinarySearchTree<>();
+            insertCursor = 0;
+        }
+        insertTree.insert(inserts[insertCursor++]);
+    }
+
+    @Benchmark
+    public Comparable find() {
+        return tree.find(nextProbe());
+    }
+
+    /**
+     * Remove a key and insert it again, so the tree keeps its size.
+     */
+    @Benchmark
+    public void remove() {
+        Comparable key = nextProbe();
+        tree.remove(key);
+        tree.insert(key);
+    }
+
+    @Benchmark
+    public int rank() {
+        return tree.rank(nextProbe());
+    }
+
+    /**
+     * Percentile lookup; the index walks through the tree with a large prime stride.
+     */
+    @Benchmark
+    public Comparable select() {
+        selectIndex = (selectIndex + 1000003) % size;
+        return tree.select(selectIndex);
+    }
+
+    @Benchmark
+    public Comparable floor() {
+        return tree.floor(nextProbe());
+    }
+
+    /**
+     * Read the 100 keys from the next probe on with a range iterator.
+     */
+    @Benchmark
+    public void rangeHundred(Blackhole blackhole) {
+        Iterator iterator = tree.range(nextProbe(), maxKey);
+        for (int i = 0; i < 100 && iterator.hasNext(); i++) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    public ArrayList toArrayList() {
+        return tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Full scan with the iterator, to compare with toArrayList.
+     */
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Object key : tree) {
+            blackhole.consume(key);
+        }
+    }
+
+    /**
+     * Read only the first 100 keys: the iterator stops there, toArrayList copies the whole tree first.
+     */
+    @Benchmark
+    public void firstHundredIterator(Blackhole blackhole) {
+        Iterator iterator = tree.iterator();
+        for (int i = 0; i < 100 && iterator.hasNext(); i++) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    public void firstHundredArrayList(Blackhole blackhole) {
+        ArrayList list = tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT);
+        for (int i = 0; i < 100 && i < list.size(); i++) {
+            blackhole.consume(list.get(i));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.BalanceMode;
+import JDev.Trees.BinarySearchTree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a tree from n sorted keys: one insert per key against the linear time bulk loads.
+ * An unbalanced BinarySearchTree has no insert variant, sorted inserts make it a list in quadratic time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BulkLoadBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> insertSorted() {
+        AVLTree<Comparable> tree = new AVLTree<>();
+        for (Integer key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> fromSorted() {
+        return AVLTree.fromSorted(keys, false);
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> parallelFromSorted() {
+        return AVLTree.parallelFromSorted(keys, false);
+    }
+
+    @Benchmark
+    public BinarySearchTree<Comparable> scapegoatInsertSorted() {
+        BinarySearchTree<Comparable> tree = new BinarySearchTree<>(BalanceMode.SCAPEGOAT);
+        for (Integer key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public BinarySearchTree<Comparable> binarySearchTreeFromSorted() {
+        return BinarySearchTree.fromSorted(keys, false);
+    }
+
+    @Benchmark
+    public BinarySearchTree<Comparable> binarySearchTreeParallelFromSorted() {
+        return BinarySearchTree.parallelFromSorted(keys, false);
+    }
+}
@@ -0,0 +1,143 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Records that are not Comparable, ordered by their id, in an AVLTree:
+ * <ul>
+ * <li>WRAPPER: every record is wrapped into a Comparable key, the only way before AVLTree took a comparator.</li>
+ * <li>COMPARATOR: the records themselves with a comparator on the id.</li>
+ * <li>NATURAL: the ids as Long keys with their natural ordering, for reference.</li>
+ * </ul>
+ * The keys are inserted in random order, find and remove + reinsert probe random keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ComparatorBenchmark {
+
+    public enum Ordering {
+        WRAPPER, COMPARATOR, NATURAL
+    }
+
+    /**
+     * A record without a natural ordering.
+     */
+    public static final class Record {
+
+        final long id;
+        final String name;
+
+        Record(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Comparable wrapper around a record.
+     */
+    public static final class RecordKey implements Comparable<RecordKey> {
+
+        final Record record;
+
+        RecordKey(Record record) {
+            this.record = record;
+        }
+
+        @Override
+        public int compareTo(RecordKey other) {
+            return Long.compare(record.id, other.record.id);
+        }
+    }
+
+    private static final Comparator<Record> BY_ID = new Comparator<Record>() {
+        @Override
+        public int compare(Record a, Record b) {
+            return Long.compare(a.id, b.id);
+        }
+    };
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"WRAPPER", "COMPARATOR", "NATURAL"})
+    public Ordering ordering;
+
+    /**
+     * Keys in random order, of the type that the tree of the ordering holds.
+     */
+    private Object[] keys;
+    private Object[] probes;
+    private int probeCursor;
+    private AVLTree<Object> tree;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void fillTree() {
+        Random random = new Random(42);
+        keys = toKeys(KeyDistribution.RANDOM.indexes(size, size, random));
+        probes = toKeys(KeyDistribution.RANDOM.indexes(size, size, random));
+        Comparator<?> comparator = ordering == Ordering.COMPARATOR ? BY_ID : null;
+        tree = new AVLTree<>((Comparator<Object>) comparator);
+        for (Object key : keys) {
+            tree.insert(key);
+        }
+        probeCursor = 0;
+    }
+
+    private Object[] toKeys(int[] indexes) {
+        Object[] result = new Object[indexes.length];
+        for (int j = 0; j < indexes.length; j++) {
+            long id = indexes[j] * 7L;
+            if (ordering == Ordering.NATURAL) {
+                result[j] = Long.valueOf(id);
+            } else {
+                Record record = new Record(id, "record-" + id);
+                result[j] = ordering == Ordering.WRAPPER ? new RecordKey(record) : record;
+            }
+        }
+        return result;
+    }
+
+    private Object nextProbe() {
+        Object key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+
+    @Benchmark
+    public Object find() {
+        return tree.find(nextProbe());
+    }
+
+    /**
+     * Remove a key and insert it again, so the tree keeps its size.
+     */
+    @Benchmark
+    public void removeInsert() {
+        Object key = nextProbe();
+        tree.remove(key);
+        tree.insert(key);
+    }
+}
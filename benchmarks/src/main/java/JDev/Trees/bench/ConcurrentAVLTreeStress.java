@@ -0,0 +1,113 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.ConcurrentAVLTree;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stress test for ConcurrentAVLTree, run it with
+ * <pre>
+ * java -cp benchmarks.jar JDev.Trees.bench.ConcurrentAVLTreeStress [threads] [rounds]
+ * </pre>
+ * Every writer thread owns the keys k with k % threads == id and inserts and removes them at random,
+ * so it knows exactly which of its keys must be in the tree: every find of an own key is checked.
+ * At the same time a reader iterates the whole tree and checks the order. After each round the
+ * content of the tree must be the union of the keys the writers left behind.
+ */
+public class ConcurrentAVLTreeStress {
+
+    private static final int KEYS = 4000;
+    private static final int OPERATIONS = 200000;
+
+    public static void main(String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                final ConcurrentAVLTree<Comparable> tree = new ConcurrentAVLTree<>();
+                List<Future<BitSet>> writers = new ArrayList<Future<BitSet>>();
+                for (int id = 0; id < threads; id++) {
+                    final int me = id;
+                    final long seed = round * 1000L + id;
+                    writers.add(executor.submit(() -> write(tree, me, threads, new Random(seed))));
+                }
+                Future<Integer> reader = executor.submit(() -> {
+                    int iterations = 0;
+                    while (!done(writers)) {
+                        checkOrder(tree);
+                        iterations++;
+                    }
+                    return iterations;
+                });
+
+                BitSet expected = new BitSet();
+                for (Future<BitSet> writer : writers) {
+                    expected.or(writer.get());
+                }
+                int iterations = reader.get();
+
+                List<Object> actual = new ArrayList<Object>();
+                for (Object key : tree) {
+                    actual.add(key);
+                }
+                int i = 0;
+                for (int key = expected.nextSetBit(0); key >= 0; key = expected.nextSetBit(key + 1), i++) {
+                    if (i >= actual.size() || !actual.get(i).equals(key)) {
+                        throw new AssertionError("round " + round + ": key " + key + " missing or out of order");
+                    }
+                }
+                if (i != actual.size()) {
+                    throw new AssertionError("round " + round + ": " + (actual.size() - i) + " keys too many");
+                }
+                System.out.println("round " + round + ": " + actual.size() + " keys, "
+                        + iterations + " concurrent iterations, OK");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static BitSet write(ConcurrentAVLTree<Comparable> tree, int me, int threads, Random random) {
+        BitSet mine = new BitSet();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEYS / threads) * threads + me;
+            if (random.nextInt(100) < 55) {
+                tree.insert(key);
+                mine.set(key);
+            } else {
+                tree.remove(key);
+                mine.clear(key);
+            }
+            if (random.nextInt(10) == 0 && tree.find(key, true) != mine.get(key)) {
+                throw new AssertionError("find(" + key + ") is wrong");
+            }
+        }
+        return mine;
+    }
+
+    private static void checkOrder(ConcurrentAVLTree<Comparable> tree) {
+        Comparable previous = null;
+        for (Object key : tree) {
+            if (previous != null && previous.compareTo(key) >= 0) {
+                throw new AssertionError("iterator returned " + key + " after " + previous);
+            }
+            previous = (Comparable) key;
+        }
+    }
+
+    private static boolean done(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.ConcurrentReadAVLTree;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 95% find / 5% update mix on one shared tree: ConcurrentReadAVLTree against an AVLTree
+ * behind a global lock. Run it with a growing number of threads to see the scaling:
+ * <pre>
+ * for t in 1 2 4 8; do java -jar benchmarks.jar ConcurrentReadBenchmark -t $t; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConcurrentReadBenchmark {
+
+    public enum Implementation {
+        LOCKED, OPTIMISTIC
+    }
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"5"})
+    public int writePercent;
+
+    @Param({"LOCKED", "OPTIMISTIC"})
+    public Implementation implementation;
+
+    private Integer[] keys;
+    private AVLTree<Comparable> lockedTree;
+    private ConcurrentReadAVLTree<Comparable> optimisticTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        keys = new Integer[2 * size];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        lockedTree = new AVLTree<>();
+        optimisticTree = new ConcurrentReadAVLTree<>();
+        // the even keys are in the tree, so about half of the lookups are misses
+        int[] order = KeyDistribution.RANDOM.indexes(size, size, new java.util.Random(42));
+        for (int i : order) {
+            if (implementation == Implementation.LOCKED) {
+                lockedTree.insert(keys[2 * i]);
+            } else {
+                optimisticTree.insert(keys[2 * i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = keys[random.nextInt(keys.length)];
+        boolean write = random.nextInt(100) < writePercent;
+        if (implementation == Implementation.LOCKED) {
+            synchronized (lockedTree) {
+                if (!write) {
+                    return lockedTree.find(key);
+                }
+                lockedTree.remove(key);
+                lockedTree.insert(key);
+                return key;
+            }
+        }
+        if (!write) {
+            return optimisticTree.find(key);
+        }
+        optimisticTree.remove(key);
+        optimisticTree.insert(key);
+        return key;
+    }
+}
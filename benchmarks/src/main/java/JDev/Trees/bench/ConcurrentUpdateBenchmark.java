@@ -0,0 +1,120 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.ConcurrentAVLTree;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mix of finds, inserts and removes on one shared tree with many writers: ConcurrentAVLTree
+ * against an AVLTree behind a global lock and against ConcurrentSkipListMap.
+ * Run it with a growing number of threads to see the scaling:
+ * <pre>
+ * for t in 1 2 4 8 16; do java -jar benchmarks.jar ConcurrentUpdateBenchmark -t $t; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConcurrentUpdateBenchmark {
+
+    public enum Implementation {
+        LOCKED, CONCURRENT, SKIP_LIST
+    }
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"10", "50"})
+    public int writePercent;
+
+    @Param({"LOCKED", "CONCURRENT", "SKIP_LIST"})
+    public Implementation implementation;
+
+    private Integer[] keys;
+    private AVLTree<Comparable> lockedTree;
+    private ConcurrentAVLTree<Comparable> concurrentTree;
+    private ConcurrentSkipListMap<Integer, Boolean> skipList;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        keys = new Integer[2 * size];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        lockedTree = new AVLTree<>();
+        concurrentTree = new ConcurrentAVLTree<>();
+        skipList = new ConcurrentSkipListMap<Integer, Boolean>();
+        // half of the key range is in the tree, inserts and removes are equally likely so it stays that way
+        int[] order = KeyDistribution.RANDOM.indexes(size, size, new Random(42));
+        for (int i : order) {
+            Integer key = keys[2 * i];
+            switch (implementation) {
+                case LOCKED:
+                    lockedTree.insert(key);
+                    break;
+                case CONCURRENT:
+                    concurrentTree.insert(key);
+                    break;
+                default:
+                    skipList.put(key, Boolean.TRUE);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = keys[random.nextInt(keys.length)];
+        int operation = random.nextInt(200);
+        boolean insert = operation < writePercent;
+        boolean remove = !insert && operation < 2 * writePercent;
+
+        switch (implementation) {
+            case LOCKED:
+                synchronized (lockedTree) {
+                    if (insert) {
+                        lockedTree.insert(key);
+                        return key;
+                    } else if (remove) {
+                        lockedTree.remove(key);
+                        return key;
+                    }
+                    return lockedTree.find(key);
+                }
+            case CONCURRENT:
+                if (insert) {
+                    concurrentTree.insert(key);
+                    return key;
+                } else if (remove) {
+                    concurrentTree.remove(key);
+                    return key;
+                }
+                return concurrentTree.find(key);
+            default:
+                if (insert) {
+                    return skipList.put(key, Boolean.TRUE);
+                } else if (remove) {
+                    return skipList.remove(key);
+                }
+                return skipList.get(key);
+        }
+    }
+}
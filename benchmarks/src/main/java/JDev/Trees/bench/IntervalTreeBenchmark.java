@@ -0,0 +1,129 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.Interval;
+import JDev.Trees.IntervalTree;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time ranges: which of n intervals overlap a point or a short range. IntervalTree.overlaps
+ * against a scan of all intervals of an AVLTree ordered the same way, and the cost of an insert
+ * and remove with the largest end kept up to date. The intervals start at random times in
+ * [0, 100 n) and last up to 1000, so a point is in about 5 of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class IntervalTreeBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private Interval<Long>[] intervals;
+    private long[] probes;
+    private int probeCursor;
+    private int updateCursor;
+    private IntervalTree<Long> intervalTree;
+    private AVLTree<Interval<Long>> avlTree;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void fillTree() {
+        Random random = new Random(42);
+        intervals = (Interval<Long>[]) new Interval[size];
+        intervalTree = new IntervalTree<>();
+        avlTree = new AVLTree<>(Comparator.comparing((Interval<Long> x) -> x.getLo()).thenComparing(x -> x.getHi()));
+        for (int i = 0; i < size; i++) {
+            long lo = (long) (random.nextDouble() * 100 * size);
+            intervals[i] = new Interval<>(lo, lo + random.nextInt(1000));
+            intervalTree.insert(intervals[i]);
+            avlTree.insert(intervals[i]);
+        }
+        probes = new long[PROBES];
+        for (int j = 0; j < PROBES; j++) {
+            probes[j] = (long) (random.nextDouble() * 100 * size);
+        }
+        probeCursor = 0;
+    }
+
+    private long nextProbe() {
+        long probe = probes[probeCursor++];
+        if (probeCursor == PROBES) {
+            probeCursor = 0;
+        }
+        return probe;
+    }
+
+    @Benchmark
+    public int overlapsPoint() {
+        return count(intervalTree.overlaps(nextProbe()));
+    }
+
+    @Benchmark
+    public int overlapsRange() {
+        long lo = nextProbe();
+        return count(intervalTree.overlaps(lo, lo + 1000));
+    }
+
+    /**
+     * The overlaps of a range without an interval tree: look at every interval that starts
+     * before the end of the range, the order of the AVLTree allows no more.
+     */
+    @Benchmark
+    public int scanRange() {
+        long lo = nextProbe();
+        long hi = lo + 1000;
+        int count = 0;
+        for (Interval<Long> x : avlTree) {
+            if (x.getLo() > hi) {
+                break;
+            }
+            if (x.getHi() >= lo) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Remove an interval and insert it again, so the tree keeps its size.
+     */
+    @Benchmark
+    public void update() {
+        Interval<Long> x = intervals[updateCursor++];
+        if (updateCursor == size) {
+            updateCursor = 0;
+        }
+        intervalTree.remove(x);
+        intervalTree.insert(x);
+    }
+
+    private static int count(Iterator<Interval<Long>> it) {
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+}
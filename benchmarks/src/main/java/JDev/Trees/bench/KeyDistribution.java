@@ -0,0 +1,133 @@
+package JDev.Trees.bench;
+
+import java.util.Random;
+
+/**
+ * Order in which keys are fed into a tree or looked up in a tree.
+ */
+public enum KeyDistribution {
+
+    /**
+     * Ascending order. This is the adversarial input for BinarySearchTree,
+     * which degenerates into a linked list.
+     */
+    SEQUENTIAL {
+        @Override
+        public int[] indexes(int size, int count, Random random) {
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = i % size;
+            }
+            return result;
+        }
+    },
+    /**
+     * Descending order, the mirrored adversarial input.
+     */
+    REVERSE {
+        @Override
+        public int[] indexes(int size, int count, Random random) {
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = size - 1 - i % size;
+            }
+            return result;
+        }
+    },
+    /**
+     * Uniform random order. The first size indexes are a permutation of [0, size).
+     */
+    RANDOM {
+        @Override
+        public int[] indexes(int size, int count, Random random) {
+            int[] permutation = permutation(size, random);
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = i < size ? permutation[i] : random.nextInt(size);
+            }
+            return result;
+        }
+    },
+    /**
+     * Zipfian distribution (theta = 0.99): a few hot keys are used most of the time.
+     * The hot keys are scattered over the key range, so they are not all neighbours.
+     */
+    ZIPFIAN {
+        @Override
+        public int[] indexes(int size, int count, Random random) {
+            int[] scatter = permutation(size, random);
+            ZipfianGenerator zipf = new ZipfianGenerator(size, 0.99);
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = scatter[zipf.next(random)];
+            }
+            return result;
+        }
+    };
+
+    /**
+     * Generate a sequence of indexes in [0, size).
+     * @param size number of distinct keys
+     * @param count length of the sequence
+     * @param random source of randomness
+     * @return the sequence
+     */
+    public abstract int[] indexes(int size, int count, Random random);
+
+    private static int[] permutation(int size, Random random) {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = result[i];
+            result[i] = result[j];
+            result[j] = temp;
+        }
+        return result;
+    }
+
+    /**
+     * Zipfian generator after Gray et al. "Quickly generating billion-record
+     * synthetic databases", as used by YCSB. Needs O(size) time once, O(1) per value.
+     */
+    private static final class ZipfianGenerator {
+
+        private final int size;
+        private final double theta;
+        private final double alpha;
+        private final double zetaN;
+        private final double eta;
+
+        ZipfianGenerator(int size, double theta) {
+            this.size = size;
+            this.theta = theta;
+            double zeta2 = zeta(2, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.zetaN = zeta(size, theta);
+            this.eta = (1 - Math.pow(2.0 / size, 1 - theta)) / (1 - zeta2 / zetaN);
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        int next(Random random) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return size > 1 ? 1 : 0;
+            }
+            int result = (int) (size * Math.pow(eta * u - eta + 1, alpha));
+            return result >= size ? size - 1 : result;
+        }
+    }
+}
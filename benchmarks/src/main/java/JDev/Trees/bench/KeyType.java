@@ -0,0 +1,56 @@
+package JDev.Trees.bench;
+
+/**
+ * Key types used by the benchmarks. Every type maps the index i to a key, so
+ * that the order of the keys is the same as the order of the indexes.
+ */
+public enum KeyType {
+
+    INTEGER {
+        @Override
+        public Comparable key(int i) {
+            return Integer.valueOf(i);
+        }
+    },
+    LONG {
+        @Override
+        public Comparable key(int i) {
+            // spread the keys over the long range, so they do not fit into an int
+            return Long.valueOf(((long) i << 20) + 7);
+        }
+    },
+    STRING {
+        @Override
+        public Comparable key(int i) {
+            // zero padded, so the lexicographic order is the numeric order
+            char[] digits = new char[12];
+            digits[0] = 'k';
+            digits[1] = '-';
+            for (int p = digits.length - 1; p >= 2; p--) {
+                digits[p] = (char) ('0' + i % 10);
+                i /= 10;
+            }
+            return new String(digits);
+        }
+    };
+
+    /**
+     * Create the key for an index.
+     * @param i index in [0, size)
+     * @return the key
+     */
+    public abstract Comparable key(int i);
+
+    /**
+     * Create the keys for a sequence of indexes.
+     * @param indexes the indexes
+     * @return array of keys, keys[j] = key(indexes[j])
+     */
+    public Comparable[] keys(int[] indexes) {
+        Comparable[] result = new Comparable[indexes.length];
+        for (int j = 0; j < indexes.length; j++) {
+            result[j] = key(indexes[j]);
+        }
+        return result;
+    }
+}
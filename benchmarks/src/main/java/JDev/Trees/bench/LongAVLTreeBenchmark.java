@@ -0,0 +1,116 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.LongAVLTree;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LongAVLTree against AVLTree holding boxed Long keys: random lookups and building
+ * the tree. The GC profiler output of the insert benchmarks shows the bytes per node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LongAVLTreeBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private long[] keys;
+    private long[] probes;
+    private Long[] boxedProbes;
+    private int insertCursor;
+    private int probeCursor;
+
+    private LongAVLTree longTree;
+    private AVLTree<Comparable> boxedTree;
+    private LongAVLTree longInsertTree;
+    private AVLTree<Comparable> boxedInsertTree;
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        Random random = new Random(42);
+        int[] indexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) indexes[i] << 20) + 7;
+        }
+        indexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        probes = new long[size];
+        boxedProbes = new Long[size];
+        for (int i = 0; i < size; i++) {
+            probes[i] = ((long) indexes[i] << 20) + 7;
+            boxedProbes[i] = probes[i];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillTrees() {
+        longTree = new LongAVLTree();
+        boxedTree = new AVLTree<>();
+        for (long key : keys) {
+            longTree.insert(key);
+            boxedTree.insert(key);
+        }
+        longInsertTree = new LongAVLTree();
+        boxedInsertTree = new AVLTree<>();
+        insertCursor = 0;
+        probeCursor = 0;
+    }
+
+    private int nextProbe() {
+        int i = probeCursor++;
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return i;
+    }
+
+    private int nextInsert() {
+        if (insertCursor == keys.length) {
+            longInsertTree = new LongAVLTree();
+            boxedInsertTree = new AVLTree<>();
+            insertCursor = 0;
+        }
+        return insertCursor++;
+    }
+
+    @Benchmark
+    public boolean findLong() {
+        return longTree.find(probes[nextProbe()]);
+    }
+
+    @Benchmark
+    public Comparable findBoxed() {
+        return boxedTree.find(boxedProbes[nextProbe()]);
+    }
+
+    /**
+     * Insert including the boxing a caller of AVLTree has to do.
+     */
+    @Benchmark
+    public void insertLong() {
+        longInsertTree.insert(keys[nextInsert()]);
+    }
+
+    @Benchmark
+    public void insertBoxed() {
+        boxedInsertTree.insert(Long.valueOf(keys[nextInsert()]));
+    }
+}
@@ -0,0 +1,96 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.BinarySearchTree;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Membership tests: contains, find and the old find(x, true), half of the probes are not in the tree.
+ * Run through {@link Benchmarks}, the GC profiler reports gc.alloc.rate.norm, which must be 0 B/op
+ * for all three (JMH prints values near 0 for the profiler itself).
+ * The keys are filled in random order, so the BinarySearchTree is not degenerated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LookupBenchmark {
+
+    public enum Tree {
+        AVL, BST
+    }
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"INTEGER", "STRING"})
+    public KeyType keyType;
+
+    @Param({"AVL", "BST"})
+    public Tree tree;
+
+    private Comparable[] probes;
+    private int probeCursor;
+    private AVLTree<Comparable> avlTree;
+    private BinarySearchTree<Comparable> binaryTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        Random random = new Random(42);
+        // the tree holds the even indexes, the probes are even and odd
+        int[] indexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        for (int j = 0; j < size; j++) {
+            indexes[j] *= 2;
+        }
+        Comparable[] keys = keyType.keys(indexes);
+        probes = keyType.keys(KeyDistribution.RANDOM.indexes(2 * size, Math.min(2 * size, 1 << 20), random));
+        avlTree = new AVLTree<>();
+        binaryTree = new BinarySearchTree<>();
+        for (Comparable key : keys) {
+            if (tree == Tree.AVL) {
+                avlTree.insert(key);
+            } else {
+                binaryTree.insert(key);
+            }
+        }
+        probeCursor = 0;
+    }
+
+    private Comparable nextProbe() {
+        Comparable key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return tree == Tree.AVL ? avlTree.contains(nextProbe()) : binaryTree.contains(nextProbe());
+    }
+
+    @Benchmark
+    public Comparable find() {
+        return tree == Tree.AVL ? avlTree.find(nextProbe()) : binaryTree.find(nextProbe());
+    }
+
+    @Benchmark
+    public boolean findBasic() {
+        return tree == Tree.AVL ? avlTree.find(nextProbe(), true) : binaryTree.find(nextProbe(), true);
+    }
+}
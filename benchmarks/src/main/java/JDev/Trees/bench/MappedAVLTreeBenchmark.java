@@ -0,0 +1,120 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.MappedLongAVLTree;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Start up cost of an index: opening a persisted MappedLongAVLTree against replaying
+ * all inserts into an AVLTree, and random lookups in both.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MappedAVLTreeBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+
+    private File file;
+    private long[] keys;
+    private long[] probes;
+    private int probeCursor;
+    private MappedLongAVLTree mappedTree;
+    private AVLTree<Comparable> heapTree;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        Random random = new Random(42);
+        keys = new long[size];
+        probes = new long[size];
+        int[] indexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        int[] probeIndexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) indexes[i] * 31;
+            probes[i] = (long) probeIndexes[i] * 31;
+        }
+
+        file = File.createTempFile("mapped-avl", ".tree");
+        file.delete();
+        MappedLongAVLTree tree = new MappedLongAVLTree(file);
+        for (long key : keys) {
+            tree.insert(key);
+        }
+        tree.close();
+
+        mappedTree = new MappedLongAVLTree(file);
+        heapTree = replay();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        mappedTree.close();
+        file.delete();
+    }
+
+    /**
+     * Open the persisted tree and touch one key, so the header and the root are read.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public boolean reopen() throws IOException {
+        MappedLongAVLTree tree = new MappedLongAVLTree(file);
+        boolean found = tree.find(keys[0]);
+        tree.close();
+        return found;
+    }
+
+    /**
+     * What the start up costs without a persisted tree.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public AVLTree<Comparable> replay() {
+        AVLTree<Comparable> tree = new AVLTree<>();
+        for (long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean findMapped() {
+        return mappedTree.find(nextProbe());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Comparable findHeap() {
+        return heapTree.find(nextProbe());
+    }
+
+    private long nextProbe() {
+        long key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,114 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.BinarySearchTree;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What the metrics cost: contains and an update (remove and insert of the same key) with the
+ * metrics disabled and enabled. Disabled, the operations must be as fast as without metrics:
+ * compare with {@link LookupBenchmark} of a build without them. Half of the probes are not in
+ * the tree, the keys are filled in random order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MetricsBenchmark {
+
+    public enum Tree {
+        AVL, BST
+    }
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"AVL", "BST"})
+    public Tree tree;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private Integer[] probes;
+    private Integer[] updates;
+    private int probeCursor;
+    private AVLTree<Integer> avlTree;
+    private BinarySearchTree<Integer> binaryTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        Random random = new Random(42);
+        // the tree holds the even keys, the probes are even and odd
+        int[] indexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        int[] probeIndexes = KeyDistribution.RANDOM.indexes(2 * size, Math.min(2 * size, 1 << 20), random);
+        probes = new Integer[probeIndexes.length];
+        updates = new Integer[probeIndexes.length];
+        for (int j = 0; j < probes.length; j++) {
+            probes[j] = probeIndexes[j];
+            updates[j] = probeIndexes[j] & ~1;
+        }
+        avlTree = new AVLTree<>();
+        binaryTree = new BinarySearchTree<>();
+        for (int index : indexes) {
+            if (tree == Tree.AVL) {
+                avlTree.insert(2 * index);
+            } else {
+                binaryTree.insert(2 * index);
+            }
+        }
+        avlTree.setMetricsEnabled(metrics);
+        binaryTree.setMetricsEnabled(metrics);
+        probeCursor = 0;
+    }
+
+    private Integer nextProbe() {
+        Integer key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+
+    private Integer nextUpdate() {
+        Integer key = updates[probeCursor++];
+        if (probeCursor == updates.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return tree == Tree.AVL ? avlTree.contains(nextProbe()) : binaryTree.contains(nextProbe());
+    }
+
+    /**
+     * Remove a key of the tree and insert it again, so the tree keeps its size.
+     */
+    @Benchmark
+    public void update() {
+        Integer key = nextUpdate();
+        if (tree == Tree.AVL) {
+            avlTree.remove(key);
+            avlTree.insert(key);
+        } else {
+            binaryTree.remove(key);
+            binaryTree.insert(key);
+        }
+    }
+}
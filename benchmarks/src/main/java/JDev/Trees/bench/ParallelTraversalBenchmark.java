@@ -0,0 +1,97 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.BinarySearchTree;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sum of all keys of a tree: the sequential iterator and stream against parallelStream,
+ * parallelReduce and parallelForEach, which split the tree by rank and run the parts in the
+ * fork-join pool. The speed up depends on the cores of the machine, with one core the parallel
+ * benchmarks show what the splitting costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ParallelTraversalBenchmark {
+
+    public enum Tree {
+        AVL, BST
+    }
+
+    @Param({"10000000"})
+    public int size;
+
+    @Param({"AVL", "BST"})
+    public Tree tree;
+
+    private AVLTree<Long> avlTree;
+    private BinarySearchTree<Long> binaryTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        Long[] keys = new Long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) i;
+        }
+        avlTree = AVLTree.fromSorted(keys, false);
+        binaryTree = BinarySearchTree.fromSorted(keys, false);
+    }
+
+    private Iterable<Long> iterable() {
+        return tree == Tree.AVL ? avlTree : binaryTree;
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Long key : iterable()) {
+            sum += key;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long stream() {
+        return (tree == Tree.AVL ? avlTree.stream() : binaryTree.stream()).mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return (tree == Tree.AVL ? avlTree.parallelStream() : binaryTree.parallelStream())
+                .mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public long parallelReduce() {
+        return tree == Tree.AVL ? avlTree.parallelReduce(0L, (sum, key) -> sum + key, Long::sum)
+                : binaryTree.parallelReduce(0L, (sum, key) -> sum + key, Long::sum);
+    }
+
+    @Benchmark
+    public long parallelForEach() {
+        LongAdder sum = new LongAdder();
+        if (tree == Tree.AVL) {
+            avlTree.parallelForEach(sum::add);
+        } else {
+            binaryTree.parallelForEach(sum::add);
+        }
+        return sum.sum();
+    }
+}
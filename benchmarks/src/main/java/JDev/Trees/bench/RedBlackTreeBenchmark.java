@@ -0,0 +1,97 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.RedBlackTree;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mix of finds, inserts and removes on one tree: RedBlackTree against AVLTree, read-heavy
+ * (10% writes) and write-heavy (90% writes). Half of the key range is in the tree and inserts
+ * and removes are equally likely, so the size stays the same. The rotations per update are
+ * counted by {@link RotationCount}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RedBlackTreeBenchmark {
+
+    public enum Implementation {
+        AVL_TREE, RED_BLACK
+    }
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"10", "90"})
+    public int writePercent;
+
+    @Param({"AVL_TREE", "RED_BLACK"})
+    public Implementation implementation;
+
+    private Integer[] keys;
+    private AVLTree<Comparable> avlTree;
+    private RedBlackTree<Comparable> redBlackTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        keys = new Integer[2 * size];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        avlTree = new AVLTree<>();
+        redBlackTree = new RedBlackTree<>();
+        int[] order = KeyDistribution.RANDOM.indexes(size, size, new Random(42));
+        for (int i : order) {
+            if (implementation == Implementation.AVL_TREE) {
+                avlTree.insert(keys[2 * i]);
+            } else {
+                redBlackTree.insert(keys[2 * i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = keys[random.nextInt(keys.length)];
+        int operation = random.nextInt(200);
+        boolean insert = operation < writePercent;
+        boolean remove = !insert && operation < 2 * writePercent;
+
+        if (implementation == Implementation.AVL_TREE) {
+            if (insert) {
+                avlTree.insert(key);
+                return key;
+            } else if (remove) {
+                avlTree.remove(key);
+                return key;
+            }
+            return avlTree.find(key);
+        }
+        if (insert) {
+            redBlackTree.insert(key);
+            return key;
+        } else if (remove) {
+            redBlackTree.remove(key);
+            return key;
+        }
+        return redBlackTree.find(key);
+    }
+}
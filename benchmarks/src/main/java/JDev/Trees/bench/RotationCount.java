@@ -0,0 +1,63 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.RedBlackTree;
+import java.util.Random;
+
+/**
+ * Counts the rotations per insert and per remove of AVLTree and RedBlackTree, run it with
+ * <pre>
+ * java -cp benchmarks.jar JDev.Trees.bench.RotationCount [size]
+ * </pre>
+ * For every key distribution both trees get the same size inserts (ZIPFIAN repeats keys) and
+ * then a write-heavy phase of size updates: a random key of twice the key range is inserted or
+ * removed with equal probability. About half of these updates find the key already present
+ * or missing and change nothing, they are counted as well.
+ */
+public class RotationCount {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        System.out.println("distribution  tree       rotations/insert  rotations/update");
+        for (KeyDistribution distribution : KeyDistribution.values()) {
+            int[] inserts = distribution.indexes(size, size, new Random(42));
+            int[] updates = KeyDistribution.RANDOM.indexes(2 * size, size, new Random(43));
+
+            AVLTree<Comparable> avlTree = new AVLTree<>();
+            for (int i : inserts) {
+                avlTree.insert(i);
+            }
+            long avlInsert = avlTree.rotations();
+            for (int j = 0; j < updates.length; j++) {
+                if ((j & 1) == 0) {
+                    avlTree.insert(updates[j]);
+                } else {
+                    avlTree.remove(updates[j]);
+                }
+            }
+            long avlUpdate = avlTree.rotations() - avlInsert;
+
+            RedBlackTree<Comparable> redBlackTree = new RedBlackTree<>();
+            for (int i : inserts) {
+                redBlackTree.insert(i);
+            }
+            long redBlackInsert = redBlackTree.rotations();
+            for (int j = 0; j < updates.length; j++) {
+                if ((j & 1) == 0) {
+                    redBlackTree.insert(updates[j]);
+                } else {
+                    redBlackTree.remove(updates[j]);
+                }
+            }
+            long redBlackUpdate = redBlackTree.rotations() - redBlackInsert;
+
+            print(distribution, "AVLTree", avlInsert, avlUpdate, size);
+            print(distribution, "RedBlack", redBlackInsert, redBlackUpdate, size);
+        }
+    }
+
+    private static void print(KeyDistribution distribution, String tree, long inserts, long updates, int size) {
+        System.out.println(String.format("%-13s %-10s %16.3f  %16.3f", distribution, tree,
+                (double) inserts / size, (double) updates / size));
+    }
+}
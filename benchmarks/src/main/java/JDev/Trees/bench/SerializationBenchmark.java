@@ -0,0 +1,117 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.KeyCodec;
+import JDev.Trees.TreeSerializer;
+import JDev.Trees.VisitMode;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Save and load a whole AVLTree: TreeSerializer with the codec of the key type against Java
+ * serialization of toArray(ROOT_LEFT_RIGHT) and one insert per key on load. Every iteration is
+ * one full write or read of a temporary file, the sizes of both files are printed in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SerializationBenchmark {
+
+    @Param({"10000000"})
+    public int size;
+
+    @Param({"LONG", "STRING"})
+    public KeyType keyType;
+
+    private AVLTree<Object> tree;
+    private KeyCodec<Object> codec;
+    private File binaryFile;
+    private File javaFile;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void writeFiles() throws IOException {
+        Object[] keys = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = keyType.key(i);
+        }
+        tree = AVLTree.fromSorted(keys, false);
+        codec = (KeyCodec<Object>) (KeyCodec<?>) (keyType == KeyType.LONG ? KeyCodec.LONG
+                : keyType == KeyType.INTEGER ? KeyCodec.INTEGER : KeyCodec.STRING);
+        binaryFile = File.createTempFile("tree", ".bin");
+        javaFile = File.createTempFile("tree", ".ser");
+        binaryFile.deleteOnExit();
+        javaFile.deleteOnExit();
+        write();
+        javaSerializationWrite();
+        System.out.println();
+        System.out.println("TreeSerializer: " + binaryFile.length() + " bytes, Java serialization: "
+                + javaFile.length() + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        binaryFile.delete();
+        javaFile.delete();
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        try (FileChannel channel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            TreeSerializer.write(tree, codec, channel);
+            return channel.position();
+        }
+    }
+
+    @Benchmark
+    public AVLTree<Object> read() throws IOException {
+        try (FileChannel channel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.READ)) {
+            return TreeSerializer.readAVLTree(channel, codec);
+        }
+    }
+
+    @Benchmark
+    public void javaSerializationWrite() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(javaFile)))) {
+            out.writeObject(tree.toArray(VisitMode.ROOT_LEFT_RIGHT));
+        }
+    }
+
+    @Benchmark
+    public AVLTree<Object> javaSerializationRead() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(javaFile)))) {
+            Object[] keys = (Object[]) in.readObject();
+            AVLTree<Object> result = new AVLTree<>();
+            for (Object key : keys) {
+                result.insert(key);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.VisitMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Combining a tree of size keys with a tree of otherSize keys: the join-based set operations
+ * against toArrayList of the other tree and one insert, find or remove per key.
+ * The set operations consume their input, so both trees are rebuilt before every iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SetOperationBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"1000", "100000", "1000000"})
+    public int otherSize;
+
+    private Integer[] keys;
+    private Integer[] otherKeys;
+    private AVLTree<Comparable> tree;
+    private AVLTree<Comparable> other;
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        // the keys of the trees are multiples of 2 and of 3 in the same range, a third of them are in both
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        otherKeys = new Integer[otherSize];
+        long step = 2L * size / otherSize;
+        for (int i = 0; i < otherSize; i++) {
+            otherKeys[i] = (int) (i * step / 3 * 3);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void buildTrees() {
+        tree = AVLTree.fromSorted(keys, true);
+        other = AVLTree.fromSorted(otherKeys, true);
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> union() {
+        tree.union(other);
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> unionPerKey() {
+        for (Object key : other.toArrayList(VisitMode.LEFT_ROOT_RIGHT)) {
+            tree.insert((Comparable) key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> intersection() {
+        tree.intersection(other);
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> intersectionPerKey() {
+        AVLTree<Comparable> result = new AVLTree<>();
+        for (Object key : other.toArrayList(VisitMode.LEFT_ROOT_RIGHT)) {
+            if (tree.find((Comparable) key) != null) {
+                result.insert((Comparable) key);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> difference() {
+        tree.difference(other);
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Comparable> differencePerKey() {
+        for (Object key : other.toArrayList(VisitMode.LEFT_ROOT_RIGHT)) {
+            tree.remove((Comparable) key);
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,110 @@
+package JDev.Trees.bench;
+
+import JDev.Trees.AVLTree;
+import JDev.Trees.PersistentAVLTree;
+import JDev.Trees.SnapshotAVLTree;
+import JDev.Trees.VisitMode;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A consistent view for a reader: copying an AVLTree with toArrayList, which the writers have to
+ * wait for, against the O(1) snapshot of a SnapshotAVLTree. The update and find benchmarks show
+ * what the snapshots cost the writers and the readers: path copying allocates O(log n) nodes
+ * per update (see gc.alloc.rate.norm), find is the same walk down as in AVLTree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private Integer[] probes;
+    private int probeCursor;
+    private AVLTree<Integer> avlTree;
+    private SnapshotAVLTree<Integer> snapshotTree;
+
+    @Setup(Level.Trial)
+    public void fillTree() {
+        Random random = new Random(42);
+        int[] keys = KeyDistribution.RANDOM.indexes(size, size, random);
+        int[] indexes = KeyDistribution.RANDOM.indexes(size, size, random);
+        probes = new Integer[size];
+        for (int j = 0; j < size; j++) {
+            probes[j] = indexes[j];
+        }
+        avlTree = new AVLTree<>();
+        snapshotTree = new SnapshotAVLTree<>();
+        for (int key : keys) {
+            avlTree.insert(key);
+            snapshotTree.insert(key);
+        }
+        probeCursor = 0;
+    }
+
+    private Integer nextProbe() {
+        Integer key = probes[probeCursor++];
+        if (probeCursor == probes.length) {
+            probeCursor = 0;
+        }
+        return key;
+    }
+
+    /**
+     * The consistent view without snapshots: a full copy.
+     */
+    @Benchmark
+    public ArrayList<Integer> copy() {
+        return avlTree.toArrayList(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    @Benchmark
+    public PersistentAVLTree<Integer> snapshot() {
+        return snapshotTree.snapshot();
+    }
+
+    /**
+     * Remove a key and insert it again, so the tree keeps its size.
+     */
+    @Benchmark
+    public void avlTreeUpdate() {
+        Integer key = nextProbe();
+        avlTree.remove(key);
+        avlTree.insert(key);
+    }
+
+    @Benchmark
+    public void snapshotTreeUpdate() {
+        Integer key = nextProbe();
+        snapshotTree.remove(key);
+        snapshotTree.insert(key);
+    }
+
+    @Benchmark
+    public Integer avlTreeFind() {
+        return avlTree.find(nextProbe());
+    }
+
+    @Benchmark
+    public Integer snapshotTreeFind() {
+        return snapshotTree.find(nextProbe());
+    }
+}
@@ -0,0 +1,146 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * AVLTree.insertAll and removeAll, checked against a TreeSet and the invariant walker after every batch.
+ */
+public class AVLTreeBatchTest {
+
+    private final Random random = new Random(12);
+
+    @Test
+    public void randomBatches() {
+        for (int round = 0; round < 500; round++) {
+            AVLTree<Integer> tree = new AVLTree<>();
+            TreeSet<Integer> expected = new TreeSet<>();
+            int range = 1 + random.nextInt(round < 490 ? 300 : 20000);
+            for (int step = 0; step < 20; step++) {
+                List<Integer> batch = randomKeys(random.nextInt(range / 2 + 2), range);
+                if (random.nextInt(3) == 0) {
+                    tree.removeAll(batch);
+                    expected.removeAll(batch);
+                } else {
+                    tree.insertAll(batch);
+                    expected.addAll(batch);
+                }
+                check(tree, expected);
+            }
+            for (Integer key : new ArrayList<>(expected)) {
+                if (random.nextBoolean()) {
+                    tree.remove(key);
+                    expected.remove(key);
+                }
+            }
+            check(tree, expected);
+        }
+    }
+
+    @Test
+    public void smallBatchesIntoALargeTree() {
+        // batches small against the tree take the key by key path
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<Integer> keys = randomKeys(100000, 1000000);
+        tree.insertAll(keys);
+        expected.addAll(keys);
+        for (int step = 0; step < 200; step++) {
+            List<Integer> batch = randomKeys(1 + random.nextInt(50), 1000000);
+            if (random.nextBoolean()) {
+                tree.removeAll(batch);
+                expected.removeAll(batch);
+            } else {
+                tree.insertAll(batch);
+                expected.addAll(batch);
+            }
+        }
+        check(tree, expected);
+    }
+
+    @Test
+    public void emptyTreesAndBatches() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        tree.insertAll(Collections.<Integer>emptyList());
+        tree.removeAll(Arrays.asList(1, 2, 3));
+        check(tree, new TreeSet<>());
+
+        tree.insertAll(Arrays.asList(3, 1, 2, 3, 1));
+        check(tree, new TreeSet<>(Arrays.asList(1, 2, 3)));
+        tree.removeAll(Arrays.asList(3, 2, 1, 1));
+        check(tree, new TreeSet<>());
+    }
+
+    @Test
+    public void comparator() {
+        AVLTree<Integer> tree = new AVLTree<>(Collections.reverseOrder());
+        TreeSet<Integer> expected = new TreeSet<>(Collections.reverseOrder());
+        for (int step = 0; step < 50; step++) {
+            List<Integer> batch = randomKeys(random.nextInt(500), 2000);
+            if (step % 3 == 2) {
+                tree.removeAll(batch);
+                expected.removeAll(batch);
+            } else {
+                tree.insertAll(batch);
+                expected.addAll(batch);
+            }
+            check(tree, expected);
+        }
+    }
+
+    @Test
+    public void onlyARealChangeFailsTheIterators() {
+        for (int n : new int[] {10, 100000}) {
+            AVLTree<Integer> tree = new AVLTree<>();
+            List<Integer> even = new ArrayList<>();
+            List<Integer> odd = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                even.add(2 * i);
+                odd.add(2 * i + 1);
+            }
+            tree.insertAll(even);
+
+            Iterator<Integer> iterator = tree.iterator();
+            iterator.next();
+            // keys already in the tree, keys not in the tree: no change
+            tree.insertAll(Arrays.asList(0, 2, 4));
+            tree.removeAll(Arrays.asList(1, 3, 5));
+            tree.insertAll(even);
+            tree.removeAll(odd);
+            iterator.next();
+
+            tree.insertAll(Collections.singletonList(1));
+            assertThrows(ConcurrentModificationException.class, iterator::next);
+
+            Iterator<Integer> second = tree.iterator();
+            second.next();
+            tree.removeAll(even);
+            assertThrows(ConcurrentModificationException.class, second::next);
+            assertEquals(Collections.singletonList(1), tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+        }
+    }
+
+    private List<Integer> randomKeys(int n, int range) {
+        List<Integer> keys = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            keys.add(random.nextInt(range));
+        }
+        return keys;
+    }
+
+    private static void check(AVLTree<Integer> tree, TreeSet<Integer> expected) {
+        TreeChecks.checkAVLTree(tree);
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+    }
+}
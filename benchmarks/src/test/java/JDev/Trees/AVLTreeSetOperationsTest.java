@@ -0,0 +1,189 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * AVLTree union, intersection, difference, split and join, checked against the same operations on a TreeSet.
+ * The trees are filled in random order, so the inputs have all kinds of shapes.
+ */
+public class AVLTreeSetOperationsTest {
+
+    private final Random random = new Random(13);
+
+    @Test
+    public void union() {
+        for (int round = 0; round < 200; round++) {
+            int range = range(round);
+            TreeSet<Integer> expected = randomSet(range, 1);
+            TreeSet<Integer> other = randomSet(range, 1 + random.nextInt(10));
+            AVLTree<Integer> tree = tree(expected);
+            AVLTree<Integer> otherTree = tree(other);
+
+            tree.union(otherTree);
+            expected.addAll(other);
+            check(tree, expected);
+            assertTrue(otherTree.isEmpty());
+            checkStillWorks(tree, expected, range);
+        }
+    }
+
+    @Test
+    public void intersection() {
+        for (int round = 0; round < 200; round++) {
+            int range = range(round);
+            TreeSet<Integer> expected = randomSet(range, 1);
+            TreeSet<Integer> other = randomSet(range, 1 + random.nextInt(10));
+            AVLTree<Integer> tree = tree(expected);
+            AVLTree<Integer> otherTree = tree(other);
+
+            tree.intersection(otherTree);
+            expected.retainAll(other);
+            check(tree, expected);
+            assertTrue(otherTree.isEmpty());
+            checkStillWorks(tree, expected, range);
+        }
+    }
+
+    @Test
+    public void difference() {
+        for (int round = 0; round < 200; round++) {
+            int range = range(round);
+            TreeSet<Integer> expected = randomSet(range, 1);
+            TreeSet<Integer> other = randomSet(range, 1 + random.nextInt(10));
+            AVLTree<Integer> tree = tree(expected);
+            AVLTree<Integer> otherTree = tree(other);
+
+            tree.difference(otherTree);
+            expected.removeAll(other);
+            check(tree, expected);
+            assertTrue(otherTree.isEmpty());
+            checkStillWorks(tree, expected, range);
+        }
+    }
+
+    @Test
+    public void split() {
+        for (int round = 0; round < 200; round++) {
+            int range = range(round);
+            TreeSet<Integer> keys = randomSet(range, 1);
+            AVLTree<Integer> tree = tree(keys);
+            // also keys before the first and after the last
+            int x = random.nextInt(range + 2) - 1;
+
+            AVLTree<Integer> high = tree.split(x);
+            TreeSet<Integer> expectedHigh = new TreeSet<>(keys.tailSet(x, true));
+            TreeSet<Integer> expectedLow = new TreeSet<>(keys.headSet(x, false));
+            check(tree, expectedLow);
+            check(high, expectedHigh);
+            checkStillWorks(tree, expectedLow, range);
+            checkStillWorks(high, expectedHigh, range);
+        }
+    }
+
+    @Test
+    public void join() {
+        for (int round = 0; round < 200; round++) {
+            int range = range(round);
+            int x = random.nextInt(range);
+            TreeSet<Integer> low = new TreeSet<>(randomSet(range, 1).headSet(x, false));
+            TreeSet<Integer> high = new TreeSet<>(randomSet(range, 1 + random.nextInt(10)).tailSet(x, false));
+            AVLTree<Integer> left = tree(low);
+            AVLTree<Integer> right = tree(high);
+            TreeSet<Integer> expected = new TreeSet<>(low);
+            expected.addAll(high);
+
+            AVLTree<Integer> tree;
+            if (round % 2 == 0) {
+                tree = AVLTree.join(left, x, right);
+                expected.add(x);
+            } else {
+                tree = AVLTree.join(left, right);
+            }
+            check(tree, expected);
+            assertTrue(left.isEmpty());
+            assertTrue(right.isEmpty());
+            checkStillWorks(tree, expected, range);
+        }
+    }
+
+    @Test
+    public void joinChecksTheOrder() {
+        AVLTree<Integer> left = tree(Collections.singleton(5));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(left, 3, new AVLTree<>()));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(left, 5, new AVLTree<>()));
+        AVLTree<Integer> right = tree(Collections.singleton(4));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(left, right));
+    }
+
+    @Test
+    public void comparator() {
+        TreeSet<Integer> expected = new TreeSet<>(Collections.reverseOrder());
+        TreeSet<Integer> other = new TreeSet<>(Collections.reverseOrder());
+        expected.addAll(randomSet(1000, 1));
+        other.addAll(randomSet(1000, 2));
+        AVLTree<Integer> tree = tree(expected);
+        tree.union(tree(other));
+        expected.addAll(other);
+        check(tree, expected);
+
+        AVLTree<Integer> high = tree.split(500);
+        check(high, new TreeSet<>(expected.tailSet(500, true)));
+        check(tree, new TreeSet<>(expected.headSet(500, false)));
+    }
+
+    private int range(int round) {
+        return 1 + random.nextInt(round < 190 ? 300 : 100000);
+    }
+
+    /**
+     * Random keys below range, about range / divisor of them.
+     */
+    private TreeSet<Integer> randomSet(int range, int divisor) {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int n = random.nextInt(range) / divisor; n > 0; n--) {
+            set.add(random.nextInt(range));
+        }
+        return set;
+    }
+
+    /**
+     * A tree of the keys, inserted in random order and with the comparator of the set.
+     */
+    private AVLTree<Integer> tree(Collection<Integer> keys) {
+        AVLTree<Integer> tree = new AVLTree<>(keys instanceof TreeSet ? ((TreeSet<Integer>) keys).comparator() : null);
+        List<Integer> shuffled = new ArrayList<>(keys);
+        Collections.shuffle(shuffled, random);
+        for (Integer key : shuffled) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    private void checkStillWorks(AVLTree<Integer> tree, TreeSet<Integer> expected, int range) {
+        for (int i = 0; i < 20; i++) {
+            int key = random.nextInt(range);
+            tree.insert(key);
+            expected.add(key);
+            key = random.nextInt(range);
+            tree.remove(key);
+            expected.remove(key);
+        }
+        check(tree, expected);
+    }
+
+    private static void check(AVLTree<Integer> tree, TreeSet<Integer> expected) {
+        TreeChecks.checkAVLTree(tree);
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+    }
+}
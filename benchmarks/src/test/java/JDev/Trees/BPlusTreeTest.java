@@ -0,0 +1,197 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BPlusTree checked against a TreeSet and the invariant walker. Small fan-outs split and merge
+ * the nodes after a few keys, so every rebalancing case is reached.
+ */
+public class BPlusTreeTest {
+
+    private final Random random = new Random(17);
+
+    @Test
+    public void randomInsertsAndRemoves() throws Exception {
+        for (int round = 0; round < 120; round++) {
+            int fanOut = round % 4 == 0 ? 64 : 3 + random.nextInt(10);
+            BPlusTree<Integer> tree = new BPlusTree<>(fanOut);
+            TreeSet<Integer> expected = new TreeSet<>();
+            int range = 1 + random.nextInt(3000);
+            // ascending, descending, random, or first growing then shrinking
+            int mode = round % 4;
+            for (int i = 0; i < 3000; i++) {
+                int key = mode == 0 ? i % range : mode == 1 ? range - i % range : random.nextInt(range);
+                int insertPercent = mode == 3 ? (i < 1500 ? 80 : 20) : 55;
+                if (random.nextInt(100) < insertPercent) {
+                    tree.insert(key);
+                    expected.add(key);
+                } else {
+                    tree.remove(key);
+                    expected.remove(key);
+                }
+                if (i % 61 == 0) {
+                    check(tree, expected);
+                    assertEquals(expected.contains(key), tree.find(key, true));
+                    checkRange(tree, expected, range);
+                }
+            }
+            check(tree, expected);
+            while (!expected.isEmpty()) {
+                tree.remove(expected.pollFirst());
+            }
+            check(tree, expected);
+            assertTrue(tree.isEmpty());
+        }
+    }
+
+    @Test
+    public void iteratorRemove() throws Exception {
+        for (int round = 0; round < 60; round++) {
+            BPlusTree<Integer> tree = new BPlusTree<>(3 + random.nextInt(10));
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < 2000; i++) {
+                int key = random.nextInt(3000);
+                tree.insert(key);
+                expected.add(key);
+            }
+
+            boolean ascending = round % 2 == 0;
+            Iterator<Integer> iterator = ascending ? tree.iterator() : tree.iterator(VisitMode.RIGHT_ROOT_LEFT);
+            List<Integer> seen = new ArrayList<>();
+            while (iterator.hasNext()) {
+                Integer key = iterator.next();
+                seen.add(key);
+                if (random.nextInt(3) > 0) {
+                    iterator.remove();
+                    expected.remove(key);
+                }
+            }
+            assertEquals("every key once", new HashSet<>(seen).size(), seen.size());
+            check(tree, expected);
+
+            int lo = random.nextInt(3000);
+            for (Iterator<Integer> range = tree.range(lo, lo + 500); range.hasNext();) {
+                expected.remove(range.next());
+                range.remove();
+            }
+            check(tree, expected);
+        }
+    }
+
+    @Test
+    public void iteratorsFailFast() {
+        BPlusTree<Integer> tree = new BPlusTree<>(4);
+        for (int i = 0; i < 100; i++) {
+            tree.insert(i);
+        }
+        Iterator<Integer> iterator = tree.iterator();
+        iterator.next();
+        tree.insert(50);
+        tree.remove(1000);
+        iterator.next();
+        tree.insert(1000);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        Iterator<Integer> second = tree.iterator();
+        second.next();
+        second.remove();
+        assertThrows(IllegalStateException.class, second::remove);
+    }
+
+    @Test
+    public void emptyTree() throws Exception {
+        BPlusTree<Integer> tree = new BPlusTree<>();
+        assertTrue(tree.isEmpty());
+        assertNull(tree.find(1));
+        assertNull(tree.findMin());
+        assertNull(tree.findMax());
+        assertFalse(tree.iterator().hasNext());
+        assertFalse(tree.range(1, 10).hasNext());
+        tree.remove(1);
+        check(tree, new TreeSet<>());
+        assertThrows(NullPointerException.class, () -> tree.insert(null));
+        assertThrows(IllegalArgumentException.class, () -> new BPlusTree<Integer>(2));
+    }
+
+    @Test
+    public void comparator() throws Exception {
+        BPlusTree<Integer> tree = new BPlusTree<>(5, Collections.reverseOrder());
+        TreeSet<Integer> expected = new TreeSet<>(Collections.reverseOrder());
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) > 0) {
+                tree.insert(key);
+                expected.add(key);
+            } else {
+                tree.remove(key);
+                expected.remove(key);
+            }
+        }
+        check(tree, expected);
+        assertEquals(expected.first(), tree.findMin());
+        assertEquals(expected.last(), tree.findMax());
+        checkRange(tree, expected, 2000);
+        assertEquals(Collections.reverseOrder(), tree.comparator());
+        assertFalse(tree.spliterator().hasCharacteristics(Spliterator.SORTED));
+    }
+
+    @Test
+    public void spliterator() {
+        BPlusTree<Integer> tree = new BPlusTree<>(8);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 10000; i++) {
+            int key = random.nextInt(100000);
+            tree.insert(key);
+            expected.add(key);
+        }
+        assertTrue(tree.spliterator().hasCharacteristics(Spliterator.SORTED));
+        List<Integer> keys = StreamSupport.stream(tree.spliterator(), true)
+                .collect(Collectors.toList());
+        assertEquals(new ArrayList<>(expected), keys);
+    }
+
+    private void checkRange(BPlusTree<Integer> tree, TreeSet<Integer> expected, int range) {
+        Integer lo = random.nextInt(range);
+        Integer hi = lo + (expected.comparator() == null ? 1 : -1) * random.nextInt(100);
+        boolean loInclusive = random.nextBoolean();
+        boolean hiInclusive = random.nextBoolean();
+        List<Integer> keys = new ArrayList<>();
+        for (Iterator<Integer> it = tree.range(lo, loInclusive, hi, hiInclusive); it.hasNext();) {
+            keys.add(it.next());
+        }
+        assertEquals(new ArrayList<>(expected.subSet(lo, loInclusive, hi, hiInclusive)), keys);
+    }
+
+    private static void check(BPlusTree<Integer> tree, TreeSet<Integer> expected) throws Exception {
+        TreeChecks.checkBPlusTree(tree);
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+        assertEquals(new ArrayList<>(expected.descendingSet()), tree.toArrayList(VisitMode.RIGHT_ROOT_LEFT));
+        List<Integer> keys = new ArrayList<>();
+        for (Integer key : tree) {
+            keys.add(key);
+        }
+        assertEquals(new ArrayList<>(expected), keys);
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.findMin());
+            assertEquals(expected.last(), tree.findMax());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package JDev.Trees;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Iterator;
+import org.junit.Test;
+import org.junit.function.ThrowingRunnable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * No method may need a call stack as deep as the tree. The checks run in a thread with a small stack of
+ * {@value #STACK_SIZE} bytes, a recursion once per level overflows it after a few thousand nodes.
+ * <p>
+ * A BinarySearchTree degenerated into a list of {@value #SIZE} nodes is linked directly, as inserting
+ * sorted keys one by one would take quadratic time, once leaning right and once leaning left.
+ * An AVLTree gets {@value #SIZE} sorted keys through insert.
+ */
+public class DegenerateTreeTest {
+
+    private static final long STACK_SIZE = 256 * 1024;
+    private static final int SIZE = 200000;
+
+    @Test
+    public void binarySearchTreeLeaningRight() throws Throwable {
+        runWithSmallStack(() -> checkBinarySearchTree(true));
+    }
+
+    @Test
+    public void binarySearchTreeLeaningLeft() throws Throwable {
+        runWithSmallStack(() -> checkBinarySearchTree(false));
+    }
+
+    @Test
+    public void avlTreeSortedInserts() throws Throwable {
+        runWithSmallStack(() -> {
+            AVLTree<Integer> tree = new AVLTree<>();
+            for (int i = 0; i < SIZE; i++) {
+                tree.insert(i);
+            }
+            int last = SIZE - 1;
+            assertEquals(SIZE, tree.size());
+            assertEquals(Integer.valueOf(last), tree.find(last));
+            for (VisitMode visitMode : VisitMode.values()) {
+                assertEquals(visitMode.toString(), SIZE, tree.toArrayList(visitMode).size());
+            }
+            for (int i = 0; i < SIZE; i += 2) {
+                tree.remove(i);
+            }
+            assertEquals(SIZE / 2, tree.size());
+            assertEquals(Integer.valueOf(1), tree.findMin());
+            TreeChecks.checkAVLTree(tree);
+        });
+    }
+
+    private static void checkBinarySearchTree(boolean ascending) throws Exception {
+        BinarySearchTree<Integer> tree = degenerated(ascending);
+        int last = SIZE - 1;
+
+        assertEquals(SIZE, tree.size());
+        assertEquals(Integer.valueOf(0), tree.find(0));
+        assertEquals(Integer.valueOf(last), tree.find(last));
+        assertNull(tree.find(SIZE));
+        assertEquals(Integer.valueOf(0), tree.findMin());
+        assertEquals(Integer.valueOf(last), tree.findMax());
+        assertEquals(last, tree.rank(last));
+        assertEquals(Integer.valueOf(last), tree.select(last));
+        assertEquals(Integer.valueOf(last), tree.floor(SIZE));
+        assertEquals(Integer.valueOf(0), tree.ceiling(-1));
+        assertEquals(last, tree.countInRange(1, last));
+
+        for (VisitMode visitMode : VisitMode.values()) {
+            ArrayList<Integer> list = tree.toArrayList(visitMode);
+            assertEquals("toArrayList(" + visitMode + ")", SIZE, list.size());
+            int count = 0;
+            for (Iterator<Integer> it = tree.iterator(visitMode); it.hasNext(); it.next()) {
+                count++;
+            }
+            assertEquals("iterator(" + visitMode + ")", SIZE, count);
+        }
+        Iterator<Integer> range = tree.range(last - 2, last);
+        assertEquals(Integer.valueOf(last - 2), range.next());
+        assertEquals(Integer.valueOf(last - 1), range.next());
+        assertEquals(Integer.valueOf(last), range.next());
+        assertFalse(range.hasNext());
+
+        // the new keys go to the deepest node, the duplicate must not change the sizes
+        Integer extra = ascending ? SIZE : -1;
+        tree.insert(extra);
+        tree.insert(last / 2);
+        assertEquals(SIZE + 1, tree.size());
+        assertTrue(tree.contains(extra));
+        assertEquals(ascending ? last : SIZE, tree.rank(last));
+
+        tree.remove(extra);
+        tree.remove(SIZE + 10);
+        tree.remove(0);
+        tree.remove(last);
+        tree.remove(last / 2);
+        assertEquals(SIZE - 3, tree.size());
+        assertFalse(tree.contains(extra));
+        assertFalse(tree.contains(last / 2));
+        assertEquals(Integer.valueOf(1), tree.findMin());
+        assertEquals(Integer.valueOf(last - 1), tree.findMax());
+        assertEquals(SIZE - 4, tree.rank(last - 1));
+    }
+
+    /**
+     * A BinarySearchTree holding the keys 0 to SIZE - 1 as a list: every node has only a right child
+     * (ascending) or only a left child.
+     */
+    private static BinarySearchTree<Integer> degenerated(boolean ascending) throws Exception {
+        BinaryNode<Integer> top = null;
+        for (int i = 0; i < SIZE; i++) {
+            Integer key = ascending ? SIZE - 1 - i : i;
+            BinaryNode<Integer> node = ascending ? new BinaryNode<>(key, null, top) : new BinaryNode<>(key, top, null);
+            node.size = i + 1;
+            top = node;
+        }
+        BinarySearchTree<Integer> tree = new BinarySearchTree<>();
+        Field root = BinarySearchTree.class.getDeclaredField("root");
+        root.setAccessible(true);
+        root.set(tree, top);
+        return tree;
+    }
+
+    private static void runWithSmallStack(ThrowingRunnable check) throws Throwable {
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                check.run();
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        }, "DegenerateTreeTest", STACK_SIZE);
+        thread.start();
+        thread.join();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * The bulk loads from sorted keys, checked against a TreeSet of the same keys.
+ * Every tree built must be perfectly balanced: floor(log2(n)) high.
+ */
+public class FromSortedTest {
+
+    private final Random random = new Random(11);
+
+    @Test
+    public void avlTreeFromArrayListAndIterator() {
+        for (int round = 0; round < 200; round++) {
+            Integer[] keys = sortedKeys(random.nextInt(round < 190 ? 500 : 50000));
+            TreeSet<Integer> expected = new TreeSet<>(Arrays.asList(keys));
+
+            checkAVLTree(AVLTree.fromSorted(keys, true), expected);
+            checkAVLTree(AVLTree.fromSorted(Arrays.asList(keys), true), expected);
+            checkAVLTree(AVLTree.fromSorted(Arrays.asList(keys).iterator(), true), expected);
+            checkAVLTree(AVLTree.fromSorted(expected.iterator(), expected.size(), null), expected);
+            if (expected.size() == keys.length) {
+                checkAVLTree(AVLTree.fromSorted(keys, false), expected);
+            }
+        }
+    }
+
+    @Test
+    public void binarySearchTreeFromArrayListAndIterator() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            Integer[] keys = sortedKeys(random.nextInt(round < 190 ? 500 : 50000));
+            TreeSet<Integer> expected = new TreeSet<>(Arrays.asList(keys));
+
+            checkBinarySearchTree(BinarySearchTree.fromSorted(keys, true), expected);
+            checkBinarySearchTree(BinarySearchTree.fromSorted(Arrays.asList(keys), true), expected);
+            checkBinarySearchTree(BinarySearchTree.fromSorted(Arrays.asList(keys).iterator(), true), expected);
+            checkBinarySearchTree(BinarySearchTree.fromSorted(expected.iterator(), expected.size(), null), expected);
+            checkBinarySearchTree(BinarySearchTree.fromSorted(keys, BalanceMode.SCAPEGOAT, null, true), expected);
+            if (expected.size() == keys.length) {
+                checkBinarySearchTree(BinarySearchTree.fromSorted(keys, false), expected);
+            }
+        }
+    }
+
+    @Test
+    public void parallelFromSorted() throws Exception {
+        // large enough for the fork-join tasks
+        for (int n : new int[] {0, 1, 1000, 100000, 300001}) {
+            Integer[] keys = sortedKeys(n);
+            TreeSet<Integer> expected = new TreeSet<>(Arrays.asList(keys));
+            checkAVLTree(AVLTree.parallelFromSorted(keys, true), expected);
+            checkBinarySearchTree(BinarySearchTree.parallelFromSorted(keys, true), expected);
+            checkBinarySearchTree(BinarySearchTree.parallelFromSorted(keys, BalanceMode.SCAPEGOAT, null, true),
+                    expected);
+        }
+    }
+
+    @Test
+    public void comparator() throws Exception {
+        Integer[] keys = sortedKeys(1000);
+        List<Integer> descending = new ArrayList<>(new TreeSet<>(Arrays.asList(keys)).descendingSet());
+        TreeSet<Integer> expected = new TreeSet<>(Collections.reverseOrder());
+        expected.addAll(descending);
+
+        AVLTree<Integer> avlTree = AVLTree.fromSorted(descending, Collections.reverseOrder(), false);
+        checkAVLTree(avlTree, expected);
+        BinarySearchTree<Integer> tree = BinarySearchTree.fromSorted(descending, Collections.reverseOrder(), false);
+        checkBinarySearchTree(tree, expected);
+    }
+
+    @Test
+    public void treeKeepsWorkingAfterTheBuild() throws Exception {
+        Integer[] keys = sortedKeys(5000);
+        TreeSet<Integer> expected = new TreeSet<>(Arrays.asList(keys));
+        AVLTree<Integer> avlTree = AVLTree.fromSorted(keys, true);
+        BinarySearchTree<Integer> tree = BinarySearchTree.fromSorted(keys, true);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(20000);
+            if (random.nextBoolean()) {
+                avlTree.insert(key);
+                tree.insert(key);
+                expected.add(key);
+            } else {
+                avlTree.remove(key);
+                tree.remove(key);
+                expected.remove(key);
+            }
+        }
+        TreeChecks.checkAVLTree(avlTree);
+        TreeChecks.checkBinarySearchTree(tree);
+        assertEquals(new ArrayList<>(expected), avlTree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+        assertEquals(new ArrayList<>(expected), tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+    }
+
+    @Test
+    public void rejectsUnsortedAndDuplicateKeys() {
+        Integer[] unsorted = {1, 3, 2};
+        Integer[] duplicates = {1, 2, 2, 3};
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(unsorted, true));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(duplicates, false));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.parallelFromSorted(unsorted, true));
+        assertThrows(IllegalArgumentException.class, () -> BinarySearchTree.fromSorted(unsorted, true));
+        assertThrows(IllegalArgumentException.class, () -> BinarySearchTree.fromSorted(duplicates, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinarySearchTree.fromSorted(Arrays.asList(unsorted).iterator(), true));
+    }
+
+    @Test
+    public void rejectsAWrongSize() {
+        List<Integer> keys = Arrays.asList(1, 2, 3);
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(keys.iterator(), 4, null));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(keys.iterator(), 2, null));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(keys.iterator(), -1, null));
+        assertThrows(IllegalArgumentException.class, () -> BinarySearchTree.fromSorted(keys.iterator(), 4, null));
+        assertThrows(IllegalArgumentException.class, () -> BinarySearchTree.fromSorted(keys.iterator(), 2, null));
+    }
+
+    /**
+     * n ascending keys, about a third of them repeat the key before.
+     */
+    private Integer[] sortedKeys(int n) {
+        Integer[] keys = new Integer[n];
+        int key = 0;
+        for (int i = 0; i < n; i++) {
+            key += random.nextInt(3);
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    private static void checkAVLTree(AVLTree<Integer> tree, TreeSet<Integer> expected) {
+        TreeChecks.checkAVLTree(tree);
+        assertEquals(new ArrayList<>(expected), tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+        assertEquals(perfectHeight(expected.size()), tree.root() == null ? -1 : tree.root().height);
+    }
+
+    private static void checkBinarySearchTree(BinarySearchTree<Integer> tree, TreeSet<Integer> expected)
+            throws ReflectiveOperationException {
+        int height = TreeChecks.checkBinarySearchTree(tree);
+        assertEquals(new ArrayList<>(expected), tree.toArrayList(VisitMode.LEFT_ROOT_RIGHT));
+        assertEquals(perfectHeight(expected.size()), height);
+    }
+
+    private static int perfectHeight(int size) {
+        return 31 - Integer.numberOfLeadingZeros(size);
+    }
+}
@@ -0,0 +1,227 @@
+package JDev.Trees;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Invariant walkers for the tests of the trees. They visit every node of large trees,
+ * so a message is only built for a failure.
+ */
+final class TreeChecks {
+
+    private TreeChecks() {
+    }
+
+    /**
+     * Checks the parent links, heights, balance factors, subtree sizes and key order of every node.
+     */
+    static <K> void checkAVLTree(AVLTree<K> tree) {
+        AVLNode<K> root = tree.root();
+        checkAVLNode(tree, root, null, null, null);
+        assertEquals("size", root == null ? 0 : root.size, tree.size());
+    }
+
+    /**
+     * @param lo all keys of the subtree are greater, null if there is no bound
+     * @param hi all keys of the subtree are smaller, null if there is no bound
+     * @return the height of the subtree, -1 for an empty subtree
+     */
+    private static <K> int checkAVLNode(AVLTree<K> tree, AVLNode<K> node, AVLNode<K> parent, K lo, K hi) {
+        if (node == null) {
+            return -1;
+        }
+        if (node.parent != parent) {
+            fail("parent of " + node.data);
+        }
+        if (lo != null && tree.compare(lo, node.data) >= 0 || hi != null && tree.compare(node.data, hi) >= 0) {
+            fail("order at " + node.data);
+        }
+        int left = checkAVLNode(tree, node.left, node, lo, node.data);
+        int right = checkAVLNode(tree, node.right, node, node.data, hi);
+        if (Math.abs(right - left) > 1) {
+            fail("unbalanced at " + node.data);
+        }
+        if (node.height != 1 + Math.max(left, right) || node.balance != right - left) {
+            fail("height or balance of " + node.data);
+        }
+        checkSize(node.data, node.size, node.left == null ? 0 : node.left.size,
+                node.right == null ? 0 : node.right.size);
+        return node.height;
+    }
+
+    /**
+     * Checks the subtree sizes and key order of every node.
+     * @return the height of the tree, -1 for an empty tree
+     */
+    static <K> int checkBinarySearchTree(BinarySearchTree<K> tree) throws ReflectiveOperationException {
+        Field field = BinarySearchTree.class.getDeclaredField("root");
+        field.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        BinaryNode<K> root = (BinaryNode<K>) field.get(tree);
+        assertEquals("size", root == null ? 0 : root.size, tree.size());
+        return checkBinaryNode(tree, root, null, null);
+    }
+
+    private static <K> int checkBinaryNode(BinarySearchTree<K> tree, BinaryNode<K> node, K lo, K hi) {
+        if (node == null) {
+            return -1;
+        }
+        if (lo != null && compare(tree, lo, node.data) >= 0 || hi != null && compare(tree, node.data, hi) >= 0) {
+            fail("order at " + node.data);
+        }
+        int left = checkBinaryNode(tree, node.left, lo, node.data);
+        int right = checkBinaryNode(tree, node.right, node.data, hi);
+        checkSize(node.data, node.size, node.left == null ? 0 : node.left.size,
+                node.right == null ? 0 : node.right.size);
+        return 1 + Math.max(left, right);
+    }
+
+    /**
+     * Checks the key order in and between the nodes, the key counts, that all leaves are at the same
+     * depth and the links of the leaf list. The node classes are private, so their fields are read
+     * through reflection.
+     */
+    static <K> void checkBPlusTree(BPlusTree<K> tree) throws ReflectiveOperationException {
+        BPlusTreeWalker<K> walker = new BPlusTreeWalker<>(tree);
+        Object root = walker.get(BPlusTree.class, "root", tree);
+        Object first = walker.get(BPlusTree.class, "first", tree);
+        Object last = walker.get(BPlusTree.class, "last", tree);
+        if (root == null) {
+            assertNull("first", first);
+            assertNull("last", last);
+            assertEquals("size", 0, tree.size());
+            return;
+        }
+        assertEquals("size", walker.walk(root, null, null, 0, true), tree.size());
+
+        assertSame("first", walker.leaves.get(0), first);
+        assertSame("last", walker.leaves.get(walker.leaves.size() - 1), last);
+        Object previous = null;
+        for (Object leaf : walker.leaves) {
+            assertSame("previous", previous, walker.previous.get(leaf));
+            if (previous != null) {
+                assertSame("next", leaf, walker.next.get(previous));
+            }
+            previous = leaf;
+        }
+        assertNull("next of the last leaf", walker.next.get(last));
+    }
+
+    private static final class BPlusTreeWalker<K> {
+
+        final BPlusTree<K> tree;
+        final int minKeys;
+        final Class<?> leafClass;
+        final Field previous;
+        final Field next;
+        final Field keys;
+        final Field count;
+        final Field children;
+        final List<Object> leaves = new ArrayList<>();
+        int leafDepth = -1;
+
+        BPlusTreeWalker(BPlusTree<K> tree) throws ReflectiveOperationException {
+            this.tree = tree;
+            minKeys = (Integer) get(BPlusTree.class, "minKeys", tree);
+            leafClass = nestedClass("Leaf");
+            previous = field(leafClass, "previous");
+            next = field(leafClass, "next");
+            keys = field(nestedClass("Node"), "keys");
+            count = field(nestedClass("Node"), "count");
+            children = field(nestedClass("Inner"), "children");
+        }
+
+        /**
+         * @param lo all keys of the subtree are not smaller, null if there is no bound
+         * @param hi all keys of the subtree are smaller, null if there is no bound
+         * @return the number of keys in the leaves of the subtree
+         */
+        @SuppressWarnings("unchecked")
+        int walk(Object node, K lo, K hi, int depth, boolean isRoot) throws ReflectiveOperationException {
+            Object[] keys = (Object[]) this.keys.get(node);
+            int count = this.count.getInt(node);
+            // a split at either end of the tree leaves the old keys together, so the first and last leaf
+            // may hold fewer than minKeys keys
+            boolean edge = isRoot
+                    || leafClass.isInstance(node) && (previous.get(node) == null || next.get(node) == null);
+            if (count < (edge ? 1 : minKeys)) {
+                fail("too few keys: " + count);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if ((i < count) != (keys[i] != null)) {
+                    fail("stale key at " + i);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                K key = (K) keys[i];
+                if (i > 0 && compare(keys[i - 1], key) >= 0 || lo != null && compare(key, lo) < 0
+                        || hi != null && compare(key, hi) >= 0) {
+                    fail("order at " + key);
+                }
+            }
+            if (leafClass.isInstance(node)) {
+                if (leafDepth < 0) {
+                    leafDepth = depth;
+                } else if (leafDepth != depth) {
+                    fail("leaves at depth " + leafDepth + " and " + depth);
+                }
+                leaves.add(node);
+                return count;
+            }
+            Object[] children = (Object[]) this.children.get(node);
+            for (int i = 0; i < children.length; i++) {
+                if ((i <= count) != (children[i] != null)) {
+                    fail("stale child at " + i);
+                }
+            }
+            int size = 0;
+            for (int i = 0; i <= count; i++) {
+                size += walk(children[i], i == 0 ? lo : (K) keys[i - 1], i == count ? hi : (K) keys[i], depth + 1,
+                        false);
+            }
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(Object a, Object b) {
+            return tree.comparator() == null ? ((Comparable<Object>) a).compareTo(b)
+                    : tree.comparator().compare((K) a, (K) b);
+        }
+
+        private static Class<?> nestedClass(String name) {
+            for (Class<?> c : BPlusTree.class.getDeclaredClasses()) {
+                if (c.getSimpleName().equals(name)) {
+                    return c;
+                }
+            }
+            throw new AssertionError("no class BPlusTree." + name);
+        }
+
+        Object get(Class<?> c, String name, Object object) throws ReflectiveOperationException {
+            return field(c, name).get(object);
+        }
+
+        private static Field field(Class<?> c, String name) throws ReflectiveOperationException {
+            Field field = c.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        }
+    }
+
+    private static void checkSize(Object key, int size, int leftSize, int rightSize) {
+        if (size != 1 + leftSize + rightSize) {
+            fail("size of " + key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> int compare(BinarySearchTree<K> tree, K a, K b) {
+        return tree.comparator() == null ? ((Comparable<? super K>) a).compareTo(b) : tree.comparator().compare(a, b);
+    }
+}
@@ -0,0 +1,61 @@
+package JDev.Trees;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Node of an {@link AVLTreeMap}, an AVL node with a value attached to its key.
+ * The node is also the entry of the map, setValue replaces the value in place.
+ */
+public class AVLMapNode<K, V> extends AVLNode<K> implements Map.Entry<K, V> {
+
+    public V value;
+
+    public AVLMapNode(K x, V value) {
+        super(x);
+        this.value = value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void copyData(AVLNode<K> node) {
+        data = node.data;
+        value = ((AVLMapNode<K, V>) node).value;
+    }
+
+    @Override
+    public K getKey() {
+        return data;
+    }
+
+    @Override
+    public V getValue() {
+        return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+        V old = this.value;
+        this.value = value;
+        return old;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Map.Entry)) {
+            return false;
+        }
+        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+        return Objects.equals(data, e.getKey()) && Objects.equals(value, e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(data) ^ Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return data + "=" + value;
+    }
+}
@@ -1,26 +1,43 @@
-
 package JDev.Trees;
 
 
-public class AVLNode {
+public class AVLNode<K> {
 
-    public AVLNode left;
-    public AVLNode right;
-    public AVLNode parent;
-    public Comparable data;
+    public AVLNode<K> left;
+    public AVLNode<K> right;
+    public AVLNode<K> parent;
+    public K data;
     public int balance;
+    public int height;
+    /**
+     * Number of nodes in the subtree of this node, the node included.
+     */
+    public int size;
 
-    public AVLNode(Comparable x) {
+    public AVLNode(K x) {
         left = right = parent = null;
         balance = 0;
+        height = 0;
+        size = 1;
         data = x;
     }
 
-    protected AVLNode(Comparable x, AVLNode lt, AVLNode rt, AVLNode par) {
+    protected AVLNode(K x, AVLNode<K> lt, AVLNode<K> rt, AVLNode<K> par) {
         left = lt;
         right = rt;
         parent = par;
         balance = 0;
+        height = 0;
+        size = 1;
         data = x;
     }
-}
\ No newline at end of file
+
+    /**
+     * Takes over the element of another node, when this node replaces the removed successor.
+     *
+     * @param node The node whose element moves into this node.
+     */
+    protected void copyData(AVLNode<K> node) {
+        data = node.data;
+    }
+}
@@ -1,101 +1,402 @@
 package JDev.Trees;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class is the complete and tested implementation of an AVL-tree.
+ * The keys are ordered by their natural ordering, or by a comparator given to the constructor.
+ *
+ * @param <K> the type of the keys
  */
-public class AVLTree {
+public class AVLTree<K> implements Iterable<K> {
 
-    private AVLNode root;
+    /**
+     * Subtrees with fewer keys are built by one thread in parallelFromSorted,
+     * and combined by one thread in the set operations.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
 
     /**
-     * Add a new element with key "x" into the tree.
-     * 
-     * @param x
-     *            The key of the new node.
+     * insertAll and removeAll merge a batch in one pass only if it has at least 1/BATCH_RATIO
+     * as many keys as the tree. A smaller batch touches about as many nodes either way, and one
+     * descent per key is cheaper than sorting the batch and joining the subtrees again.
+     */
+    private static final int BATCH_RATIO = 256;
+
+    // operations of SetOperationTask
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final int DIFFERENCE = 2;
+
+    /**
+     * The order of the keys, null for their natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+    private AVLNode<K> root;
+    /**
+     * Number of structural changes, lets the iterators fail fast.
+     */
+    private int modCount;
+    /**
+     * Number of single rotations, see {@link #rotations()}.
      */
-    public void insert(Comparable x) {
-        // create new node
-        AVLNode n = new AVLNode(x);
-        // start recursive procedure for inserting the node
-        insert(this.root, n);
+    private long rotations;
+    /**
+     * The counters of {@link #metrics()}, null while the metrics are disabled. Not volatile, a
+     * volatile read costs measurable time in a small tree; a switch by the MXBean from another
+     * thread is seen by the owner of the tree without a guarantee of when.
+     */
+    private MetricsCounters metrics;
+
+    /**
+     * New empty tree, the keys are ordered by their natural ordering and must implement Comparable.
+     */
+    public AVLTree() {
+        this(null);
+    }
+
+    /**
+     * New empty tree with the keys ordered by a comparator.
+     *
+     * @param comparator The order of the keys, null for their natural ordering.
+     */
+    public AVLTree(Comparator<? super K> comparator) {
+        this.comparator = comparator;
     }
 
     /**
-     * Recursive method to insert a node into a tree.
+     * Build a perfectly balanced tree from keys sorted in ascending order, in linear time.
+     * The only comparisons are the n - 1 of the check that the keys are sorted.
+     *
+     * @param sortedKeys The keys in ascending order, the array is not changed.
+     * @param removeDuplicates true to keep one of equal keys, false to reject duplicates.
+     * @return the new tree
+     * @throws IllegalArgumentException if the keys are not sorted, or have duplicates that are not removed
+     */
+    public static <K> AVLTree<K> fromSorted(K[] sortedKeys, boolean removeDuplicates) {
+        return fromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from keys sorted by a comparator, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> AVLTree<K> fromSorted(K[] sortedKeys, Comparator<? super K> comparator, boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), comparator, false);
+    }
+
+    /**
+     * Build a perfectly balanced tree from a sorted list, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> AVLTree<K> fromSorted(List<? extends K> sortedKeys, boolean removeDuplicates) {
+        return fromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from a list sorted by a comparator, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> AVLTree<K> fromSorted(List<? extends K> sortedKeys, Comparator<? super K> comparator,
+            boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), comparator, false);
+    }
+
+    /**
+     * Build a perfectly balanced tree from the sorted keys of an iterator, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> AVLTree<K> fromSorted(Iterator<? extends K> sortedKeys, boolean removeDuplicates) {
+        return fromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from the keys of an iterator sorted by a comparator,
+     * see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> AVLTree<K> fromSorted(Iterator<? extends K> sortedKeys, Comparator<? super K> comparator,
+            boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), comparator, false);
+    }
+
+    /**
+     * Build a perfectly balanced tree from exactly size keys of an iterator, in ascending order
+     * without duplicates. The keys are linked into the tree as they are taken from the iterator,
+     * without a copy into an array, so a tree can be loaded from a stream in linear time.
+     *
+     * @param sortedKeys The keys in ascending order.
+     * @param size The number of keys.
+     * @param comparator The order of the keys, null for their natural ordering.
+     * @return the new tree
+     * @throws IllegalArgumentException if the keys are not sorted, have duplicates, or are not size keys
+     */
+    public static <K> AVLTree<K> fromSorted(Iterator<? extends K> sortedKeys, int size,
+            Comparator<? super K> comparator) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+        SortedKeys.Stream<K> keys = new SortedKeys.Stream<>(sortedKeys, comparator);
+        AVLTree<K> tree = new AVLTree<>(comparator);
+        tree.root = build(keys, size);
+        keys.checkEnd();
+        return tree;
+    }
+
+    /**
+     * Build a subtree of the next n keys in order: the left half, the middle key, the right half.
+     */
+    private static <K> AVLNode<K> build(SortedKeys.Stream<K> keys, int n) {
+        if (n == 0) {
+            return null;
+        }
+        AVLNode<K> left = build(keys, n >>> 1);
+        K x = keys.next();
+        return link(x, left, build(keys, n - (n >>> 1) - 1));
+    }
+
+    /**
+     * Like {@link #fromSorted(Object[], boolean)}, but large inputs are built in parallel:
+     * the two halves of every large subtree are built by fork-join tasks in the common pool.
+     */
+    public static <K> AVLTree<K> parallelFromSorted(K[] sortedKeys, boolean removeDuplicates) {
+        return parallelFromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Like {@link #fromSorted(Object[], Comparator, boolean)}, but large inputs are built in parallel.
+     */
+    public static <K> AVLTree<K> parallelFromSorted(K[] sortedKeys, Comparator<? super K> comparator,
+            boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), comparator, true);
+    }
+
+    private static <K> AVLTree<K> build(K[] keys, Comparator<? super K> comparator, boolean parallel) {
+        AVLTree<K> tree = new AVLTree<>(comparator);
+        if (parallel && keys.length > PARALLEL_THRESHOLD) {
+            tree.root = ForkJoinPool.commonPool().invoke(new BuildTask<>(keys, 0, keys.length));
+        } else {
+            tree.root = build(keys, 0, keys.length);
+        }
+        return tree;
+    }
+
+    /**
+     * Build the subtree of keys[from] to keys[to - 1], the middle key is the root.
+     * The recursion is only log(n) deep.
+     */
+    private static <K> AVLNode<K> build(K[] keys, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return link(keys[mid], build(keys, from, mid), build(keys, mid + 1, to));
+    }
+
+    /**
+     * New node with two subtrees that are already balanced and differ in height by at most one.
+     */
+    private static <K> AVLNode<K> link(K x, AVLNode<K> left, AVLNode<K> right) {
+        AVLNode<K> node = new AVLNode<>(x);
+        int leftHeight = -1;
+        int rightHeight = -1;
+        if (left != null) {
+            node.left = left;
+            left.parent = node;
+            leftHeight = left.height;
+            node.size += left.size;
+        }
+        if (right != null) {
+            node.right = right;
+            right.parent = node;
+            rightHeight = right.height;
+            node.size += right.size;
+        }
+        node.height = 1 + (leftHeight >= rightHeight ? leftHeight : rightHeight);
+        node.balance = rightHeight - leftHeight;
+        return node;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class BuildTask<K> extends RecursiveTask<AVLNode<K>> {
+
+        private final K[] keys;
+        private final int from;
+        private final int to;
+
+        BuildTask(K[] keys, int from, int to) {
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected AVLNode<K> compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return build(keys, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            BuildTask<K> leftTask = new BuildTask<>(keys, from, mid);
+            leftTask.fork();
+            AVLNode<K> right = new BuildTask<>(keys, mid + 1, to).compute();
+            return link(keys[mid], leftTask.join(), right);
+        }
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
      * 
-     * @param node The node currently compared, usually you start with the root.
-     * @param newNode The node to be inserted.
+     * @param x
+     *            The key of the new node.
      */
-    private void insert(AVLNode node, AVLNode newNode) {
-        // If  node to compare is null, the node is inserted. If the root is null, it is the root of the tree.
+    public void insert(K x) {
+        MetricsCounters m = metrics;
+        if (m != null) {
+            m.inserts++;
+        }
+        AVLNode<K> node = this.root;
+        // If the root is null, the new node is the root of the tree.
         if (node == null) {
-            this.root = newNode;
-        } else {
+            // type (and null) check of the first key, the others are checked by the comparisons
+            compare(x, x);
+            this.root = new AVLNode<>(x);
+            modCount++;
+            return;
+        }
 
-            // If compare node is smaller, continue with the left node
-            int result = newNode.data.compareTo(node.data);
+        // walk down to the leaf where the new node belongs
+        int compared = 0;
+        while (true) {
+            int result = compare(x, node.data);
+            compared++;
 
             if (result < 0) {
                 if (node.left == null) {
-                    node.left = newNode;
-                    newNode.parent = node;
-
-                    // Node is inserted now, continue checking the balance
-                    recursiveBalance(node);
-                } else {
-                    insert(node.left, newNode);
+                    AVLNode<K> n = new AVLNode<>(x);
+                    node.left = n;
+                    n.parent = node;
+                    break;
                 }
-
+                node = node.left;
             } else if (result > 0) {
                 if (node.right == null) {
-                    node.right = newNode;
-                    newNode.parent = node;
-
-                    // Node is inserted now, continue checking the balance
-                    recursiveBalance(node);
-                } else {
-                    insert(node.right, newNode);
+                    AVLNode<K> n = new AVLNode<>(x);
+                    node.right = n;
+                    n.parent = node;
+                    break;
                 }
+                node = node.right;
             } else {
                 // do nothing: This node already exists
+                if (m != null) {
+                    m.comparisons += compared;
+                }
+                return;
             }
         }
+        modCount++;
+        if (m != null) {
+            m.comparisons += compared;
+        }
+
+        // Node is inserted now, continue checking the balance
+        rebalance(node);
+    }
+
+    /**
+     * Link a new node below the node where a descent for its key ended, and rebalance.
+     * Lets {@link AVLTreeMap} decide whether to insert after its own descent, without a second one.
+     *
+     * @param parent The last node of the descent, null if the tree is empty.
+     * @param side The result of comparing the new key with the key of parent, less than 0 for the left child.
+     * @param n The new node, without links.
+     */
+    void insertNode(AVLNode<K> parent, int side, AVLNode<K> n) {
+        modCount++;
+        if (parent == null) {
+            this.root = n;
+            return;
+        }
+        n.parent = parent;
+        if (side < 0) {
+            parent.left = n;
+        } else {
+            parent.right = n;
+        }
+        rebalance(parent);
+    }
+
+    /**
+     * The number of structural changes, for the iterators of {@link AVLTreeMap}.
+     */
+    int modCount() {
+        return modCount;
     }
 
     /**
-     * Check the balance for each node recursivly and call required methods for balancing the tree until the root is reached.
+     * Check the balance for each node on the way up and call required methods for balancing the tree.
+     * The retracing stops as soon as the height of a subtree is the same as before the update,
+     * because the ancestors of such a subtree can not be affected.
      * 
      * @param node : The node to check the balance for, usually you start with the parent of a leaf.
      */
-    private void recursiveBalance(AVLNode node) {
+    private void rebalance(AVLNode<K> node) {
+        MetricsCounters m = metrics;
+        while (true) {
+            if (m != null) {
+                m.rebalanceSteps++;
+            }
+            int oldHeight = node.height;
 
-        // we do not use the balance in this class, but the store it anyway
-        setBalance(node);
-        int balance = node.balance;
+            setBalance(node);
+            int balance = node.balance;
 
-        // check the balance
-        if (balance == -2) {
+            // check the balance
+            if (balance == -2) {
+                if (height(node.left.left) >= height(node.left.right)) {
+                    node = rotateRight(node);
+                    rotations++;
+                } else {
+                    node = doubleRotateLeftRight(node);
+                    rotations += 2;
+                }
+            } else if (balance == 2) {
+                if (height(node.right.right) >= height(node.right.left)) {
+                    node = rotateLeft(node);
+                    rotations++;
+                } else {
+                    node = doubleRotateRightLeft(node);
+                    rotations += 2;
+                }
+            }
 
-            if (height(node.left.left) >= height(node.left.right)) {
-                node = rotateRight(node);
-            } else {
-                node = doubleRotateLeftRight(node);
+            if (node.parent == null) {
+                this.root = node;
+                return;
             }
-        } else if (balance == 2) {
-            if (height(node.right.right) >= height(node.right.left)) {
-                node = rotateLeft(node);
-            } else {
-                node = doubleRotateRightLeft(node);
+            if (node.height == oldHeight) {
+                // the balance of the ancestors is fine, but their sizes changed
+                for (AVLNode<K> p = node.parent; p != null; p = p.parent) {
+                    p.size = 1 + size(p.left) + size(p.right);
+                    augment(p);
+                }
+                return;
             }
-        }
-
-        // we did not reach the root yet
-        if (node.parent != null) {
-            recursiveBalance(node.parent);
-        } else {
-            this.root = node;
+            // we did not reach the root yet and the parent is affected
+            node = node.parent;
         }
     }
 
@@ -103,9 +404,404 @@ public class AVLTree {
      * Removes a node from the tree, if it is existent.
      * @param x The KEY of node to remove.
      */
-    public void remove(Comparable x) {
+    public void remove(K x) {
+        MetricsCounters m = metrics;
         // First we must find the node, after this we can delete it.
-        remove(this.root, x);
+        AVLNode<K> node;
+        if (m == null) {
+            node = findNode(x);
+        } else {
+            m.removes++;
+            node = findNode(x, m, false);
+        }
+        if (node != null) {
+            // we found the node in the tree.. now lets go on!
+            remove(node);
+        }
+        // der Wert existiert nicht in diesem Baum, daher ist nichts zu tun
+    }
+
+    /**
+     * Add all elements of a collection. The batch is sorted and merged into the tree in one
+     * pass: every subtree that gets new keys is visited and rebalanced once, instead of
+     * one descent and one rebalance walk per key. Keys that are already in the tree are ignored.
+     * A batch that is small next to the tree is inserted key by key, see {@link #BATCH_RATIO}.
+     *
+     * @param c The keys of the new nodes.
+     */
+    public void insertAll(Collection<? extends K> c) {
+        if (c.isEmpty()) {
+            return;
+        }
+        if ((long) c.size() * BATCH_RATIO < size()) {
+            for (K x : c) {
+                insert(x);
+            }
+            return;
+        }
+        K[] keys = SortedKeys.sort(c, comparator);
+        int oldSize = size();
+        RotationCount count = new RotationCount();
+        root = detach(insertAll(root, keys, 0, keys.length, count));
+        addRotations(count);
+        if (size() != oldSize) {
+            modCount++;
+        }
+    }
+
+    /**
+     * Merge keys[from] to keys[to - 1] into a subtree.
+     *
+     * @return The new root of the subtree.
+     */
+    private AVLNode<K> insertAll(AVLNode<K> node, K[] keys, int from, int to, RotationCount count) {
+        if (from == to) {
+            return node;
+        }
+        if (node == null) {
+            return build(keys, from, to);
+        }
+        int index = Arrays.binarySearch(keys, from, to, node.data, comparator);
+        int split = index >= 0 ? index : -index - 1;
+        AVLNode<K> left = insertAll(node.left, keys, from, split, count);
+        AVLNode<K> right = insertAll(node.right, keys, index >= 0 ? split + 1 : split, to, count);
+        return join(left, node, right, count);
+    }
+
+    /**
+     * Removes all elements of a collection that are in the tree, in one pass like insertAll.
+     *
+     * @param c The KEYS of the nodes to remove.
+     */
+    public void removeAll(Collection<? extends K> c) {
+        if (c.isEmpty() || root == null) {
+            return;
+        }
+        if ((long) c.size() * BATCH_RATIO < size()) {
+            for (K x : c) {
+                remove(x);
+            }
+            return;
+        }
+        K[] keys = SortedKeys.sort(c, comparator);
+        int oldSize = size();
+        RotationCount count = new RotationCount();
+        root = detach(removeAll(root, keys, 0, keys.length, count));
+        addRotations(count);
+        if (size() != oldSize) {
+            modCount++;
+        }
+    }
+
+    /**
+     * Remove keys[from] to keys[to - 1] from a subtree.
+     *
+     * @return The new root of the subtree.
+     */
+    private AVLNode<K> removeAll(AVLNode<K> node, K[] keys, int from, int to, RotationCount count) {
+        if (from == to || node == null) {
+            return node;
+        }
+        int index = Arrays.binarySearch(keys, from, to, node.data, comparator);
+        int split = index >= 0 ? index : -index - 1;
+        AVLNode<K> left = removeAll(node.left, keys, from, split, count);
+        AVLNode<K> right = removeAll(node.right, keys, index >= 0 ? split + 1 : split, to, count);
+        if (index >= 0) {
+            return join(left, right, count);
+        }
+        return join(left, node, right, count);
+    }
+
+    /**
+     * Split the tree at x: this tree keeps the elements smaller than x, the elements greater
+     * than or equal to x are moved into the returned tree. Costs O(log n).
+     *
+     * @param x The key to split at, it does not have to be in the tree.
+     * @return a new tree with the elements from x on
+     */
+    public AVLTree<K> split(K x) {
+        Split s = new Split();
+        RotationCount count = new RotationCount();
+        split(root, x, s, count);
+        AVLTree<K> high = new AVLTree<>(comparator);
+        high.root = s.middle == null ? s.right : join(null, s.middle, s.right, count);
+        root = s.left;
+        addRotations(count);
+        modCount++;
+        return high;
+    }
+
+    /**
+     * Join two trees and a key between them into a new tree, in O(log n). The nodes of
+     * left and right are moved into the new tree, left and right are empty afterwards.
+     *
+     * @param left The tree with the smaller elements.
+     * @param x The key between the two trees.
+     * @param right The tree with the greater elements.
+     * @return a new tree with the elements of left, x and the elements of right
+     * @throws IllegalArgumentException if the elements of left are not all smaller than x
+     * and the elements of right are not all greater than x, or if the trees have different comparators
+     */
+    public static <K> AVLTree<K> join(AVLTree<K> left, K x, AVLTree<K> right) {
+        checkComparator(left, right);
+        if ((!left.isEmpty() && left.compare(left.findMax(), x) >= 0)
+                || (!right.isEmpty() && left.compare(right.findMin(), x) <= 0)) {
+            throw new IllegalArgumentException("Trees overlap or are not ordered around " + x);
+        }
+        AVLTree<K> tree = new AVLTree<>(left.comparator);
+        RotationCount count = new RotationCount();
+        tree.root = tree.join(left.root, new AVLNode<>(x), right.root, count);
+        tree.rotations = count.rotations;
+        left.removeAll();
+        right.removeAll();
+        return tree;
+    }
+
+    /**
+     * Join two trees into a new tree, in O(log n). The nodes of left and right are
+     * moved into the new tree, left and right are empty afterwards.
+     *
+     * @param left The tree with the smaller elements.
+     * @param right The tree with the greater elements.
+     * @return a new tree with the elements of left and right
+     * @throws IllegalArgumentException if the elements of left are not all smaller than the elements of right,
+     * or if the trees have different comparators
+     */
+    public static <K> AVLTree<K> join(AVLTree<K> left, AVLTree<K> right) {
+        checkComparator(left, right);
+        if (!left.isEmpty() && !right.isEmpty() && left.compare(left.findMax(), right.findMin()) >= 0) {
+            throw new IllegalArgumentException("Trees overlap or are not ordered");
+        }
+        AVLTree<K> tree = new AVLTree<>(left.comparator);
+        RotationCount count = new RotationCount();
+        tree.root = tree.join(left.root, right.root, count);
+        tree.rotations = count.rotations;
+        left.removeAll();
+        right.removeAll();
+        return tree;
+    }
+
+    /**
+     * The join and the set operations need two trees with the same order.
+     */
+    private static void checkComparator(AVLTree<?> a, AVLTree<?> b) {
+        if (!Objects.equals(a.comparator, b.comparator)) {
+            throw new IllegalArgumentException("Trees have different comparators");
+        }
+    }
+
+    /**
+     * Add all elements of another tree. The other tree is split at the root of this tree and
+     * the halves are combined with the subtrees, which takes O(m log(n / m + 1)) for trees of
+     * m and n elements (m &lt;= n). Large subtrees are combined in parallel with fork-join.
+     * The nodes of the other tree are reused, it is empty afterwards.
+     *
+     * @param other The tree to add, empty afterwards.
+     * @throws IllegalArgumentException if the trees have different comparators
+     */
+    public void union(AVLTree<K> other) {
+        combine(other, UNION);
+    }
+
+    /**
+     * Keep only the elements that are in another tree too, see {@link #union(AVLTree)}.
+     *
+     * @param other The tree to intersect with, empty afterwards.
+     */
+    public void intersection(AVLTree<K> other) {
+        combine(other, INTERSECTION);
+    }
+
+    /**
+     * Remove the elements of another tree, see {@link #union(AVLTree)}.
+     *
+     * @param other The tree with the elements to remove, empty afterwards.
+     */
+    public void difference(AVLTree<K> other) {
+        combine(other, DIFFERENCE);
+    }
+
+    private void combine(AVLTree<K> other, int operation) {
+        checkComparator(this, other);
+        if (other == this) {
+            if (operation == DIFFERENCE) {
+                removeAll();
+            }
+            return;
+        }
+        AVLNode<K> a = root;
+        AVLNode<K> b = other.root;
+        other.removeAll();
+        // the tasks count their rotations apart, the total is added here by the calling thread
+        if (size(a) + size(b) > PARALLEL_THRESHOLD) {
+            SetOperationTask<K> task = new SetOperationTask<>(this, operation, a, b);
+            root = ForkJoinPool.commonPool().invoke(task);
+            addRotations(task.count);
+        } else {
+            RotationCount count = new RotationCount();
+            root = combine(operation, a, b, count);
+            addRotations(count);
+        }
+        modCount++;
+    }
+
+    private AVLNode<K> combine(int operation, AVLNode<K> a, AVLNode<K> b, RotationCount count) {
+        if (operation == UNION) {
+            return union(a, b, count);
+        } else if (operation == INTERSECTION) {
+            return intersection(a, b, count);
+        } else {
+            return difference(a, b, count);
+        }
+    }
+
+    /**
+     * Rotations of the join family, which can run on several threads in a set operation: every
+     * task has its own count, and the tree adds the total once the operation is done.
+     */
+    private static final class RotationCount {
+
+        long rotations;
+        /**
+         * Double rotations, for the metrics.
+         */
+        long doubleRotations;
+
+        void add(RotationCount other) {
+            rotations += other.rotations;
+            doubleRotations += other.doubleRotations;
+        }
+    }
+
+    /**
+     * Result of split: the subtrees below and above the key, and the node with the key if it exists.
+     */
+    private final class Split {
+
+        AVLNode<K> left;
+        AVLNode<K> middle;
+        AVLNode<K> right;
+    }
+
+    /**
+     * Split a subtree at x. The recursion follows one path, so it is O(log n) deep.
+     */
+    private void split(AVLNode<K> node, K x, Split result, RotationCount count) {
+        if (node == null) {
+            result.left = null;
+            result.middle = null;
+            result.right = null;
+            return;
+        }
+        AVLNode<K> left = node.left;
+        AVLNode<K> right = node.right;
+        int cmp = compare(x, node.data);
+        if (cmp == 0) {
+            result.left = detach(left);
+            result.middle = node;
+            result.right = detach(right);
+        } else if (cmp < 0) {
+            split(left, x, result, count);
+            result.right = join(result.right, node, right, count);
+        } else {
+            split(right, x, result, count);
+            result.left = join(left, node, result.left, count);
+        }
+    }
+
+    /**
+     * Both subtrees are consumed, the root of the first one stays the root.
+     */
+    private AVLNode<K> union(AVLNode<K> a, AVLNode<K> b, RotationCount count) {
+        if (a == null) {
+            return detach(b);
+        }
+        if (b == null) {
+            return detach(a);
+        }
+        Split s = new Split();
+        // a node of b with the key of a is dropped
+        split(b, a.data, s, count);
+        combineHalves(UNION, a.left, a.right, s, count);
+        return join(s.left, a, s.right, count);
+    }
+
+    private AVLNode<K> intersection(AVLNode<K> a, AVLNode<K> b, RotationCount count) {
+        if (a == null || b == null) {
+            return null;
+        }
+        Split s = new Split();
+        split(b, a.data, s, count);
+        boolean found = s.middle != null;
+        combineHalves(INTERSECTION, a.left, a.right, s, count);
+        if (!found) {
+            return join(s.left, s.right, count);
+        }
+        return join(s.left, a, s.right, count);
+    }
+
+    private AVLNode<K> difference(AVLNode<K> a, AVLNode<K> b, RotationCount count) {
+        if (a == null) {
+            return null;
+        }
+        if (b == null) {
+            return detach(a);
+        }
+        Split s = new Split();
+        split(a, b.data, s, count);
+        // the halves of a are the first operands now
+        AVLNode<K> aLeft = s.left;
+        AVLNode<K> aRight = s.right;
+        s.left = b.left;
+        s.right = b.right;
+        combineHalves(DIFFERENCE, aLeft, aRight, s, count);
+        return join(s.left, s.right, count);
+    }
+
+    /**
+     * Combine aLeft with halves.left and aRight with halves.right, in parallel if they are large.
+     * The results are stored in halves.left and halves.right, the rotations of both in count.
+     */
+    private void combineHalves(int operation, AVLNode<K> aLeft, AVLNode<K> aRight, Split halves,
+            RotationCount count) {
+        AVLNode<K> bLeft = halves.left;
+        AVLNode<K> bRight = halves.right;
+        if (size(aLeft) + size(bLeft) + size(aRight) + size(bRight) > PARALLEL_THRESHOLD
+                && ForkJoinTask.inForkJoinPool()) {
+            SetOperationTask<K> leftTask = new SetOperationTask<>(this, operation, aLeft, bLeft);
+            leftTask.fork();
+            halves.right = combine(operation, aRight, bRight, count);
+            halves.left = leftTask.join();
+            count.add(leftTask.count);
+        } else {
+            halves.left = combine(operation, aLeft, bLeft, count);
+            halves.right = combine(operation, aRight, bRight, count);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class SetOperationTask<K> extends RecursiveTask<AVLNode<K>> {
+
+        private final AVLTree<K> tree;
+        private final int operation;
+        private final AVLNode<K> a;
+        private final AVLNode<K> b;
+        /**
+         * The rotations of this task, read after it is joined.
+         */
+        final RotationCount count = new RotationCount();
+
+        SetOperationTask(AVLTree<K> tree, int operation, AVLNode<K> a, AVLNode<K> b) {
+            this.tree = tree;
+            this.operation = operation;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected AVLNode<K> compute() {
+            return tree.combine(operation, a, b, count);
+        }
     }
 
     /**
@@ -113,6 +809,7 @@ public class AVLTree {
      */
     public void removeAll() {
         root = null;
+        modCount++;
     }
 
     /**
@@ -124,26 +821,186 @@ public class AVLTree {
     }
 
     /**
-     * Finds a node and calls a method to remove the node.
-     * 
-     * @param node The node to start the search.
-     * @param x The KEY of node to remove.
+     * Number of elements in the tree
+     * @return number of elements
      */
-    private void remove(AVLNode node, Comparable x) {
-        if (node == null) {
-            // der Wert existiert nicht in diesem Baum, daher ist nichts zu tun
-            return;
-        } else {
-            int result = node.data.compareTo(x);
-            if (result > 0) {
-                remove(node.left, x);
-            } else if (result < 0) {
-                remove(node.right, x);
-            } else if (result == 0) {
-                // we found the node in the tree.. now lets go on!
-                remove(node);
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Number of rotations done since the tree was constructed, a double rotation counts as two.
+     * @return number of rotations
+     */
+    public long rotations() {
+        return rotations;
+    }
+
+    /**
+     * Enable or disable the metrics. While they are disabled the tree does not count anything,
+     * enabling starts the counters from 0.
+     * @param enabled true to count the operations of the tree
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (!enabled) {
+            metrics = null;
+        } else if (metrics == null) {
+            metrics = new MetricsCounters(rotations);
+        }
+    }
+
+    /**
+     * Check whether the metrics are enabled.
+     * @return true if the tree counts its operations
+     */
+    public boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * Set the counters of the metrics to 0, if they are enabled.
+     */
+    public void resetMetrics() {
+        if (metrics != null) {
+            metrics = new MetricsCounters(rotations);
+        }
+    }
+
+    /**
+     * The counters of insert, remove, find and contains since the metrics were enabled, and the
+     * shape of the tree. Walks the whole tree, in O(n).
+     * @return the metrics, with all counters 0 if the metrics are disabled
+     */
+    public TreeMetrics metrics() {
+        MetricsCounters m = metrics;
+        long singleRotations = m == null ? 0 : rotations - m.rotationsAtStart - 2 * m.doubleRotations;
+        // a walk with its own stacks, bounded by the size, so that a JMX thread that reads
+        // while the tree changes can not loop
+        int limit = size(root);
+        int count = 0;
+        int height = -1;
+        long depthSum = 0;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        AVLNode<K>[] nodes = (AVLNode<K>[]) new AVLNode[64];
+        int[] depths = new int[64];
+        int top = 0;
+        if (root != null) {
+            nodes[top] = root;
+            depths[top++] = 0;
+        }
+        while (top > 0 && count < limit) {
+            AVLNode<K> node = nodes[--top];
+            int depth = depths[top];
+            count++;
+            depthSum += depth;
+            height = maximum(height, depth);
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+                depths = Arrays.copyOf(depths, 2 * depths.length);
+            }
+            AVLNode<K> left = node.left;
+            AVLNode<K> right = node.right;
+            if (left != null) {
+                nodes[top] = left;
+                depths[top++] = depth + 1;
+            }
+            if (right != null) {
+                nodes[top] = right;
+                depths[top++] = depth + 1;
+            }
+        }
+        return TreeMetrics.of(m, singleRotations, count, height, depthSum);
+    }
+
+    /**
+     * JMX view of {@link #metrics()}, see {@link TreeMetricsMXBean}.
+     * @return a new MXBean for this tree, to register with an MBean server
+     */
+    public TreeMetricsMXBean metricsMXBean() {
+        return new MetricsBean();
+    }
+
+    /**
+     * Number of elements smaller than x, x does not have to be in the tree.
+     * @param x Key to compare with
+     * @return rank of x, the index x has or would have in toArrayList(VisitMode.LEFT_ROOT_RIGHT)
+     */
+    public int rank(K x) {
+        return rank(x, false);
+    }
+
+    /**
+     * Number of elements smaller than x, or smaller than or equal to x.
+     */
+    private int rank(K x, boolean inclusive) {
+        int rank = 0;
+        AVLNode<K> cur = root;
+        while (cur != null) {
+            int result = compare(x, cur.data);
+            if (result < 0) {
+                cur = cur.left;
+            } else if (result > 0) {
+                rank += size(cur.left) + 1;
+                cur = cur.right;
+            } else {
+                return rank + size(cur.left) + (inclusive ? 1 : 0);
             }
         }
+        return rank;
+    }
+
+    /**
+     * The element with a given rank, the k-th smallest element counted from 0.
+     * @param k rank of the element
+     * @return element at index k of toArrayList(VisitMode.LEFT_ROOT_RIGHT)
+     * @throws IndexOutOfBoundsException if k is negative or not smaller than size()
+     */
+    public K select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size());
+        }
+        return selectNode(k).data;
+    }
+
+    /**
+     * The node with the k-th smallest key, found by the subtree sizes.
+     * @param k Index of the node, in [0, size)
+     * @return The node
+     */
+    private AVLNode<K> selectNode(int k) {
+        AVLNode<K> cur = root;
+        while (true) {
+            int leftSize = size(cur.left);
+            if (k < leftSize) {
+                cur = cur.left;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                cur = cur.right;
+            } else {
+                return cur;
+            }
+        }
+    }
+
+    /**
+     * Number of elements between lo and hi, both included.
+     * @param lo lowest key of the range
+     * @param hi highest key of the range
+     * @return number of elements, 0 if lo is greater than hi
+     */
+    public int countInRange(K lo, K hi) {
+        if (compare(lo, hi) > 0) {
+            return 0;
+        }
+        return rank(hi, true) - rank(lo, false);
+    }
+
+    /**
+     * The root node, for the trees of this package that read the nodes directly.
+     * @return the root or null if the tree is empty
+     */
+    AVLNode<K> root() {
+        return root;
     }
 
     /**
@@ -151,25 +1008,20 @@ public class AVLTree {
      * 
      * @param node The node to be removed.
      */
-    private void remove(AVLNode node) {
-        AVLNode vicTim;
+    void remove(AVLNode<K> node) {
+        modCount++;
+        AVLNode<K> vicTim;
         // at least one child of q, q will be removed directly
         if (node.left == null || node.right == null) {
-            // the root is deleted
-            if (node.parent == null) {
-                this.root = null;
-                node = null;
-                return;
-            }
             vicTim = node;
         } else {
             // q has two children –> will be replaced by successor
             vicTim = find(node);
-            node.data = vicTim.data;
+            node.copyData(vicTim);
         }
 
 
-        AVLNode p;
+        AVLNode<K> p;
         if (vicTim.left != null) {
             p = vicTim.left;
         } else {
@@ -189,11 +1041,133 @@ public class AVLTree {
                 vicTim.parent.right = p;
             }
             // balancing must be done until the root is reached.
-            recursiveBalance(vicTim.parent);
+            rebalance(vicTim.parent);
         }
         vicTim = null;
     }
 
+    /**
+     * Joins two AVL-trees and a middle node, all keys of left are smaller than the key of node
+     * and all keys of right are greater. Costs O(|height(left) - height(right)| + 1).
+     *
+     * @param left The left tree, may be null.
+     * @param node The middle node, its old links are overwritten.
+     * @param right The right tree, may be null.
+     * @return The root of the joined tree, its parent is not set.
+     */
+    private AVLNode<K> join(AVLNode<K> left, AVLNode<K> node, AVLNode<K> right, RotationCount count) {
+        if (height(left) > height(right) + 1) {
+            return joinRight(left, node, right, count);
+        }
+        if (height(right) > height(left) + 1) {
+            return joinLeft(left, node, right, count);
+        }
+        return attach(left, node, right);
+    }
+
+    /**
+     * Joins two AVL-trees without a middle node, the largest node of left takes its place.
+     */
+    private AVLNode<K> join(AVLNode<K> left, AVLNode<K> right, RotationCount count) {
+        if (left == null) {
+            return detach(right);
+        }
+        if (right == null) {
+            return detach(left);
+        }
+        AVLNode<K> max = maxNode(left);
+        return join(removeMax(left, count), max, right, count);
+    }
+
+    /**
+     * Removes the largest node of a subtree.
+     *
+     * @return The new root of the subtree, its parent is not set.
+     */
+    private AVLNode<K> removeMax(AVLNode<K> node, RotationCount count) {
+        AVLNode<K> left = node.left;
+        if (node.right == null) {
+            return detach(left);
+        }
+        return join(left, node, removeMax(node.right, count), count);
+    }
+
+    /**
+     * join when left is more than one level higher: walk down the right spine of left
+     * to a subtree as high as right, join there and rebalance on the way back.
+     */
+    private AVLNode<K> joinRight(AVLNode<K> left, AVLNode<K> node, AVLNode<K> right, RotationCount count) {
+        AVLNode<K> leftLeft = left.left;
+        AVLNode<K> c = left.right;
+        if (height(c) <= height(right) + 1) {
+            AVLNode<K> t = attach(c, node, right);
+            if (height(t) <= height(leftLeft) + 1) {
+                return attach(leftLeft, left, t);
+            }
+            count.rotations += 2;
+            count.doubleRotations++;
+            return rotateLeft(attach(leftLeft, left, rotateRight(t)));
+        }
+        AVLNode<K> t = joinRight(c, node, right, count);
+        AVLNode<K> joined = attach(leftLeft, left, t);
+        if (height(t) <= height(leftLeft) + 1) {
+            return joined;
+        }
+        count.rotations++;
+        return rotateLeft(joined);
+    }
+
+    /**
+     * Mirror of joinRight.
+     */
+    private AVLNode<K> joinLeft(AVLNode<K> left, AVLNode<K> node, AVLNode<K> right, RotationCount count) {
+        AVLNode<K> rightRight = right.right;
+        AVLNode<K> c = right.left;
+        if (height(c) <= height(left) + 1) {
+            AVLNode<K> t = attach(left, node, c);
+            if (height(t) <= height(rightRight) + 1) {
+                return attach(t, right, rightRight);
+            }
+            count.rotations += 2;
+            count.doubleRotations++;
+            return rotateRight(attach(rotateLeft(t), right, rightRight));
+        }
+        AVLNode<K> t = joinLeft(left, node, c, count);
+        AVLNode<K> joined = attach(t, right, rightRight);
+        if (height(t) <= height(rightRight) + 1) {
+            return joined;
+        }
+        count.rotations++;
+        return rotateRight(joined);
+    }
+
+    /**
+     * Makes left and right the children of node, node becomes the root of a subtree.
+     */
+    private AVLNode<K> attach(AVLNode<K> left, AVLNode<K> node, AVLNode<K> right) {
+        node.parent = null;
+        node.left = left;
+        node.right = right;
+        if (left != null) {
+            left.parent = node;
+        }
+        if (right != null) {
+            right.parent = node;
+        }
+        setBalance(node);
+        return node;
+    }
+
+    /**
+     * Makes a node the root of a subtree.
+     */
+    private static <K> AVLNode<K> detach(AVLNode<K> node) {
+        if (node != null) {
+            node.parent = null;
+        }
+        return node;
+    }
+
     /**
      * Left rotation using the given node.
      * 
@@ -202,9 +1176,8 @@ public class AVLTree {
      * 
      * @return The root of the rotated tree.
      */
-    private AVLNode rotateLeft(AVLNode node) {
-
-        AVLNode v = node.right;
+    private AVLNode<K> rotateLeft(AVLNode<K> node) {
+        AVLNode<K> v = node.right;
         v.parent = node.parent;
 
         node.right = v.left;
@@ -237,9 +1210,8 @@ public class AVLTree {
      * 
      * @return The root of the new rotated tree.
      */
-    private AVLNode rotateRight(AVLNode node) {
-
-        AVLNode v = node.left;
+    private AVLNode<K> rotateRight(AVLNode<K> node) {
+        AVLNode<K> v = node.left;
         v.parent = node.parent;
 
         node.left = v.right;
@@ -263,45 +1235,170 @@ public class AVLTree {
         setBalance(node);
         setBalance(v);
 
-        return v;
+        return v;
+    }
+
+    /**
+     * 
+     * @param node The node for the rotation.
+     * @return The root after the double rotation.
+     */
+    private AVLNode<K> doubleRotateLeftRight(AVLNode<K> node) {
+        countDoubleRotation();
+        node.left = rotateLeft(node.left);
+        return rotateRight(node);
+    }
+
+    /**
+     * 
+     * @param node The node for the rotation.
+     * @return The root after the double rotation.
+     */
+    private AVLNode<K> doubleRotateRightLeft(AVLNode<K> node) {
+        countDoubleRotation();
+        node.right = rotateRight(node.right);
+        return rotateLeft(node);
+    }
+
+    /**
+     * The two rotations of a double rotation are counted in rotations, the metrics also count the pair.
+     */
+    private void countDoubleRotation() {
+        MetricsCounters m = metrics;
+        if (m != null) {
+            m.doubleRotations++;
+        }
+    }
+
+    /**
+     * Add the rotations of a join or a set operation, on the thread that called it.
+     */
+    private void addRotations(RotationCount count) {
+        rotations += count.rotations;
+        MetricsCounters m = metrics;
+        if (m != null) {
+            m.doubleRotations += count.doubleRotations;
+        }
+    }
+
+    /**
+     * Returns the successor of a given node in the tree (search recursivly).
+     * 
+     * @param node The predecessor.
+     * @return The successor of node q.
+     */
+    AVLNode<K> find(AVLNode<K> node) {
+        if (node.right != null) {
+            AVLNode<K> r = node.right;
+            while (r.left != null) {
+                r = r.left;
+            }
+            return r;
+        } else {
+            AVLNode<K> p = node.parent;
+            while (p != null && node == p.right) {
+                node = p;
+                p = node.parent;
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Returns the node with the smallest key in a subtree.
+     *
+     * @param node The root of the subtree, not null.
+     * @return The leftmost node.
+     */
+    AVLNode<K> minNode(AVLNode<K> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node with the largest key in a subtree.
+     *
+     * @param node The root of the subtree, not null.
+     * @return The rightmost node.
+     */
+    private AVLNode<K> maxNode(AVLNode<K> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
     }
 
     /**
-     * 
-     * @param node The node for the rotation.
-     * @return The root after the double rotation.
+     * Returns the node with the smallest key greater than x, or greater than or equal to x.
+     *
+     * @param x The key to compare with.
+     * @param inclusive true if a node with key x is a result.
+     * @return The node or null.
      */
-    private AVLNode doubleRotateLeftRight(AVLNode node) {
-        node.left = rotateLeft(node.left);
-        return rotateRight(node);
+    private AVLNode<K> ceilingNode(K x, boolean inclusive) {
+        AVLNode<K> candidate = null;
+        AVLNode<K> cur = root;
+        while (cur != null) {
+            int result = compare(x, cur.data);
+            if (result < 0) {
+                // cur is greater than x, a better node can only be on the left
+                candidate = cur;
+                cur = cur.left;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else if (inclusive) {
+                return cur;
+            } else {
+                cur = cur.right;
+            }
+        }
+        return candidate;
     }
 
     /**
-     * 
-     * @param node The node for the rotation.
-     * @return The root after the double rotation.
+     * Returns the node with the largest key smaller than x, or smaller than or equal to x.
+     *
+     * @param x The key to compare with.
+     * @param inclusive true if a node with key x is a result.
+     * @return The node or null.
      */
-    private AVLNode doubleRotateRightLeft(AVLNode node) {
-        node.right = rotateRight(node.right);
-        return rotateLeft(node);
+    private AVLNode<K> floorNode(K x, boolean inclusive) {
+        AVLNode<K> candidate = null;
+        AVLNode<K> cur = root;
+        while (cur != null) {
+            int result = compare(x, cur.data);
+            if (result > 0) {
+                candidate = cur;
+                cur = cur.right;
+            } else if (result < 0) {
+                cur = cur.left;
+            } else if (inclusive) {
+                return cur;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return candidate;
     }
 
     /**
-     * Returns the successor of a given node in the tree (search recursivly).
-     * 
-     * @param node The predecessor.
-     * @return The successor of node q.
+     * Returns the predecessor of a given node in the tree.
+     *
+     * @param node The successor.
+     * @return The predecessor of node q.
      */
-    private AVLNode find(AVLNode node) {
-        if (node.right != null) {
-            AVLNode r = node.right;
-            while (r.left != null) {
-                r = r.left;
+    private AVLNode<K> predecessor(AVLNode<K> node) {
+        if (node.left != null) {
+            AVLNode<K> l = node.left;
+            while (l.right != null) {
+                l = l.right;
             }
-            return r;
+            return l;
         } else {
-            AVLNode p = node.parent;
-            while (p != null && node == p.right) {
+            AVLNode<K> p = node.parent;
+            while (p != null && node == p.left) {
                 node = p;
                 p = node.parent;
             }
@@ -310,24 +1407,45 @@ public class AVLTree {
     }
 
     /**
-     * Calculating the "height" of a node.
+     * Returns the node after a given node in ROOT_LEFT_RIGHT order.
+     *
+     * @param node The current node.
+     * @return The next node, null after the last node.
+     */
+    private AVLNode<K> preOrderNext(AVLNode<K> node) {
+        if (node.left != null) {
+            return node.left;
+        }
+        if (node.right != null) {
+            return node.right;
+        }
+        // climb until we come from a left subtree and there is a right subtree to visit
+        AVLNode<K> p = node.parent;
+        while (p != null && (node == p.right || p.right == null)) {
+            node = p;
+            p = node.parent;
+        }
+        return p == null ? null : p.right;
+    }
+
+    /**
+     * Returns the cached "height" of a node.
      * 
      * @param node
      * @return The height of a node (-1, if node is not existent eg. NULL).
      */
-    private int height(AVLNode node) {
-        if (node == null) {
-            return -1;
-        }
-        if (node.left == null && node.right == null) {
-            return 0;
-        } else if (node.left == null) {
-            return 1 + height(node.right);
-        } else if (node.right == null) {
-            return 1 + height(node.left);
-        } else {
-            return 1 + maximum(height(node.left), height(node.right));
-        }
+    private int height(AVLNode<K> node) {
+        return node == null ? -1 : node.height;
+    }
+
+    /**
+     * Returns the cached size of the subtree of a node.
+     *
+     * @param node
+     * @return The number of nodes (0, if node is not existent eg. NULL).
+     */
+    private int size(AVLNode<K> node) {
+        return node == null ? 0 : node.size;
     }
 
     /**
@@ -346,36 +1464,113 @@ public class AVLTree {
      * @param x Key to find.
      * @return Key if found, null if not found. (if x is a basic type, method will throw exception if not found)
      */
-    public Comparable find(Comparable x) {
-        return find(root, x);
+    public K find(K x) {
+        MetricsCounters m = metrics;
+        if (m != null) {
+            return elementAt(findNode(x, m, true));
+        }
+        return comparator == null ? find(root, x) : findCompared(root, x);
+    }
+
+    /**
+     * Find the smallest element in the tree.
+     * @return smallest element or null if empty.
+     */
+    public K findMin() {
+        return root == null ? null : minNode(root).data;
+    }
+
+    /**
+     * Find the largest element in the tree.
+     * @return largest element or null if empty.
+     */
+    public K findMax() {
+        return root == null ? null : maxNode(root).data;
+    }
+
+    /**
+     * Find the largest element smaller than or equal to x.
+     * @param x Key to compare with.
+     * @return element or null if there is none.
+     */
+    public K floor(K x) {
+        return elementAt(floorNode(x, true));
+    }
+
+    /**
+     * Find the smallest element greater than or equal to x.
+     * @param x Key to compare with.
+     * @return element or null if there is none.
+     */
+    public K ceiling(K x) {
+        return elementAt(ceilingNode(x, true));
+    }
+
+    /**
+     * Find the largest element strictly smaller than x.
+     * @param x Key to compare with.
+     * @return element or null if there is none.
+     */
+    public K lower(K x) {
+        return elementAt(floorNode(x, false));
+    }
+
+    /**
+     * Find the smallest element strictly greater than x.
+     * @param x Key to compare with.
+     * @return element or null if there is none.
+     */
+    public K higher(K x) {
+        return elementAt(ceilingNode(x, false));
+    }
+
+    private static <K> K elementAt(AVLNode<K> node) {
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Check if an element is in the tree, with one comparison per level and without allocation.
+     * @param x Key to find
+     * @return true if exist (false if not exist)
+     */
+    public boolean contains(K x) {
+        MetricsCounters m = metrics;
+        if (m != null) {
+            return findNode(x, m, true) != null;
+        }
+        // a key with the natural ordering is never null, so the element tells whether it was found;
+        // the node loop of findNode is slower on this path for String keys
+        return comparator == null ? find(root, x) != null : findNode(x) != null;
     }
 
     /**
-     * Find element if it is a basic type
+     * Find element if it is a basic type.
+     * Returns false for a key that can not be compared, where {@link #contains} throws.
      * @param x Key to find
      * @param isBasicDataType true or false is oke
      * @return @return true if exist (false if not exist)
      */
-    public boolean find(Comparable x, boolean isBasicDataType) {
+    public boolean find(K x, boolean isBasicDataType) {
         try {
-            Comparable temp = find(root, x);
-            return temp == null ? false : true;
+            return contains(x);
         } catch (Exception ex) {
             return false;
         }
     }
 
     /**
-     * Find element
+     * Find element, with the natural ordering of the keys. The comparator has its own loop in
+     * findCompared, so each loop has a single compare call that the JIT can inline.
      * @param x Key to find
      * @param node First node to find
      * @return Key if exist (null if not exist)
      */
-    private Comparable find(AVLNode node, Comparable x) {
+    @SuppressWarnings("unchecked")
+    private K find(AVLNode<K> node, K x) {
         int result = 0;
-        AVLNode cur = node;
+        AVLNode<K> cur = node;
         while (cur != null) {
-            result = x.compareTo(cur.data);
+            result = ((Comparable<? super K>) x).compareTo(cur.data);
 
             if (result == 0) {
                 return cur.data;
@@ -388,13 +1583,102 @@ public class AVLTree {
         return null;
     }
 
+    /**
+     * Find element, with the comparator of the tree.
+     * @param x Key to find
+     * @param node First node to find
+     * @return Key if exist (null if not exist)
+     */
+    private K findCompared(AVLNode<K> node, K x) {
+        Comparator<? super K> c = comparator;
+        int result = 0;
+        AVLNode<K> cur = node;
+        while (cur != null) {
+            result = c.compare(x, cur.data);
+
+            if (result == 0) {
+                return cur.data;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the node of an element.
+     * @param x Key to find
+     * @return Node if exist (null if not exist)
+     */
+    AVLNode<K> findNode(K x) {
+        AVLNode<K> cur = root;
+        while (cur != null) {
+            int result = compare(x, cur.data);
+            if (result == 0) {
+                return cur;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the node of an element and count the comparisons, for enabled metrics.
+     * @param x Key to find
+     * @param m The counters of the tree
+     * @param isFind true to count a find, false to count only the comparisons
+     * @return Node if exist (null if not exist)
+     */
+    private AVLNode<K> findNode(K x, MetricsCounters m, boolean isFind) {
+        int compared = 0;
+        AVLNode<K> cur = root;
+        while (cur != null) {
+            int result = compare(x, cur.data);
+            compared++;
+            if (result == 0) {
+                break;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        if (isFind) {
+            m.find(compared, cur != null);
+        } else {
+            m.comparisons += compared;
+        }
+        return cur;
+    }
+
+    /**
+     * Compare two keys with the comparator of the tree, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    int compare(K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
     /**
      * Get ArrayList of element in tree
      * @param visitMode 
      * @return ArrayList of element in tree
      */
-    public ArrayList toArrayList(VisitMode visitMode) {
-        ArrayList arrayList = new ArrayList();
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        ArrayList<K> arrayList = new ArrayList<>(size());
 
         Visit(visitMode, arrayList);
 
@@ -417,52 +1701,346 @@ public class AVLTree {
      * @return Array of element in tree
      */
     public <T> T[] toArray(VisitMode visitMode, T[] a) {
-        return (T[]) toArrayList(visitMode).toArray(a);
+        return toArrayList(visitMode).toArray(a);
     }
 
-    private void Visit(VisitMode visitMode, ArrayList arrayList) {
-        if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
-            LeftRootRightVisit(root, arrayList);
+    /**
+     * Iterator over the elements in ascending order (LEFT_ROOT_RIGHT).
+     * @return iterator of element in tree
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return iterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Iterator over the elements in the given order. The elements are not copied: each step
+     * follows the parent pointers to the next node, so the iterator needs no extra memory.
+     * The iterator fails fast if the tree is changed other than by its own remove, which is
+     * supported for LEFT_ROOT_RIGHT and RIGHT_ROOT_LEFT.
+     * @param visitMode
+     * @return iterator of element in tree
+     */
+    public Iterator<K> iterator(VisitMode visitMode) {
+        AVLNode<K> first = root;
+        if (first != null && visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+            first = minNode(first);
+        } else if (first != null && visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            first = maxNode(first);
         }
+        return new NodeIterator(visitMode, first, null, false);
+    }
+
+    /**
+     * Iterator over the elements between lo and hi (both included) in ascending order.
+     * @param lo lowest key of the range
+     * @param hi highest key of the range
+     * @return iterator of element in the range
+     */
+    public Iterator<K> range(K lo, K hi) {
+        return range(lo, true, hi, true);
+    }
 
-        if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
-            RightRootLeftVisit(root, arrayList);
+    /**
+     * Iterator over the elements between lo and hi in ascending order. The iterator starts
+     * with one search for lo and stops at the first element after hi, so it visits
+     * O(log n + k) nodes for k elements in the range. remove is supported.
+     * @param lo lowest key of the range
+     * @param loInclusive true if lo itself belongs to the range
+     * @param hi highest key of the range
+     * @param hiInclusive true if hi itself belongs to the range
+     * @return iterator of element in the range
+     */
+    public Iterator<K> range(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+        AVLNode<K> first = ceilingNode(lo, loInclusive);
+        if (first != null && !inRange(first.data, hi, hiInclusive)) {
+            first = null;
         }
+        return new NodeIterator(VisitMode.LEFT_ROOT_RIGHT, first, hi, hiInclusive);
+    }
+
+    private boolean inRange(K data, K hi, boolean hiInclusive) {
+        int result = compare(data, hi);
+        return result < 0 || (result == 0 && hiInclusive);
+    }
 
+    /**
+     * Spliterator over the elements in ascending order.
+     * @return spliterator of element in tree
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        return spliterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Spliterator over the elements in the given order. In ascending and descending order it
+     * knows its exact size and splits at the middle rank; each half finds its first node by the
+     * subtree sizes in O(log n), so the halves of a parallel stream have the same size.
+     * ROOT_LEFT_RIGHT is on top of {@link #iterator(VisitMode)} and does not split well.
+     * The spliterator fails fast if the tree is changed.
+     * @param visitMode
+     * @return spliterator of element in tree
+     */
+    public Spliterator<K> spliterator(VisitMode visitMode) {
         if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
-            RootLeftRightVisit(root, arrayList);
+            return Spliterators.spliteratorUnknownSize(iterator(visitMode),
+                    Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
         }
+        return new RankSpliterator(0, size(), visitMode == VisitMode.LEFT_ROOT_RIGHT, modCount);
     }
 
-    private void LeftRootRightVisit(AVLNode node, ArrayList arrayList) {
-        if (node == null) {
-            return;
+    /**
+     * Sequential stream of the elements in ascending order.
+     * @return stream of element in tree
+     */
+    public Stream<K> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Parallel stream of the elements in ascending order, see {@link #spliterator(VisitMode)}.
+     * @return parallel stream of element in tree
+     */
+    public Stream<K> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Call an action for every element, in parallel fork-join tasks and in no particular order.
+     * The tree must not be changed meanwhile.
+     * @param action The action, called by several threads at the same time.
+     */
+    public void parallelForEach(Consumer<? super K> action) {
+        ParallelTraversal.forEach(spliterator(), action);
+    }
+
+    /**
+     * Reduce the elements in parallel fork-join tasks, with the result of a reduction in ascending
+     * order: every task accumulates a range of elements from identity, the results of neighbouring
+     * ranges are combined left to right. The tree must not be changed meanwhile.
+     * @param identity The result for no elements, the identity of combiner.
+     * @param accumulator Adds an element to a result.
+     * @param combiner Combines the results of two neighbouring ranges, must be associative.
+     * @return the result
+     */
+    public <R> R parallelReduce(R identity, BiFunction<R, ? super K, R> accumulator, BinaryOperator<R> combiner) {
+        return ParallelTraversal.reduce(spliterator(), identity, accumulator, combiner);
+    }
+
+    /**
+     * The elements with the ranks from to to - 1, in ascending or descending order.
+     */
+    private final class RankSpliterator implements Spliterator<K> {
+
+        private final boolean ascending;
+        private final int expectedModCount;
+        /**
+         * The ranks still to visit, ascending order takes from first, descending to - 1.
+         */
+        private int from;
+        private int to;
+        /**
+         * The node of the next element, null if it was not looked up yet.
+         */
+        private AVLNode<K> next;
+
+        RankSpliterator(int from, int to, boolean ascending, int expectedModCount) {
+            this.from = from;
+            this.to = to;
+            this.ascending = ascending;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super K> action) {
+            if (from >= to) {
+                return false;
+            }
+            AVLNode<K> node = first();
+            if (ascending) {
+                from++;
+                next = from < to ? find(node) : null;
+            } else {
+                to--;
+                next = from < to ? predecessor(node) : null;
+            }
+            action.accept(node.data);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super K> action) {
+            if (from >= to) {
+                return;
+            }
+            AVLNode<K> node = first();
+            int n = to - from;
+            from = to;
+            next = null;
+            for (int i = 1; i < n; i++) {
+                action.accept(node.data);
+                node = ascending ? find(node) : predecessor(node);
+            }
+            action.accept(node.data);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        private AVLNode<K> first() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return next != null ? next : selectNode(ascending ? from : to - 1);
         }
 
-        LeftRootRightVisit(node.left, arrayList);
-        arrayList.add(node.data);
-        LeftRootRightVisit(node.right, arrayList);
+        @Override
+        public Spliterator<K> trySplit() {
+            if (to - from < 2) {
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            RankSpliterator prefix;
+            if (ascending) {
+                prefix = new RankSpliterator(from, mid, true, expectedModCount);
+                from = mid;
+            } else {
+                prefix = new RankSpliterator(mid, to, false, expectedModCount);
+                to = mid;
+            }
+            prefix.next = next;
+            next = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+            return ascending ? characteristics | Spliterator.SORTED : characteristics;
+        }
+
+        @Override
+        public Comparator<? super K> getComparator() {
+            if (!ascending) {
+                throw new IllegalStateException();
+            }
+            return comparator;
+        }
     }
 
-    private void RightRootLeftVisit(AVLNode node, ArrayList arrayList) {
-        if (node == null) {
-            return;
+    /**
+     * The MXBean of {@link #metricsMXBean()}.
+     */
+    private final class MetricsBean implements TreeMetricsMXBean {
+
+        @Override
+        public TreeMetrics getMetrics() {
+            return metrics();
         }
 
-        RightRootLeftVisit(node.right, arrayList);
-        arrayList.add(node.data);
-        RightRootLeftVisit(node.left, arrayList);
+        @Override
+        public boolean isEnabled() {
+            return isMetricsEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            setMetricsEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            resetMetrics();
+        }
     }
 
-    private void RootLeftRightVisit(AVLNode node, ArrayList arrayList) {
-        if (node == null) {
-            return;
+    private final class NodeIterator implements Iterator<K> {
+
+        private final VisitMode visitMode;
+        /**
+         * Upper bound of a range in ascending order, null if there is none.
+         */
+        private final K hi;
+        private final boolean hiInclusive;
+        private AVLNode<K> next;
+        private AVLNode<K> lastReturned;
+        private int expectedModCount = modCount;
+
+        NodeIterator(VisitMode visitMode, AVLNode<K> first, K hi, boolean hiInclusive) {
+            this.visitMode = visitMode;
+            this.next = first;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public K next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            AVLNode<K> node = next;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+                next = find(node);
+                if (next != null && hi != null && !inRange(next.data, hi, hiInclusive)) {
+                    next = null;
+                }
+            } else if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+                next = predecessor(node);
+            } else {
+                next = preOrderNext(node);
+            }
+            lastReturned = node;
+            return node.data;
         }
-        arrayList.add(node.data);
 
-        RootLeftRightVisit(node.left, arrayList);
+        @Override
+        public void remove() {
+            if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+                // the rotations after a remove change the ROOT_LEFT_RIGHT order of the rest
+                throw new UnsupportedOperationException("remove in " + visitMode + " order");
+            }
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // A node with two children takes the key of its successor, whose node is unlinked.
+            // In ascending order that successor is the next element (unless it is after the end
+            // of a range), it is now in lastReturned.
+            if (visitMode == VisitMode.LEFT_ROOT_RIGHT && next != null
+                    && lastReturned.left != null && lastReturned.right != null) {
+                next = lastReturned;
+            }
+            AVLTree.this.remove(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
 
-        RootLeftRightVisit(node.right, arrayList);
+    /**
+     * Copy the elements in the order of the iterator, without recursion.
+     */
+    private void Visit(VisitMode visitMode, ArrayList<K> arrayList) {
+        Iterator<K> iterator = iterator(visitMode);
+        while (iterator.hasNext()) {
+            arrayList.add(iterator.next());
+        }
     }
 
     /** 
@@ -470,7 +2048,7 @@ public class AVLTree {
   
      * @param n The node to write information about.
      */
-// public void debug(AVLNode n) {
+// public void debug(AVLNode<K> n) {
 //  int l = 0;
 //  int r = 0;
 //  int p = 0;
@@ -493,7 +2071,28 @@ public class AVLTree {
 //   debug(n.right);
 //  }
 // }
-    private void setBalance(AVLNode node) {
-        node.balance = height(node.right) - height(node.left);
+    /**
+     * Recalculates height, balance and size of a node from the cached values of its children.
+     * 
+     * @param node The node to update.
+     */
+    private void setBalance(AVLNode<K> node) {
+        int leftHeight = height(node.left);
+        int rightHeight = height(node.right);
+        node.height = 1 + maximum(leftHeight, rightHeight);
+        node.balance = rightHeight - leftHeight;
+        node.size = 1 + size(node.left) + size(node.right);
+        augment(node);
+    }
+
+    /**
+     * Recomputes what a subclass caches in a node about its subtree, after the children of the
+     * node changed: called for every node whose height and size are computed again, in the
+     * rotations and on the way up to the root after an insert or remove. AVLTree caches nothing.
+     * See {@link IntervalTree}, whose nodes know the largest end in their subtree.
+     *
+     * @param node The node whose children changed, the children are up to date.
+     */
+    void augment(AVLNode<K> node) {
     }
 }
\ No newline at end of file
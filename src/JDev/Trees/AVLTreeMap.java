@@ -0,0 +1,406 @@
+package JDev.Trees;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Sorted map on an {@link AVLTree}: every node carries a value next to its key.
+ * The keys are ordered by their natural ordering, or by a comparator given to the constructor.
+ * <p>
+ * put, putIfAbsent, compute and merge walk down the tree once: a key that is found gets its
+ * new value in place, without restructuring the tree, a key that is not found is linked below
+ * the last node of the same descent. Only inserts and removes rebalance.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class AVLTreeMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * The nodes are all {@link AVLMapNode}s.
+     */
+    private final AVLTree<K> tree;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * New empty map, the keys are ordered by their natural ordering and must implement Comparable.
+     */
+    public AVLTreeMap() {
+        this(null);
+    }
+
+    /**
+     * New empty map with the keys ordered by a comparator.
+     *
+     * @param comparator The order of the keys, null for their natural ordering.
+     */
+    public AVLTreeMap(Comparator<? super K> comparator) {
+        this.tree = new AVLTree<>(comparator);
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return tree.comparator();
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @Override
+    public void clear() {
+        tree.removeAll();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getNode(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        AVLMapNode<K, V> node = getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        AVLMapNode<K, V> node = getNode(key);
+        return node == null ? defaultValue : node.value;
+    }
+
+    /**
+     * Map a key to a value. The value of an existing key is replaced in place.
+     *
+     * @param key The key.
+     * @param value The new value.
+     * @return The old value, null if the key was not in the map.
+     */
+    @Override
+    public V put(K key, V value) {
+        AVLMapNode<K, V> node = descend(key);
+        int side = side(key, node);
+        if (side == 0) {
+            return node.setValue(value);
+        }
+        insert(node, side, key, value);
+        return null;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        AVLMapNode<K, V> node = descend(key);
+        int side = side(key, node);
+        if (side == 0) {
+            V old = node.value;
+            if (old == null) {
+                node.value = value;
+            }
+            return old;
+        }
+        insert(node, side, key, value);
+        return null;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        AVLMapNode<K, V> node = getNode(key);
+        return node == null ? null : node.setValue(value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        AVLMapNode<K, V> node = getNode(key);
+        if (node == null || !Objects.equals(node.value, oldValue)) {
+            return false;
+        }
+        node.value = newValue;
+        return true;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        AVLMapNode<K, V> node = descend(key);
+        int found = side(key, node);
+        if (found == 0 && node.value != null) {
+            return node.value;
+        }
+        int expectedModCount = tree.modCount();
+        V value = mappingFunction.apply(key);
+        checkModCount(expectedModCount);
+        if (value != null) {
+            if (found == 0) {
+                node.value = value;
+            } else {
+                insert(node, found, key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        AVLMapNode<K, V> node = getNode(key);
+        if (node == null || node.value == null) {
+            return null;
+        }
+        int expectedModCount = tree.modCount();
+        V value = remappingFunction.apply(key, node.value);
+        checkModCount(expectedModCount);
+        update(node, value);
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        AVLMapNode<K, V> node = descend(key);
+        int found = side(key, node);
+        int expectedModCount = tree.modCount();
+        V value = remappingFunction.apply(key, found == 0 ? node.value : null);
+        checkModCount(expectedModCount);
+        if (found == 0) {
+            update(node, value);
+        } else if (value != null) {
+            insert(node, found, key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        AVLMapNode<K, V> node = descend(key);
+        int side = side(key, node);
+        if (side != 0) {
+            insert(node, side, key, value);
+            return value;
+        }
+        if (node.value == null) {
+            node.value = value;
+            return value;
+        }
+        int expectedModCount = tree.modCount();
+        V newValue = remappingFunction.apply(node.value, value);
+        checkModCount(expectedModCount);
+        update(node, newValue);
+        return newValue;
+    }
+
+    /**
+     * Removes the entry of a key, if it is existent.
+     *
+     * @param key The key of the entry to remove.
+     * @return The value of the removed entry, null if there was none.
+     */
+    @Override
+    public V remove(Object key) {
+        AVLMapNode<K, V> node = getNode(key);
+        if (node == null) {
+            return null;
+        }
+        V old = node.value;
+        tree.remove(node);
+        return old;
+    }
+
+    /**
+     * The entries in ascending order of their keys. The entries are the nodes of the tree,
+     * setValue writes through to the map.
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Find the node of a key.
+     * @param key Key to find
+     * @return Node if exist (null if not exist)
+     */
+    @SuppressWarnings("unchecked")
+    private AVLMapNode<K, V> getNode(Object key) {
+        return (AVLMapNode<K, V>) tree.findNode((K) key);
+    }
+
+    /**
+     * Walk down to the node of a key. If there is none, the result is the node below which
+     * a new node with the key belongs, {@link #side} tells on which side.
+     *
+     * @param key The key to look for.
+     * @return The node of the key, else the parent of a new node, null if the map is empty.
+     */
+    @SuppressWarnings("unchecked")
+    private AVLMapNode<K, V> descend(K key) {
+        AVLNode<K> node = tree.root();
+        if (node == null) {
+            // type (and null) check of the first key, the others are checked by the comparisons
+            tree.compare(key, key);
+            return null;
+        }
+        while (true) {
+            int result = tree.compare(key, node.data);
+            if (result == 0) {
+                return (AVLMapNode<K, V>) node;
+            }
+            AVLNode<K> next = result < 0 ? node.left : node.right;
+            if (next == null) {
+                return (AVLMapNode<K, V>) node;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Compare a key with the result of {@link #descend} again, one comparison more than
+     * the descent itself.
+     *
+     * @return 0 if node has the key, else the side of node where a new node with the key belongs
+     */
+    private int side(K key, AVLMapNode<K, V> node) {
+        return node == null ? 1 : tree.compare(key, node.data);
+    }
+
+    /**
+     * Link a new entry below the last node of a descent that did not find the key.
+     */
+    private void insert(AVLMapNode<K, V> parent, int side, K key, V value) {
+        tree.insertNode(parent, side, new AVLMapNode<>(key, value));
+    }
+
+    /**
+     * Store the result of a remapping function, null removes the entry.
+     */
+    private void update(AVLMapNode<K, V> node, V value) {
+        if (value == null) {
+            tree.remove(node);
+        } else {
+            node.value = value;
+        }
+    }
+
+    /**
+     * The node found before a mapping function is only valid if the function did not change the map.
+     */
+    private void checkModCount(int expectedModCount) {
+        if (tree.modCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return tree.size();
+        }
+
+        @Override
+        public void clear() {
+            tree.removeAll();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            AVLMapNode<K, V> node = getNode(e.getKey());
+            return node != null && Objects.equals(node.value, e.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            tree.remove(getNode(((Map.Entry<?, ?>) o).getKey()));
+            return true;
+        }
+    }
+
+    /**
+     * Entries in ascending order, following the parent links like the iterator of AVLTree.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private AVLNode<K> next;
+        private AVLNode<K> lastReturned;
+        private int expectedModCount = tree.modCount();
+
+        EntryIterator() {
+            AVLNode<K> root = tree.root();
+            next = root == null ? null : tree.minNode(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (tree.modCount() != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            AVLNode<K> node = next;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            next = tree.find(node);
+            lastReturned = node;
+            return (AVLMapNode<K, V>) node;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (tree.modCount() != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // A node with two children takes the entry of its successor, which is the next one.
+            if (next != null && lastReturned.left != null && lastReturned.right != null) {
+                next = lastReturned;
+            }
+            tree.remove(lastReturned);
+            lastReturned = null;
+            expectedModCount = tree.modCount();
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * AVL-tree with the same operations as {@link AVLTree}, but without node objects.
+ * A node is a slot index into parallel arrays (left, right, parent, height and key),
+ * so a tree with millions of keys is a handful of arrays for the garbage collector
+ * instead of millions of objects. Slots of removed nodes are kept in a free list and reused.
+ *
+ * @param <K> the type of the keys
+ */
+public class ArrayAVLTree<K> {
+
+    /**
+     * Slot 0 is the "null" node. Its height is -1, so it can be read like any other node.
+     */
+    private static final int NIL = 0;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] height;
+    private K[] keys;
+    /**
+     * The order of the keys, null for their natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+
+    private int root;
+    private int size;
+    /**
+     * First never used slot.
+     */
+    private int top;
+    /**
+     * Head of the list of removed slots, linked through the left array.
+     */
+    private int free;
+
+    /**
+     * Construct an empty tree, the keys are ordered by their natural ordering and must implement K.
+     */
+    public ArrayAVLTree() {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * Construct an empty tree with room for a number of keys before the arrays grow.
+     * @param initialCapacity expected number of keys
+     */
+    public ArrayAVLTree(int initialCapacity) {
+        this(initialCapacity, null);
+    }
+
+    /**
+     * Construct an empty tree with the keys ordered by a comparator.
+     * @param comparator the order of the keys, null for their natural ordering
+     */
+    public ArrayAVLTree(Comparator<? super K> comparator) {
+        this(DEFAULT_CAPACITY, comparator);
+    }
+
+    /**
+     * Construct an empty tree with room for a number of keys, ordered by a comparator.
+     * @param initialCapacity expected number of keys
+     * @param comparator the order of the keys, null for their natural ordering
+     */
+    public ArrayAVLTree(int initialCapacity, Comparator<? super K> comparator) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.comparator = comparator;
+        allocate(initialCapacity + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        height = new int[capacity];
+        keys = (K[]) new Object[capacity];
+        height[NIL] = -1;
+        root = NIL;
+        free = NIL;
+        top = 1;
+        size = 0;
+    }
+
+    /**
+     * Take a slot from the free list, or the next unused slot. The arrays grow by half if full.
+     * @param x the key of the new node
+     * @return the slot of the new node
+     */
+    private int newNode(K x) {
+        int n;
+        if (free != NIL) {
+            n = free;
+            free = left[n];
+        } else {
+            if (top == keys.length) {
+                int capacity = keys.length + (keys.length >> 1) + 1;
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                height = Arrays.copyOf(height, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+            }
+            n = top++;
+        }
+        left[n] = NIL;
+        right[n] = NIL;
+        parent[n] = NIL;
+        height[n] = 0;
+        keys[n] = x;
+        return n;
+    }
+
+    /**
+     * Put a slot on the free list.
+     * @param n the slot of the removed node
+     */
+    private void freeNode(int n) {
+        keys[n] = null;
+        left[n] = free;
+        free = n;
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x
+     *            The key of the new node.
+     */
+    public void insert(K x) {
+        if (root == NIL) {
+            // type (and null) check of the first key, the others are checked by the comparisons
+            compare(x, x);
+            root = newNode(x);
+            size++;
+            return;
+        }
+
+        int node = root;
+        while (true) {
+            int result = compare(x, keys[node]);
+            if (result < 0) {
+                if (left[node] == NIL) {
+                    int n = newNode(x);
+                    left[node] = n;
+                    parent[n] = node;
+                    break;
+                }
+                node = left[node];
+            } else if (result > 0) {
+                if (right[node] == NIL) {
+                    int n = newNode(x);
+                    right[node] = n;
+                    parent[n] = node;
+                    break;
+                }
+                node = right[node];
+            } else {
+                // do nothing: This node already exists
+                return;
+            }
+        }
+        size++;
+        rebalance(node);
+    }
+
+    /**
+     * Walk up from a node, restore the height and the balance of every node on the way.
+     * Stops as soon as the height of a subtree is the same as before the update.
+     *
+     * @param node The node to start with, usually the parent of the inserted or removed node.
+     */
+    private void rebalance(int node) {
+        while (node != NIL) {
+            int oldHeight = height[node];
+            updateHeight(node);
+            int balance = balance(node);
+
+            if (balance == -2) {
+                int l = left[node];
+                if (height[left[l]] < height[right[l]]) {
+                    rotateLeft(l);
+                }
+                node = rotateRight(node);
+            } else if (balance == 2) {
+                int r = right[node];
+                if (height[right[r]] < height[left[r]]) {
+                    rotateRight(r);
+                }
+                node = rotateLeft(node);
+            }
+
+            if (height[node] == oldHeight) {
+                return;
+            }
+            node = parent[node];
+        }
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(K x) {
+        int node = findNode(x);
+        if (node == NIL) {
+            return;
+        }
+
+        int vicTim;
+        if (left[node] == NIL || right[node] == NIL) {
+            vicTim = node;
+        } else {
+            // two children -> will be replaced by successor
+            vicTim = right[node];
+            while (left[vicTim] != NIL) {
+                vicTim = left[vicTim];
+            }
+            keys[node] = keys[vicTim];
+        }
+
+        int p = left[vicTim] != NIL ? left[vicTim] : right[vicTim];
+        int vicTimParent = parent[vicTim];
+        if (p != NIL) {
+            parent[p] = vicTimParent;
+        }
+
+        if (vicTimParent == NIL) {
+            root = p;
+        } else {
+            if (left[vicTimParent] == vicTim) {
+                left[vicTimParent] = p;
+            } else {
+                right[vicTimParent] = p;
+            }
+            rebalance(vicTimParent);
+        }
+        freeNode(vicTim);
+        size--;
+    }
+
+    /**
+     * Removes all element. The arrays shrink back to the default capacity.
+     */
+    public void removeAll() {
+        allocate(DEFAULT_CAPACITY + 1);
+    }
+
+    /**
+     * Check tree is empty
+     * @return
+     */
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * Number of elements in the tree
+     * @return number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Left rotation using the given node.
+     *
+     * @param node The node for the rotation.
+     * @return The root of the rotated tree.
+     */
+    private int rotateLeft(int node) {
+        int v = right[node];
+        int p = parent[node];
+        parent[v] = p;
+
+        int inner = left[v];
+        right[node] = inner;
+        if (inner != NIL) {
+            parent[inner] = node;
+        }
+
+        left[v] = node;
+        parent[node] = v;
+
+        replaceChild(p, node, v);
+
+        updateHeight(node);
+        updateHeight(v);
+        return v;
+    }
+
+    /**
+     * Right rotation using the given node.
+     *
+     * @param node The node for the rotation
+     * @return The root of the new rotated tree.
+     */
+    private int rotateRight(int node) {
+        int v = left[node];
+        int p = parent[node];
+        parent[v] = p;
+
+        int inner = right[v];
+        left[node] = inner;
+        if (inner != NIL) {
+            parent[inner] = node;
+        }
+
+        right[v] = node;
+        parent[node] = v;
+
+        replaceChild(p, node, v);
+
+        updateHeight(node);
+        updateHeight(v);
+        return v;
+    }
+
+    /**
+     * Let the parent point to a new child, or make the new child the root.
+     */
+    private void replaceChild(int p, int oldChild, int newChild) {
+        if (p == NIL) {
+            root = newChild;
+        } else if (left[p] == oldChild) {
+            left[p] = newChild;
+        } else {
+            right[p] = newChild;
+        }
+    }
+
+    private void updateHeight(int node) {
+        int l = height[left[node]];
+        int r = height[right[node]];
+        height[node] = 1 + (l >= r ? l : r);
+    }
+
+    private int balance(int node) {
+        return height[right[node]] - height[left[node]];
+    }
+
+    /**
+     * Find the slot of a key.
+     * @param x Key to find
+     * @return slot of the key or NIL
+     */
+    private int findNode(K x) {
+        int cur = root;
+        while (cur != NIL) {
+            int result = compare(x, keys[cur]);
+            if (result == 0) {
+                return cur;
+            } else if (result > 0) {
+                cur = right[cur];
+            } else {
+                cur = left[cur];
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * Compare two keys with the comparator of the tree, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Find element
+     * @param x Key to find.
+     * @return Key if found, null if not found.
+     */
+    public K find(K x) {
+        return keys[findNode(x)];
+    }
+
+    /**
+     * Find element if it is a basic type
+     * @param x Key to find
+     * @param isBasicDataType true or false is oke
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(K x, boolean isBasicDataType) {
+        return findNode(x) != NIL;
+    }
+
+    /**
+     * Get ArrayList of element in tree
+     * @param visitMode
+     * @return ArrayList of element in tree
+     */
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        ArrayList<K> arrayList = new ArrayList<>(size);
+
+        if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+            LeftRootRightVisit(root, arrayList);
+        }
+
+        if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            RightRootLeftVisit(root, arrayList);
+        }
+
+        if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+            RootLeftRightVisit(root, arrayList);
+        }
+
+        return arrayList;
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree
+     */
+    public Object[] toArray(VisitMode visitMode) {
+        return toArrayList(visitMode).toArray();
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @param  a array of element type
+     * @return Array of element in tree
+     */
+    public <T> T[] toArray(VisitMode visitMode, T[] a) {
+        return toArrayList(visitMode).toArray(a);
+    }
+
+    private void LeftRootRightVisit(int node, ArrayList<K> arrayList) {
+        if (node == NIL) {
+            return;
+        }
+
+        LeftRootRightVisit(left[node], arrayList);
+        arrayList.add(keys[node]);
+        LeftRootRightVisit(right[node], arrayList);
+    }
+
+    private void RightRootLeftVisit(int node, ArrayList<K> arrayList) {
+        if (node == NIL) {
+            return;
+        }
+
+        RightRootLeftVisit(right[node], arrayList);
+        arrayList.add(keys[node]);
+        RightRootLeftVisit(left[node], arrayList);
+    }
+
+    private void RootLeftRightVisit(int node, ArrayList<K> arrayList) {
+        if (node == NIL) {
+            return;
+        }
+        arrayList.add(keys[node]);
+
+        RootLeftRightVisit(left[node], arrayList);
+
+        RootLeftRightVisit(right[node], arrayList);
+    }
+}
@@ -0,0 +1,741 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * B+-tree with the same operations as {@link AVLTree}. A node holds up to fanOut - 1 keys in one
+ * array, an inner node up to fanOut children, so a find visits about log(n) / log(fanOut / 2) nodes
+ * instead of the log2(n) nodes of a binary tree, with a binary search inside each node.
+ * All elements are in the leaves, which are linked in both directions: iterators and range scans
+ * walk the key arrays of the leaves without going back up the tree.
+ *
+ * @param <K> the type of the keys
+ */
+public class BPlusTree<K> implements Iterable<K> {
+
+    private static final int DEFAULT_FAN_OUT = 64;
+
+    /**
+     * Keys and number of keys, common to leaves and inner nodes.
+     */
+    private static class Node<K> {
+
+        final K[] keys;
+        int count;
+
+        @SuppressWarnings("unchecked")
+        Node(int maxKeys) {
+            keys = (K[]) new Object[maxKeys];
+        }
+    }
+
+    private static final class Leaf<K> extends Node<K> {
+
+        Leaf<K> previous;
+        Leaf<K> next;
+
+        Leaf(int maxKeys) {
+            super(maxKeys);
+        }
+    }
+
+    /**
+     * Inner node: children[i] holds the keys smaller than keys[i] and not smaller than keys[i - 1].
+     */
+    private static final class Inner<K> extends Node<K> {
+
+        final Node<K>[] children;
+
+        @SuppressWarnings("unchecked")
+        Inner(int maxKeys) {
+            super(maxKeys);
+            children = (Node<K>[]) new Node<?>[maxKeys + 1];
+        }
+    }
+
+    /**
+     * The order of the keys, null for their natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+    private final int maxKeys;
+    /**
+     * A node (but the root) with fewer keys after a remove is merged with a sibling or takes a key from it.
+     */
+    private final int minKeys;
+
+    private Node<K> root;
+    private Leaf<K> first;
+    private Leaf<K> last;
+    private int size;
+    /**
+     * Number of structural changes, lets the iterators fail fast.
+     */
+    private int modCount;
+    /**
+     * Key for the parent of a node that was split by the last insert, the first key of the new right node.
+     */
+    private K splitKey;
+
+    /**
+     * Construct an empty tree with nodes of 64 children.
+     */
+    public BPlusTree() {
+        this(DEFAULT_FAN_OUT, null);
+    }
+
+    /**
+     * Construct an empty tree.
+     * @param fanOut maximum number of children of an inner node, a node holds up to fanOut - 1 keys.
+     */
+    public BPlusTree(int fanOut) {
+        this(fanOut, null);
+    }
+
+    /**
+     * Construct an empty tree with nodes of 64 children and the keys ordered by a comparator.
+     * @param comparator the order of the keys, null for their natural ordering
+     */
+    public BPlusTree(Comparator<? super K> comparator) {
+        this(DEFAULT_FAN_OUT, comparator);
+    }
+
+    /**
+     * Construct an empty tree with the keys ordered by a comparator.
+     * @param fanOut maximum number of children of an inner node, a node holds up to fanOut - 1 keys.
+     * @param comparator the order of the keys, null for their natural ordering
+     */
+    public BPlusTree(int fanOut, Comparator<? super K> comparator) {
+        if (fanOut < 3) {
+            throw new IllegalArgumentException("Illegal fan-out: " + fanOut);
+        }
+        this.comparator = comparator;
+        maxKeys = fanOut - 1;
+        minKeys = maxKeys / 2;
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x
+     *            The key of the new node.
+     */
+    public void insert(K x) {
+        if (root == null) {
+            // type (and null) check of the first key, the others are checked by the comparisons
+            compare(x, x);
+            Leaf<K> leaf = new Leaf<>(maxKeys);
+            leaf.keys[0] = x;
+            leaf.count = 1;
+            root = first = last = leaf;
+            size = 1;
+            modCount++;
+            return;
+        }
+        int oldSize = size;
+        Node<K> right = insert(root, x);
+        if (right != null) {
+            // the root was split, the tree grows by one level
+            Inner<K> newRoot = new Inner<>(maxKeys);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+        splitKey = null;
+        if (size != oldSize) {
+            modCount++;
+        }
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(K x) {
+        if (root == null || !remove(root, x)) {
+            return;
+        }
+        modCount++;
+        if (root.count == 0) {
+            if (root instanceof Inner) {
+                root = ((Inner<K>) root).children[0];
+            } else {
+                root = first = last = null;
+            }
+        }
+    }
+
+    /**
+     * Removes all element
+     */
+    public void removeAll() {
+        root = first = last = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Check tree is empty
+     * @return
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Number of elements in the tree
+     * @return number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find element
+     * @param x Key to find.
+     * @return Key if found, null if not found.
+     */
+    public K find(K x) {
+        if (root == null) {
+            return null;
+        }
+        Leaf<K> leaf = findLeaf(x);
+        int i = search(leaf, x);
+        return i >= 0 ? leaf.keys[i] : null;
+    }
+
+    /**
+     * Find element if it is a basic type
+     * @param x Key to find
+     * @param isBasicDataType true or false is oke
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(K x, boolean isBasicDataType) {
+        try {
+            return find(x) != null;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Find the smallest element in the tree.
+     * @return smallest element or null if empty.
+     */
+    public K findMin() {
+        return first == null ? null : first.keys[0];
+    }
+
+    /**
+     * Find the largest element in the tree.
+     * @return largest element or null if empty.
+     */
+    public K findMax() {
+        return last == null ? null : last.keys[last.count - 1];
+    }
+
+    /**
+     * Get ArrayList of element in tree. All elements are in the leaves, so ROOT_LEFT_RIGHT
+     * gives the ascending order of LEFT_ROOT_RIGHT.
+     * @param visitMode
+     * @return ArrayList of element in tree
+     */
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        ArrayList<K> arrayList = new ArrayList<>(size);
+        if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            for (Leaf<K> leaf = last; leaf != null; leaf = leaf.previous) {
+                for (int i = leaf.count - 1; i >= 0; i--) {
+                    arrayList.add(leaf.keys[i]);
+                }
+            }
+        } else {
+            for (Leaf<K> leaf = first; leaf != null; leaf = leaf.next) {
+                arrayList.addAll(Arrays.asList(leaf.keys).subList(0, leaf.count));
+            }
+        }
+        return arrayList;
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree
+     */
+    public Object[] toArray(VisitMode visitMode) {
+        return toArrayList(visitMode).toArray();
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @param  a array of element type
+     * @return Array of element in tree
+     */
+    public <T> T[] toArray(VisitMode visitMode, T[] a) {
+        return toArrayList(visitMode).toArray(a);
+    }
+
+    /**
+     * Iterator over the elements in ascending order (LEFT_ROOT_RIGHT).
+     * @return iterator of element in tree
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return iterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Iterator over the elements in the given order, ROOT_LEFT_RIGHT is ascending like LEFT_ROOT_RIGHT.
+     * The iterator walks the linked leaves. It fails fast if the tree is changed other than by
+     * its own remove.
+     * @param visitMode
+     * @return iterator of element in tree
+     */
+    public Iterator<K> iterator(VisitMode visitMode) {
+        if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            return new LeafIterator(false, last, last == null ? -1 : last.count - 1, null, false);
+        }
+        return new LeafIterator(true, first, 0, null, false);
+    }
+
+    /**
+     * Iterator over the elements between lo and hi (both included) in ascending order.
+     * @param lo lowest key of the range
+     * @param hi highest key of the range
+     * @return iterator of element in the range
+     */
+    public Iterator<K> range(K lo, K hi) {
+        return range(lo, true, hi, true);
+    }
+
+    /**
+     * Iterator over the elements between lo and hi in ascending order. The iterator starts with
+     * one search for lo and then reads the leaves in order until it passes hi. remove is supported.
+     * @param lo lowest key of the range
+     * @param loInclusive true if lo itself belongs to the range
+     * @param hi highest key of the range
+     * @param hiInclusive true if hi itself belongs to the range
+     * @return iterator of element in the range
+     */
+    public Iterator<K> range(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+        if (root == null) {
+            return new LeafIterator(true, null, 0, hi, hiInclusive);
+        }
+        Leaf<K> leaf = findLeaf(lo);
+        int i = search(leaf, lo);
+        if (i < 0) {
+            i = -i - 1;
+        } else if (!loInclusive) {
+            i++;
+        }
+        return new LeafIterator(true, leaf, i, hi, hiInclusive);
+    }
+
+    /**
+     * Spliterator over the elements in ascending order.
+     * @return spliterator of element in tree
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        return spliterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Spliterator over the elements in the given order, on top of {@link #iterator(VisitMode)}.
+     * @param visitMode
+     * @return spliterator of element in tree
+     */
+    public Spliterator<K> spliterator(VisitMode visitMode) {
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.SIZED;
+        // this spliterator reports a null comparator, so it is only SORTED by the natural ordering
+        if (visitMode != VisitMode.RIGHT_ROOT_LEFT && comparator == null) {
+            characteristics |= Spliterator.SORTED;
+        }
+        return Spliterators.spliterator(iterator(visitMode), size, characteristics);
+    }
+
+    private final class LeafIterator implements Iterator<K> {
+
+        private final boolean ascending;
+        /**
+         * Upper bound of a range in ascending order, null if there is none.
+         */
+        private final K hi;
+        private final boolean hiInclusive;
+        private Leaf<K> leaf;
+        private int index;
+        private K next;
+        private K lastReturned;
+        private int expectedModCount = modCount;
+
+        LeafIterator(boolean ascending, Leaf<K> leaf, int index, K hi, boolean hiInclusive) {
+            this.ascending = ascending;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.leaf = leaf;
+            this.index = index;
+            advance();
+        }
+
+        /**
+         * Move leaf and index to the next element, if the current position is past the end of a leaf.
+         */
+        private void advance() {
+            if (ascending) {
+                while (leaf != null && index >= leaf.count) {
+                    leaf = leaf.next;
+                    index = 0;
+                }
+            } else {
+                while (leaf != null && index < 0) {
+                    leaf = leaf.previous;
+                    index = leaf == null ? -1 : leaf.count - 1;
+                }
+            }
+            next = leaf == null ? null : leaf.keys[index];
+            if (next != null && hi != null) {
+                int result = compare(next, hi);
+                if (result > 0 || (result == 0 && !hiInclusive)) {
+                    next = null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public K next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            index += ascending ? 1 : -1;
+            advance();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // merging leaves moves keys, so find the next element again after the remove
+            BPlusTree.this.remove(lastReturned);
+            if (next != null) {
+                leaf = findLeaf(next);
+                index = search(leaf, next);
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Returns the leaf that holds x, or would hold x. The tree must not be empty.
+     */
+    private Leaf<K> findLeaf(K x) {
+        Node<K> node = root;
+        while (node instanceof Inner) {
+            node = ((Inner<K>) node).children[childIndex(node, x)];
+        }
+        return (Leaf<K>) node;
+    }
+
+    /**
+     * Binary search in the keys of a node.
+     * @return the index of x, or (-(insertion point) - 1) if x is not in the node.
+     */
+    private int search(Node<K> node, K x) {
+        K[] keys = node.keys;
+        int low = 0;
+        int high = node.count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = compare(x, keys[mid]);
+            if (result > 0) {
+                low = mid + 1;
+            } else if (result < 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Compare two keys with the comparator of the tree, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Index of the child of an inner node whose subtree holds x.
+     */
+    private int childIndex(Node<K> node, K x) {
+        int i = search(node, x);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Insert x into a subtree.
+     *
+     * @param node The root of the subtree.
+     * @param x The key to insert.
+     * @return The new right sibling if node was split (its first key is in splitKey), null otherwise.
+     */
+    private Node<K> insert(Node<K> node, K x) {
+        if (node instanceof Leaf) {
+            Leaf<K> leaf = (Leaf<K>) node;
+            int i = search(leaf, x);
+            if (i >= 0) {
+                // do nothing: This key already exists
+                return null;
+            }
+            i = -i - 1;
+            size++;
+            if (leaf.count < maxKeys) {
+                System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.count - i);
+                leaf.keys[i] = x;
+                leaf.count++;
+                return null;
+            }
+            return splitLeaf(leaf, i, x);
+        }
+
+        Inner<K> inner = (Inner<K>) node;
+        int i = childIndex(inner, x);
+        Node<K> right = insert(inner.children[i], x);
+        if (right == null) {
+            return null;
+        }
+        if (inner.count < maxKeys) {
+            System.arraycopy(inner.keys, i, inner.keys, i + 1, inner.count - i);
+            System.arraycopy(inner.children, i + 1, inner.children, i + 2, inner.count - i);
+            inner.keys[i] = splitKey;
+            inner.children[i + 1] = right;
+            inner.count++;
+            return null;
+        }
+        return splitInner(inner, i, right);
+    }
+
+    /**
+     * Split a full leaf while x is inserted at index i. Half of the keys move to a new right
+     * sibling; an insert behind the last key or before the first key of the tree leaves the
+     * old keys together, so ascending or descending inserts fill the leaves completely.
+     */
+    private Leaf<K> splitLeaf(Leaf<K> leaf, int i, K x) {
+        int total = leaf.count + 1;
+        int leftCount = total / 2;
+        if (i == leaf.count && leaf.next == null) {
+            leftCount = leaf.count;
+        } else if (i == 0 && leaf.previous == null) {
+            leftCount = 1;
+        }
+        int rightCount = total - leftCount;
+        Leaf<K> right = new Leaf<>(maxKeys);
+        if (i < leftCount) {
+            System.arraycopy(leaf.keys, leftCount - 1, right.keys, 0, rightCount);
+            System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leftCount - 1 - i);
+            leaf.keys[i] = x;
+        } else {
+            int j = i - leftCount;
+            System.arraycopy(leaf.keys, leftCount, right.keys, 0, j);
+            right.keys[j] = x;
+            System.arraycopy(leaf.keys, i, right.keys, j + 1, leaf.count - i);
+        }
+        Arrays.fill(leaf.keys, leftCount, leaf.count, null);
+        leaf.count = leftCount;
+        right.count = rightCount;
+
+        right.next = leaf.next;
+        if (right.next != null) {
+            right.next.previous = right;
+        } else {
+            last = right;
+        }
+        right.previous = leaf;
+        leaf.next = right;
+
+        splitKey = right.keys[0];
+        return right;
+    }
+
+    /**
+     * Split a full inner node while splitKey and the new child right are inserted at index i.
+     * The middle key moves up into splitKey.
+     */
+    @SuppressWarnings("unchecked")
+    private Inner<K> splitInner(Inner<K> inner, int i, Node<K> right) {
+        int total = inner.count + 1;
+        K[] keys = (K[]) new Object[total];
+        Node<K>[] children = (Node<K>[]) new Node<?>[total + 1];
+        System.arraycopy(inner.keys, 0, keys, 0, i);
+        keys[i] = splitKey;
+        System.arraycopy(inner.keys, i, keys, i + 1, inner.count - i);
+        System.arraycopy(inner.children, 0, children, 0, i + 1);
+        children[i + 1] = right;
+        System.arraycopy(inner.children, i + 1, children, i + 2, inner.count - i);
+
+        int leftCount = total / 2;
+        int rightCount = total - leftCount - 1;
+        Inner<K> sibling = new Inner<>(maxKeys);
+        System.arraycopy(keys, 0, inner.keys, 0, leftCount);
+        System.arraycopy(children, 0, inner.children, 0, leftCount + 1);
+        Arrays.fill(inner.keys, leftCount, inner.count, null);
+        Arrays.fill(inner.children, leftCount + 1, inner.count + 1, null);
+        System.arraycopy(keys, leftCount + 1, sibling.keys, 0, rightCount);
+        System.arraycopy(children, leftCount + 1, sibling.children, 0, rightCount + 1);
+        inner.count = leftCount;
+        sibling.count = rightCount;
+
+        splitKey = keys[leftCount];
+        return sibling;
+    }
+
+    /**
+     * Remove x from a subtree. A child that has fewer than minKeys keys afterwards is merged
+     * with a sibling or takes a key from it.
+     *
+     * @param node The root of the subtree.
+     * @param x The key to remove.
+     * @return true if x was found.
+     */
+    private boolean remove(Node<K> node, K x) {
+        if (node instanceof Leaf) {
+            Leaf<K> leaf = (Leaf<K>) node;
+            int i = search(leaf, x);
+            if (i < 0) {
+                // der Wert existiert nicht in diesem Baum, daher ist nichts zu tun
+                return false;
+            }
+            System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.count - i - 1);
+            leaf.keys[--leaf.count] = null;
+            size--;
+            return true;
+        }
+
+        Inner<K> inner = (Inner<K>) node;
+        int i = childIndex(inner, x);
+        Node<K> child = inner.children[i];
+        if (!remove(child, x)) {
+            return false;
+        }
+        if (child.count < minKeys) {
+            rebalance(inner, i);
+        }
+        return true;
+    }
+
+    /**
+     * Fix the child i of an inner node after it has lost keys: merge it with a neighbour if both
+     * fit into one node, otherwise move one key over from the neighbour.
+     */
+    private void rebalance(Inner<K> parent, int i) {
+        // j is the separator between the two siblings
+        int j = i > 0 ? i - 1 : i;
+        Node<K> left = parent.children[j];
+        Node<K> right = parent.children[j + 1];
+        boolean leftIsShort = left.count < right.count;
+
+        if (left instanceof Leaf) {
+            Leaf<K> l = (Leaf<K>) left;
+            Leaf<K> r = (Leaf<K>) right;
+            if (l.count + r.count <= maxKeys) {
+                System.arraycopy(r.keys, 0, l.keys, l.count, r.count);
+                l.count += r.count;
+                l.next = r.next;
+                if (l.next != null) {
+                    l.next.previous = l;
+                } else {
+                    last = l;
+                }
+                removeChild(parent, j);
+                return;
+            }
+            if (leftIsShort) {
+                l.keys[l.count++] = r.keys[0];
+                System.arraycopy(r.keys, 1, r.keys, 0, r.count - 1);
+                r.keys[--r.count] = null;
+            } else {
+                System.arraycopy(r.keys, 0, r.keys, 1, r.count);
+                r.keys[0] = l.keys[--l.count];
+                l.keys[l.count] = null;
+                r.count++;
+            }
+            parent.keys[j] = r.keys[0];
+            return;
+        }
+
+        Inner<K> l = (Inner<K>) left;
+        Inner<K> r = (Inner<K>) right;
+        if (l.count + r.count + 1 <= maxKeys) {
+            l.keys[l.count] = parent.keys[j];
+            System.arraycopy(r.keys, 0, l.keys, l.count + 1, r.count);
+            System.arraycopy(r.children, 0, l.children, l.count + 1, r.count + 1);
+            l.count += r.count + 1;
+            removeChild(parent, j);
+            return;
+        }
+        if (leftIsShort) {
+            l.keys[l.count] = parent.keys[j];
+            l.children[l.count + 1] = r.children[0];
+            l.count++;
+            parent.keys[j] = r.keys[0];
+            System.arraycopy(r.keys, 1, r.keys, 0, r.count - 1);
+            System.arraycopy(r.children, 1, r.children, 0, r.count);
+            r.keys[r.count - 1] = null;
+            r.children[r.count] = null;
+            r.count--;
+        } else {
+            System.arraycopy(r.keys, 0, r.keys, 1, r.count);
+            System.arraycopy(r.children, 0, r.children, 1, r.count + 1);
+            r.keys[0] = parent.keys[j];
+            r.children[0] = l.children[l.count];
+            r.count++;
+            parent.keys[j] = l.keys[l.count - 1];
+            l.keys[l.count - 1] = null;
+            l.children[l.count] = null;
+            l.count--;
+        }
+    }
+
+    /**
+     * Remove the separator j and the child j + 1 of an inner node, after that child was merged into child j.
+     */
+    private static <K> void removeChild(Inner<K> parent, int j) {
+        System.arraycopy(parent.keys, j + 1, parent.keys, j, parent.count - j - 1);
+        System.arraycopy(parent.children, j + 2, parent.children, j + 1, parent.count - j - 1);
+        parent.count--;
+        parent.keys[parent.count] = null;
+        parent.children[parent.count + 1] = null;
+    }
+}
@@ -0,0 +1,21 @@
+
+package JDev.Trees;
+
+/**
+ * How a {@link BinarySearchTree} keeps its shape, chosen when the tree is constructed.
+ */
+public enum BalanceMode {
+
+    /**
+     * No balancing. The shape depends on the order of the inserts, sorted input
+     * makes the tree as deep as a linked list.
+     */
+    NONE,
+    /**
+     * Scapegoat tree: an insert that ends deeper than log(n) / log(1 / 0.7) rebuilds the
+     * subtree of the deepest ancestor that is out of weight balance, and the whole tree is
+     * rebuilt when removes have shrunk it below 0.7 of its largest size. Needs no extra
+     * field in the nodes and gives O(log n) find and amortized O(log n) insert and remove.
+     */
+    SCAPEGOAT
+}
@@ -1,19 +1,23 @@
-
 package JDev.Trees;
 
-public class BinaryNode {
+public class BinaryNode<K> {
 
-    public BinaryNode(Comparable x) {
+    public BinaryNode(K x) {
         this(x, null, null);
     }
 
-    public BinaryNode(Comparable theElement, BinaryNode lt, BinaryNode rt) {
+    public BinaryNode(K theElement, BinaryNode<K> lt, BinaryNode<K> rt) {
         data = theElement;
         left = lt;
         right = rt;
+        size = 1;
     }
 
-    public Comparable data;     
-    public BinaryNode left;         
-    public BinaryNode right;        
-}
\ No newline at end of file
+    public K data;     
+    public BinaryNode<K> left;         
+    public BinaryNode<K> right;        
+    /**
+     * Number of nodes in the subtree of this node, the node included.
+     */
+    public int size;
+}
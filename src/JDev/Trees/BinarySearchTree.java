@@ -1,43 +1,348 @@
 
 package JDev.Trees;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Implements an unbalanced binary search tree.
- * Note that all "matching" is based on the compareTo method.
+ * Implements a binary search tree, unbalanced unless it is constructed with
+ * {@link BalanceMode#SCAPEGOAT}.
+ * Note that all "matching" is based on the compareTo method, or on the comparator
+ * given to the constructor.
+ * @param <K> the type of the items
  * @author Mark Allen Weiss
  */
-public class BinarySearchTree {
+public class BinarySearchTree<K> implements Iterable<K> {
 
     /**
-     * Construct the tree.
+     * Subtrees with fewer items are built by one thread in parallelFromSorted.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * Weight balance of a scapegoat tree: no subtree may hold more than this part of its parent's subtree.
+     */
+    private static final double ALPHA = 0.7;
+    private static final double LOG_INVERSE_ALPHA = Math.log(1 / ALPHA);
+
+    /**
+     * Construct the tree, the items are ordered by their natural ordering and must implement Comparable.
      */
     public BinarySearchTree() {
+        this(BalanceMode.NONE, null);
+    }
+
+    /**
+     * Construct the tree with a balancing strategy. With {@link BalanceMode#SCAPEGOAT} sorted input,
+     * like timestamps or sequence numbers, keeps find at O(log n) instead of O(n); the nodes and
+     * the other methods are the same as for an unbalanced tree.
+     * @param balanceMode how the tree keeps its shape.
+     */
+    public BinarySearchTree(BalanceMode balanceMode) {
+        this(balanceMode, null);
+    }
+
+    /**
+     * Construct the tree with the items ordered by a comparator.
+     * @param comparator the order of the items, null for their natural ordering.
+     */
+    public BinarySearchTree(Comparator<? super K> comparator) {
+        this(BalanceMode.NONE, comparator);
+    }
+
+    /**
+     * Construct the tree with a balancing strategy and the items ordered by a comparator.
+     * @param balanceMode how the tree keeps its shape.
+     * @param comparator the order of the items, null for their natural ordering.
+     */
+    public BinarySearchTree(BalanceMode balanceMode, Comparator<? super K> comparator) {
+        if (balanceMode == null) {
+            throw new IllegalArgumentException("balanceMode is null");
+        }
+        this.balanceMode = balanceMode;
+        this.comparator = comparator;
         root = null;
     }
 
+    /**
+     * Build a perfectly balanced tree from items sorted in ascending order, in linear time.
+     * Inserting sorted items one by one would give a tree as deep as a linked list.
+     * The only comparisons are the n - 1 of the check that the items are sorted.
+     * @param sortedKeys the items in ascending order, the array is not changed.
+     * @param removeDuplicates true to keep one of equal items, false to reject duplicates.
+     * @return the new tree.
+     * @throws IllegalArgumentException if the items are not sorted, or have duplicates that are not removed.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(K[] sortedKeys, boolean removeDuplicates) {
+        return fromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from items sorted by a comparator, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(K[] sortedKeys, Comparator<? super K> comparator,
+            boolean removeDuplicates) {
+        return fromSorted(sortedKeys, BalanceMode.NONE, comparator, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree that keeps its shape with a balancing strategy, see
+     * {@link #fromSorted(Object[], boolean)}. With {@link BalanceMode#SCAPEGOAT} the tree stays
+     * balanced under the inserts that follow, like more sorted items appended at the end.
+     * @param sortedKeys the items in ascending order, the array is not changed.
+     * @param balanceMode how the tree keeps its shape.
+     * @param comparator the order of the items, null for their natural ordering.
+     * @param removeDuplicates true to keep one of equal items, false to reject duplicates.
+     * @return the new tree.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(K[] sortedKeys, BalanceMode balanceMode,
+            Comparator<? super K> comparator, boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), balanceMode, comparator, false);
+    }
+
+    /**
+     * Build a perfectly balanced tree from a sorted list, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(List<? extends K> sortedKeys, boolean removeDuplicates) {
+        return fromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from a list sorted by a comparator, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(List<? extends K> sortedKeys, Comparator<? super K> comparator,
+            boolean removeDuplicates) {
+        return fromSorted(sortedKeys, BalanceMode.NONE, comparator, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from a sorted list with a balancing strategy,
+     * see {@link #fromSorted(Object[], BalanceMode, Comparator, boolean)}.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(List<? extends K> sortedKeys, BalanceMode balanceMode,
+            Comparator<? super K> comparator, boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), balanceMode, comparator, false);
+    }
+
+    /**
+     * Build a perfectly balanced tree from the sorted items of an iterator, see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(Iterator<? extends K> sortedKeys, boolean removeDuplicates) {
+        return fromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from the items of an iterator sorted by a comparator,
+     * see {@link #fromSorted(Object[], boolean)}.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(Iterator<? extends K> sortedKeys,
+            Comparator<? super K> comparator, boolean removeDuplicates) {
+        return fromSorted(sortedKeys, BalanceMode.NONE, comparator, removeDuplicates);
+    }
+
+    /**
+     * Build a perfectly balanced tree from the sorted items of an iterator with a balancing strategy,
+     * see {@link #fromSorted(Object[], BalanceMode, Comparator, boolean)}.
+     */
+    public static <K> BinarySearchTree<K> fromSorted(Iterator<? extends K> sortedKeys, BalanceMode balanceMode,
+            Comparator<? super K> comparator, boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), balanceMode, comparator, false);
+    }
+
+    /**
+     * Build a perfectly balanced tree from exactly size items of an iterator, in ascending order
+     * without duplicates. The items are linked into the tree as they are taken from the iterator,
+     * without a copy into an array, so a tree can be loaded from a stream in linear time.
+     *
+     * @param sortedKeys The items in ascending order.
+     * @param size The number of items.
+     * @param comparator The order of the items, null for their natural ordering.
+     * @return the new tree
+     * @throws IllegalArgumentException if the items are not sorted, have duplicates, or are not size items
+     */
+    public static <K> BinarySearchTree<K> fromSorted(Iterator<? extends K> sortedKeys, int size,
+            Comparator<? super K> comparator) {
+        return fromSorted(sortedKeys, size, BalanceMode.NONE, comparator);
+    }
+
+    /**
+     * Build a perfectly balanced tree from exactly size items of an iterator with a balancing strategy,
+     * see {@link #fromSorted(Iterator, int, Comparator)}.
+     *
+     * @param sortedKeys The items in ascending order.
+     * @param size The number of items.
+     * @param balanceMode How the tree keeps its shape.
+     * @param comparator The order of the items, null for their natural ordering.
+     * @return the new tree
+     * @throws IllegalArgumentException if the items are not sorted, have duplicates, or are not size items
+     */
+    public static <K> BinarySearchTree<K> fromSorted(Iterator<? extends K> sortedKeys, int size,
+            BalanceMode balanceMode, Comparator<? super K> comparator) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+        SortedKeys.Stream<K> keys = new SortedKeys.Stream<>(sortedKeys, comparator);
+        BinarySearchTree<K> tree = new BinarySearchTree<>(balanceMode, comparator);
+        tree.root = build(keys, size);
+        keys.checkEnd();
+        tree.maxSize = size;
+        return tree;
+    }
+
+    /**
+     * Build a subtree of the next n items in order: the left half, the middle item, the right half.
+     */
+    private static <K> BinaryNode<K> build(SortedKeys.Stream<K> keys, int n) {
+        if (n == 0) {
+            return null;
+        }
+        BinaryNode<K> left = build(keys, n >>> 1);
+        K x = keys.next();
+        return link(x, left, build(keys, n - (n >>> 1) - 1));
+    }
+
+    /**
+     * Like {@link #fromSorted(Object[], boolean)}, but large inputs are built in parallel:
+     * the two halves of every large subtree are built by fork-join tasks in the common pool.
+     */
+    public static <K> BinarySearchTree<K> parallelFromSorted(K[] sortedKeys, boolean removeDuplicates) {
+        return parallelFromSorted(sortedKeys, null, removeDuplicates);
+    }
+
+    /**
+     * Like {@link #fromSorted(Object[], Comparator, boolean)}, but large inputs are built in parallel.
+     */
+    public static <K> BinarySearchTree<K> parallelFromSorted(K[] sortedKeys, Comparator<? super K> comparator,
+            boolean removeDuplicates) {
+        return parallelFromSorted(sortedKeys, BalanceMode.NONE, comparator, removeDuplicates);
+    }
+
+    /**
+     * Like {@link #fromSorted(Object[], BalanceMode, Comparator, boolean)}, but large inputs are built in parallel.
+     */
+    public static <K> BinarySearchTree<K> parallelFromSorted(K[] sortedKeys, BalanceMode balanceMode,
+            Comparator<? super K> comparator, boolean removeDuplicates) {
+        return build(SortedKeys.check(sortedKeys, comparator, removeDuplicates), balanceMode, comparator, true);
+    }
+
+    private static <K> BinarySearchTree<K> build(K[] keys, BalanceMode balanceMode, Comparator<? super K> comparator,
+            boolean parallel) {
+        BinarySearchTree<K> tree = new BinarySearchTree<>(balanceMode, comparator);
+        if (parallel && keys.length > PARALLEL_THRESHOLD) {
+            tree.root = ForkJoinPool.commonPool().invoke(new BuildTask<>(keys, 0, keys.length));
+        } else {
+            tree.root = build(keys, 0, keys.length);
+        }
+        // the tree is perfectly balanced, as after a rebuild of a scapegoat tree as a whole
+        tree.maxSize = keys.length;
+        return tree;
+    }
+
+    /**
+     * Internal method to build the subtree of keys[from] to keys[to - 1], the middle item is the root.
+     * @return the root of the subtree.
+     */
+    private static <K> BinaryNode<K> build(K[] keys, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return link(keys[mid], build(keys, from, mid), build(keys, mid + 1, to));
+    }
+
+    private static <K> BinaryNode<K> link(K x, BinaryNode<K> left, BinaryNode<K> right) {
+        BinaryNode<K> t = new BinaryNode<>(x, left, right);
+        t.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+        return t;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class BuildTask<K> extends RecursiveTask<BinaryNode<K>> {
+
+        private final K[] keys;
+        private final int from;
+        private final int to;
+
+        BuildTask(K[] keys, int from, int to) {
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BinaryNode<K> compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return build(keys, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            BuildTask<K> leftTask = new BuildTask<>(keys, from, mid);
+            leftTask.fork();
+            BinaryNode<K> right = new BuildTask<>(keys, mid + 1, to).compute();
+            return link(keys[mid], leftTask.join(), right);
+        }
+    }
+
     /**
      * Insert into the tree; duplicates are ignored.
      * @param x the item to insert.
      */
-    public void insert(Comparable x) {
-        root = insert(x, root);
+    public void insert(K x) {
+        int depth = insert(x, root);
+        if (depth >= 0) {
+            modCount++;
+        }
+        MetricsCounters m = metrics;
+        if (m != null) {
+            m.inserts++;
+            m.comparisons += Math.max(depth, 0);
+        }
+        if (balanceMode == BalanceMode.SCAPEGOAT && depth >= 0) {
+            maxSize = Math.max(maxSize, root.size);
+            if (depth > Math.log(root.size) / LOG_INVERSE_ALPHA) {
+                rebuildScapegoat(x);
+            }
+        }
     }
 
     /**
      * Remove from the tree. Nothing is done if x is not found.
      * @param x the item to remove.
      */
-    public void remove(Comparable x) {
-        root = remove(x, root);
+    public void remove(K x) {
+        MetricsCounters m = metrics;
+        if (m != null) {
+            m.removes++;
+        }
+        boolean removed = remove(x, root);
+        if (removed) {
+            modCount++;
+        }
+        if (balanceMode == BalanceMode.SCAPEGOAT && removed && size() <= ALPHA * maxSize) {
+            root = rebuild(root);
+            maxSize = size();
+        }
     }
 
     /**
      * Find the smallest item in the tree.
      * @return smallest item or null if empty.
      */
-    private Comparable findMin() {
+    public K findMin() {
         return elementAt(findMin(root));
     }
 
@@ -45,7 +350,7 @@ public class BinarySearchTree {
      * Find the largest item in the tree.
      * @return the largest item of null if empty.
      */
-    private Comparable findMax() {
+    public K findMax() {
         return elementAt(findMax(root));
     }
 
@@ -54,21 +359,73 @@ public class BinarySearchTree {
      * @param x the item to search for.
      * @return the matching item or null if not found.
      */
-    public Comparable find(Comparable x) {
-        return elementAt(find(x, root));
+    public K find(K x) {
+        MetricsCounters m = metrics;
+        if (m != null) {
+            return elementAt(find(x, m));
+        }
+        return elementAt(comparator == null ? find(x, root) : findCompared(x, root));
+    }
+
+    /**
+     * Find the largest item smaller than or equal to x.
+     * @param x the item to compare with.
+     * @return the item or null if there is none.
+     */
+    public K floor(K x) {
+        return elementAt(floor(x, true));
+    }
+
+    /**
+     * Find the smallest item greater than or equal to x.
+     * @param x the item to compare with.
+     * @return the item or null if there is none.
+     */
+    public K ceiling(K x) {
+        return elementAt(ceiling(x, true));
+    }
+
+    /**
+     * Find the largest item strictly smaller than x.
+     * @param x the item to compare with.
+     * @return the item or null if there is none.
+     */
+    public K lower(K x) {
+        return elementAt(floor(x, false));
+    }
+
+    /**
+     * Find the smallest item strictly greater than x.
+     * @param x the item to compare with.
+     * @return the item or null if there is none.
+     */
+    public K higher(K x) {
+        return elementAt(ceiling(x, false));
+    }
+
+    /**
+     * Check if an item is in the tree, with one comparison per level and without allocation.
+     * @param x the item to search for.
+     * @return true if found or false if not found
+     */
+    public boolean contains(K x) {
+        MetricsCounters m = metrics;
+        if (m != null) {
+            return find(x, m) != null;
+        }
+        return (comparator == null ? find(x, root) : findCompared(x, root)) != null;
     }
 
      /**
      * Find an item in the tree.
+     * Returns false for an item that can not be compared, where {@link #contains} throws.
      * @param x the item to search for.
      * @param isBasicDataType true or false is oke
      * @return @return true if found or false if not found
      */
-    public Comparable find(Comparable x, boolean isBasicType) {
+    public boolean find(K x, boolean isBasicType) {
         try {
-            Comparable t = find(x);
-
-            return t != null ? true : false;
+            return contains(x);
         } catch (Exception ex) {
             return false;
         }
@@ -79,6 +436,8 @@ public class BinarySearchTree {
      */
     public void removeAll() {
         root = null;
+        maxSize = 0;
+        modCount++;
     }
 
      /**
@@ -86,8 +445,8 @@ public class BinarySearchTree {
      * @param visitMode 
      * @return ArrayList of item in tree
      */
-    public ArrayList toArrayList(VisitMode visitMode) {
-        ArrayList arrayList = new ArrayList();
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        ArrayList<K> arrayList = new ArrayList<>(size());
 
         Visit(visitMode, arrayList);
 
@@ -110,52 +469,441 @@ public class BinarySearchTree {
      * @return Array of item in tree
      */
     public <T> T[] toArray(VisitMode visitMode, T[] a) {
-        return (T[]) toArrayList(visitMode).toArray(a);
+        return toArrayList(visitMode).toArray(a);
     }
 
-    private void Visit(VisitMode visitMode, ArrayList arrayList) {
-        if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
-            LeftRootRightVisit(root, arrayList);
-        }
+    /**
+     * Iterator over the items in ascending order (LEFT_ROOT_RIGHT).
+     * @return iterator of item in tree
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return iterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
 
-        if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
-            RightRootLeftVisit(root, arrayList);
-        }
+    /**
+     * Iterator over the items in the given order. The items are not copied: the iterator
+     * keeps the path to the next node on a stack, so it needs memory for one path of the tree.
+     * The iterator fails fast if the tree is changed other than by its own remove, which is
+     * supported for LEFT_ROOT_RIGHT and RIGHT_ROOT_LEFT.
+     * @param visitMode
+     * @return iterator of item in tree
+     */
+    public Iterator<K> iterator(VisitMode visitMode) {
+        return new StackIterator(visitMode);
+    }
 
+    /**
+     * Iterator over the items between lo and hi (both included) in ascending order.
+     * @param lo lowest item of the range
+     * @param hi highest item of the range
+     * @return iterator of item in the range
+     */
+    public Iterator<K> range(K lo, K hi) {
+        return range(lo, true, hi, true);
+    }
+
+    /**
+     * Iterator over the items between lo and hi in ascending order. The iterator starts with
+     * the path to the first item in the range and stops at the first item after hi, so it visits
+     * O(depth + k) nodes for k items in the range. remove is supported.
+     * @param lo lowest item of the range
+     * @param loInclusive true if lo itself belongs to the range
+     * @param hi highest item of the range
+     * @param hiInclusive true if hi itself belongs to the range
+     * @return iterator of item in the range
+     */
+    public Iterator<K> range(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+        return new StackIterator(lo, loInclusive, hi, hiInclusive);
+    }
+
+    /**
+     * Spliterator over the items in ascending order.
+     * @return spliterator of item in tree
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        return spliterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Spliterator over the items in the given order. In ascending and descending order it
+     * knows its exact size and splits at the middle rank; each half finds its first node by the
+     * subtree sizes, so the halves of a parallel stream have the same size even if the tree is
+     * degenerated. ROOT_LEFT_RIGHT is on top of {@link #iterator(VisitMode)} and does not split well.
+     * The spliterator fails fast if the tree is changed.
+     * @param visitMode
+     * @return spliterator of item in tree
+     */
+    public Spliterator<K> spliterator(VisitMode visitMode) {
         if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
-            RootLeftRightVisit(root, arrayList);
+            return Spliterators.spliteratorUnknownSize(iterator(visitMode),
+                    Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
         }
+        return new RankSpliterator(0, size(), visitMode == VisitMode.LEFT_ROOT_RIGHT, modCount);
     }
 
-    private void LeftRootRightVisit(BinaryNode node, ArrayList arrayList) {
-        if (node == null) {
-            return;
+    /**
+     * Sequential stream of the items in ascending order.
+     * @return stream of item in tree
+     */
+    public Stream<K> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Parallel stream of the items in ascending order, see {@link #spliterator(VisitMode)}.
+     * @return parallel stream of item in tree
+     */
+    public Stream<K> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Call an action for every item, in parallel fork-join tasks and in no particular order.
+     * The tree must not be changed meanwhile.
+     * @param action The action, called by several threads at the same time.
+     */
+    public void parallelForEach(Consumer<? super K> action) {
+        ParallelTraversal.forEach(spliterator(), action);
+    }
+
+    /**
+     * Reduce the items in parallel fork-join tasks, with the result of a reduction in ascending
+     * order, see {@link AVLTree#parallelReduce}. The tree must not be changed meanwhile.
+     * @param identity The result for no items, the identity of combiner.
+     * @param accumulator Adds an item to a result.
+     * @param combiner Combines the results of two neighbouring ranges, must be associative.
+     * @return the result
+     */
+    public <R> R parallelReduce(R identity, BiFunction<R, ? super K, R> accumulator, BinaryOperator<R> combiner) {
+        return ParallelTraversal.reduce(spliterator(), identity, accumulator, combiner);
+    }
+
+    /**
+     * The items with the ranks from to to - 1, in ascending or descending order.
+     */
+    private final class RankSpliterator implements Spliterator<K> {
+
+        private final boolean ascending;
+        private final int expectedModCount;
+        /**
+         * The ranks still to visit, ascending order takes from first, descending to - 1.
+         */
+        private int from;
+        private int to;
+        /**
+         * The next node and its ancestors that come after it, like in StackIterator.
+         * Empty if the next node was not looked up yet.
+         */
+        private ArrayDeque<BinaryNode<K>> stack = new ArrayDeque<>();
+
+        RankSpliterator(int from, int to, boolean ascending, int expectedModCount) {
+            this.from = from;
+            this.to = to;
+            this.ascending = ascending;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super K> action) {
+            if (from >= to) {
+                return false;
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (ascending) {
+                from++;
+            } else {
+                to--;
+            }
+            action.accept(nextNode().data);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super K> action) {
+            if (from >= to) {
+                return;
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (from < to) {
+                if (ascending) {
+                    from++;
+                } else {
+                    to--;
+                }
+                action.accept(nextNode().data);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        /**
+         * Take the next node from the stack and push the path to the one after it.
+         * The rank of the node is the one just taken from the range.
+         */
+        private BinaryNode<K> nextNode() {
+            if (stack.isEmpty()) {
+                seek(ascending ? from - 1 : size() - 1 - to);
+            }
+            BinaryNode<K> t = stack.pop();
+            BinaryNode<K> far = ascending ? t.right : t.left;
+            while (far != null) {
+                stack.push(far);
+                far = ascending ? far.left : far.right;
+            }
+            return t;
         }
 
-        LeftRootRightVisit(node.left, arrayList);
-        arrayList.add(node.data);
-        LeftRootRightVisit(node.right, arrayList);
+        /**
+         * Build the stack for the k-th node in the order of the spliterator, by the subtree sizes.
+         */
+        private void seek(int k) {
+            BinaryNode<K> t = root;
+            while (true) {
+                BinaryNode<K> near = ascending ? t.left : t.right;
+                int nearSize = size(near);
+                if (k < nearSize) {
+                    stack.push(t);
+                    t = near;
+                } else if (k > nearSize) {
+                    k -= nearSize + 1;
+                    t = ascending ? t.right : t.left;
+                } else {
+                    stack.push(t);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<K> trySplit() {
+            if (to - from < 2) {
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            RankSpliterator prefix;
+            if (ascending) {
+                prefix = new RankSpliterator(from, mid, true, expectedModCount);
+                from = mid;
+            } else {
+                prefix = new RankSpliterator(mid, to, false, expectedModCount);
+                to = mid;
+            }
+            // the path to the next node belongs to the prefix now
+            ArrayDeque<BinaryNode<K>> path = prefix.stack;
+            prefix.stack = stack;
+            stack = path;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+            return ascending ? characteristics | Spliterator.SORTED : characteristics;
+        }
+
+        @Override
+        public Comparator<? super K> getComparator() {
+            if (!ascending) {
+                throw new IllegalStateException();
+            }
+            return comparator;
+        }
     }
 
-    private void RightRootLeftVisit(BinaryNode node, ArrayList arrayList) {
-        if (node == null) {
-            return;
+    /**
+     * The MXBean of {@link #metricsMXBean()}.
+     */
+    private final class MetricsBean implements TreeMetricsMXBean {
+
+        @Override
+        public TreeMetrics getMetrics() {
+            return metrics();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return isMetricsEnabled();
         }
 
-        RightRootLeftVisit(node.right, arrayList);
-        arrayList.add(node.data);
-        RightRootLeftVisit(node.left, arrayList);
+        @Override
+        public void setEnabled(boolean enabled) {
+            setMetricsEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            resetMetrics();
+        }
     }
 
-    private void RootLeftRightVisit(BinaryNode node, ArrayList arrayList) {
-        if (node == null) {
-            return;
+    private final class StackIterator implements Iterator<K> {
+
+        private final VisitMode visitMode;
+        /**
+         * LEFT_ROOT_RIGHT: the next node and its ancestors that are still to visit, RIGHT_ROOT_LEFT
+         * the same mirrored, ROOT_LEFT_RIGHT: the roots of the subtrees still to visit.
+         */
+        private final ArrayDeque<BinaryNode<K>> stack = new ArrayDeque<>();
+        /**
+         * Upper bound of a range in ascending order, null if there is none.
+         */
+        private final K hi;
+        private final boolean hiInclusive;
+        private K lastReturned;
+        private int expectedModCount = modCount;
+
+        StackIterator(VisitMode visitMode) {
+            this.visitMode = visitMode;
+            this.hi = null;
+            this.hiInclusive = false;
+            if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+                if (root != null) {
+                    stack.push(root);
+                }
+            } else {
+                pushPath(root);
+            }
+        }
+
+        /**
+         * Ascending iterator over a range: the stack holds the path to the first item not below lo.
+         */
+        StackIterator(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+            this.visitMode = VisitMode.LEFT_ROOT_RIGHT;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            BinaryNode<K> t = root;
+            while (t != null) {
+                int result = compare(lo, t.data);
+                if (result < 0 || (result == 0 && loInclusive)) {
+                    stack.push(t);
+                    t = result == 0 ? null : t.left;
+                } else {
+                    t = t.right;
+                }
+            }
+        }
+
+        /**
+         * Push a node and the nodes on its left path (on its right path in RIGHT_ROOT_LEFT).
+         */
+        private void pushPath(BinaryNode<K> t) {
+            boolean ascending = visitMode == VisitMode.LEFT_ROOT_RIGHT;
+            while (t != null) {
+                stack.push(t);
+                t = ascending ? t.left : t.right;
+            }
+        }
+
+        /**
+         * Rebuild the stack so that the node with item x is next.
+         */
+        private void seek(K x) {
+            boolean ascending = visitMode == VisitMode.LEFT_ROOT_RIGHT;
+            stack.clear();
+            BinaryNode<K> t = root;
+            while (t != null) {
+                int result = compare(x, t.data);
+                if (result == 0) {
+                    stack.push(t);
+                    return;
+                }
+                if (result < 0) {
+                    if (ascending) {
+                        stack.push(t);
+                    }
+                    t = t.left;
+                } else {
+                    if (!ascending) {
+                        stack.push(t);
+                    }
+                    t = t.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (stack.isEmpty()) {
+                return false;
+            }
+            if (hi == null) {
+                return true;
+            }
+            int result = compare(stack.peek().data, hi);
+            return result < 0 || (result == 0 && hiInclusive);
+        }
+
+        @Override
+        public K next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BinaryNode<K> t = stack.pop();
+            if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+                pushPath(t.right);
+            } else if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+                pushPath(t.left);
+            } else {
+                if (t.right != null) {
+                    stack.push(t.right);
+                }
+                if (t.left != null) {
+                    stack.push(t.left);
+                }
+            }
+            lastReturned = t.data;
+            return lastReturned;
         }
-        arrayList.add(node.data);
 
-        RootLeftRightVisit(node.left, arrayList);
+        @Override
+        public void remove() {
+            if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+                // removing a node with two children moves another item into its place
+                throw new UnsupportedOperationException("remove in " + visitMode + " order");
+            }
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // the nodes on the stack may change, so find the next item again after the remove
+            K nextItem = stack.isEmpty() ? null : stack.peek().data;
+            BinarySearchTree.this.remove(lastReturned);
+            if (nextItem != null) {
+                seek(nextItem);
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
 
-        RootLeftRightVisit(node.right, arrayList);
+    /**
+     * Copy the items in the order of the iterator. The iterator keeps its path on the heap,
+     * so even a degenerated tree does not need a deep call stack.
+     */
+    private void Visit(VisitMode visitMode, ArrayList<K> arrayList) {
+        Iterator<K> iterator = iterator(visitMode);
+        while (iterator.hasNext()) {
+            arrayList.add(iterator.next());
+        }
     }
 
    
@@ -167,69 +915,446 @@ public class BinarySearchTree {
         return root == null;
     }
 
+    /**
+     * Number of items in the tree
+     * @return number of items
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Enable or disable the metrics. While they are disabled the tree does not count anything,
+     * enabling starts the counters from 0.
+     * @param enabled true to count the operations of the tree
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (!enabled) {
+            metrics = null;
+        } else if (metrics == null) {
+            metrics = new MetricsCounters();
+        }
+    }
+
+    /**
+     * Check whether the metrics are enabled.
+     * @return true if the tree counts its operations
+     */
+    public boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * Set the counters of the metrics to 0, if they are enabled.
+     */
+    public void resetMetrics() {
+        if (metrics != null) {
+            metrics = new MetricsCounters();
+        }
+    }
+
+    /**
+     * The counters of insert, remove, find and contains since the metrics were enabled, and the
+     * shape of the tree: how deep an unbalanced tree has become. Walks the whole tree, in O(n).
+     * @return the metrics, with all counters 0 if the metrics are disabled
+     */
+    public TreeMetrics metrics() {
+        // a walk with its own stacks, bounded by the size, so that a JMX thread that reads
+        // while the tree changes can not loop, and a degenerated tree does not overflow the stack
+        int limit = size(root);
+        int count = 0;
+        int height = -1;
+        long depthSum = 0;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BinaryNode<K>[] nodes = (BinaryNode<K>[]) new BinaryNode[64];
+        int[] depths = new int[64];
+        int top = 0;
+        if (root != null) {
+            nodes[top] = root;
+            depths[top++] = 0;
+        }
+        while (top > 0 && count < limit) {
+            BinaryNode<K> t = nodes[--top];
+            int depth = depths[top];
+            count++;
+            depthSum += depth;
+            height = Math.max(height, depth);
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+                depths = Arrays.copyOf(depths, 2 * depths.length);
+            }
+            BinaryNode<K> left = t.left;
+            BinaryNode<K> right = t.right;
+            if (left != null) {
+                nodes[top] = left;
+                depths[top++] = depth + 1;
+            }
+            if (right != null) {
+                nodes[top] = right;
+                depths[top++] = depth + 1;
+            }
+        }
+        return TreeMetrics.of(metrics, 0, count, height, depthSum);
+    }
+
+    /**
+     * JMX view of {@link #metrics()}, see {@link TreeMetricsMXBean}.
+     * @return a new MXBean for this tree, to register with an MBean server
+     */
+    public TreeMetricsMXBean metricsMXBean() {
+        return new MetricsBean();
+    }
+
+    /**
+     * Number of items smaller than x, x does not have to be in the tree.
+     * @param x the item to compare with
+     * @return rank of x, the index x has or would have in toArrayList(VisitMode.LEFT_ROOT_RIGHT)
+     */
+    public int rank(K x) {
+        return rank(x, false);
+    }
+
+    /**
+     * The item with a given rank, the k-th smallest item counted from 0.
+     * @param k rank of the item
+     * @return item at index k of toArrayList(VisitMode.LEFT_ROOT_RIGHT)
+     * @throws IndexOutOfBoundsException if k is negative or not smaller than size()
+     */
+    public K select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size());
+        }
+        BinaryNode<K> t = root;
+        while (true) {
+            int leftSize = size(t.left);
+            if (k < leftSize) {
+                t = t.left;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                t = t.right;
+            } else {
+                return t.data;
+            }
+        }
+    }
+
+    /**
+     * Number of items between lo and hi, both included.
+     * @param lo lowest item of the range
+     * @param hi highest item of the range
+     * @return number of items, 0 if lo is greater than hi
+     */
+    public int countInRange(K lo, K hi) {
+        if (compare(lo, hi) > 0) {
+            return 0;
+        }
+        return rank(hi, true) - rank(lo, false);
+    }
+
+    /**
+     * Internal method to count the items smaller than x, or smaller than or equal to x.
+     * @param x the item to compare with.
+     * @param inclusive true to count x itself.
+     * @return number of items.
+     */
+    private int rank(K x, boolean inclusive) {
+        int rank = 0;
+        BinaryNode<K> t = root;
+        while (t != null) {
+            int result = compare(x, t.data);
+            if (result < 0) {
+                t = t.left;
+            } else if (result > 0) {
+                rank += size(t.left) + 1;
+                t = t.right;
+            } else {
+                return rank + size(t.left) + (inclusive ? 1 : 0);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Internal method to get the size of a subtree.
+     * @param t the node that roots the tree.
+     * @return the number of nodes, 0 if t is null.
+     */
+    private int size(BinaryNode<K> t) {
+        return t == null ? 0 : t.size;
+    }
+
     /**
      * Internal method to get element field.
      * @param t the node.
      * @return the element field or null if t is null.
      */
-    private Comparable elementAt(BinaryNode t) {
+    private K elementAt(BinaryNode<K> t) {
         return t == null ? null : t.data;
     }
 
     /**
-     * Internal method to insert into a subtree.
+     * Internal method to insert into a subtree. The sizes on the path are counted up on the
+     * way down and counted down again if x turns out to be a duplicate, so the tree is walked
+     * with a loop and its depth does not matter.
      * @param x the item to insert.
      * @param t the node that roots the tree.
-     * @return the new root.
+     * @return the depth of the new node, -1 for a duplicate.
      */
-    private BinaryNode insert(Comparable x, BinaryNode t) {
+    private int insert(K x, BinaryNode<K> t) {
         if (t == null) {
-            t = new BinaryNode(x, null, null);
-        } else if (x.compareTo(t.data) < 0) {
-            t.left = insert(x, t.left);
-        } else if (x.compareTo(t.data) > 0) {
-            t.right = insert(x, t.right);
-        } else {
-        }// Duplicate; do nothing
-        return t;
+            // type (and null) check of the first item, the others are checked by the comparisons
+            compare(x, x);
+            root = new BinaryNode<>(x, null, null);
+            return 0;
+        }
+        BinaryNode<K> top = t;
+        int depth = 1;
+        while (true) {
+            int result = compare(x, t.data);
+            if (result == 0) {
+                // Duplicate; do nothing
+                MetricsCounters m = metrics;
+                if (m != null) {
+                    m.comparisons += depth;
+                }
+                adjustSizes(x, top, t, -1);
+                return -1;
+            }
+            t.size++;
+            if (result < 0) {
+                if (t.left == null) {
+                    t.left = new BinaryNode<>(x, null, null);
+                    return depth;
+                }
+                t = t.left;
+            } else {
+                if (t.right == null) {
+                    t.right = new BinaryNode<>(x, null, null);
+                    return depth;
+                }
+                t = t.right;
+            }
+            depth++;
+        }
     }
 
     /**
-     * Internal method to remove from a subtree.
+     * Internal method to remove from a subtree, with a loop like insert.
      * @param x the item to remove.
      * @param t the node that roots the tree.
-     * @return the new root.
+     * @return true if x was found and removed.
      */
-    private BinaryNode remove(Comparable x, BinaryNode t) {
+    private boolean remove(K x, BinaryNode<K> t) {
+        BinaryNode<K> top = t;
+        BinaryNode<K> parent = null;
+        int compared = 0;
+        while (t != null) {
+            int result = compare(x, t.data);
+            compared++;
+            if (result == 0) {
+                break;
+            }
+            t.size--;
+            parent = t;
+            t = result < 0 ? t.left : t.right;
+        }
+        MetricsCounters m = metrics;
+        if (m != null) {
+            m.comparisons += compared;
+        }
         if (t == null) {
-            return t;   // Item not found; do nothing
+            // Item not found; do nothing
+            adjustSizes(x, top, null, +1);
+            return false;
         }
-        if (x.compareTo(t.data) < 0) {
-            t.left = remove(x, t.left);
-        } else if (x.compareTo(t.data) > 0) {
-            t.right = remove(x, t.right);
-        } else if (t.left != null && t.right != null) // Two children
+
+        if (t.left != null && t.right != null) // Two children
         {
-            t.data = findMin(t.right).data;
-            t.right = remove(t.data, t.right);
+            // move the smallest item of the right subtree up and unlink its node instead
+            t.size--;
+            parent = t;
+            BinaryNode<K> min = t.right;
+            while (min.left != null) {
+                min.size--;
+                parent = min;
+                min = min.left;
+            }
+            t.data = min.data;
+            t = min;
+        }
+        BinaryNode<K> child = (t.left != null) ? t.left : t.right;
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == t) {
+            parent.left = child;
         } else {
-            t = (t.left != null) ? t.left : t.right;
+            parent.right = child;
+        }
+        return true;
+    }
+
+    /**
+     * Internal method to rebuild the subtree of the deepest node on the path to x that is out of
+     * weight balance. Called after an insert put x deeper than a scapegoat tree allows, which
+     * means that there is such a node.
+     * @param x the item that was inserted.
+     */
+    private void rebuildScapegoat(K x) {
+        BinaryNode<K> scapegoat = null;
+        BinaryNode<K> scapegoatParent = null;
+        BinaryNode<K> parent = null;
+        BinaryNode<K> t = root;
+        while (true) {
+            int result = compare(x, t.data);
+            if (result == 0) {
+                break;
+            }
+            BinaryNode<K> child = result < 0 ? t.left : t.right;
+            if (child.size > ALPHA * t.size) {
+                scapegoat = t;
+                scapegoatParent = parent;
+            }
+            parent = t;
+            t = child;
+        }
+        if (scapegoat == null) {
+            return;
+        }
+
+        BinaryNode<K> rebuilt = rebuild(scapegoat);
+        if (scapegoatParent == null) {
+            root = rebuilt;
+        } else if (scapegoatParent.left == scapegoat) {
+            scapegoatParent.left = rebuilt;
+        } else {
+            scapegoatParent.right = rebuilt;
+        }
+    }
+
+    /**
+     * Internal method to rebuild a subtree perfectly balanced, in linear time. The nodes are
+     * reused, only their links and sizes change.
+     * @param t the node that roots the tree.
+     * @return the new root.
+     */
+    private BinaryNode<K> rebuild(BinaryNode<K> t) {
+        if (t == null) {
+            return null;
+        }
+        MetricsCounters m = metrics;
+        if (m != null) {
+            m.rebalanceSteps++;
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BinaryNode<K>[] nodes = (BinaryNode<K>[]) new BinaryNode[t.size];
+        flatten(t, nodes, 0);
+        return relink(nodes, 0, nodes.length);
+    }
+
+    /**
+     * Internal method to copy the nodes of a subtree in ascending order into nodes[from] and on.
+     * Only used on subtrees of a scapegoat tree, which are not deep.
+     */
+    private static <K> void flatten(BinaryNode<K> t, BinaryNode<K>[] nodes, int from) {
+        while (t != null) {
+            int index = from + (t.left == null ? 0 : t.left.size);
+            flatten(t.left, nodes, from);
+            nodes[index] = t;
+            from = index + 1;
+            t = t.right;
         }
+    }
+
+    /**
+     * Internal method to link nodes[from] to nodes[to - 1] into a subtree, the middle node is the root.
+     * @return the root of the subtree.
+     */
+    private static <K> BinaryNode<K> relink(BinaryNode<K>[] nodes, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        BinaryNode<K> t = nodes[mid];
+        t.left = relink(nodes, from, mid);
+        t.right = relink(nodes, mid + 1, to);
+        t.size = to - from;
         return t;
     }
 
+    /**
+     * Internal method to correct the sizes on the path to x after an insert or remove that
+     * turned out to change nothing.
+     * @param x the item that was searched.
+     * @param t the node that roots the tree.
+     * @param stop the node where the path ends, null for the end of the tree.
+     * @param delta the correction for each node on the path.
+     */
+    private void adjustSizes(K x, BinaryNode<K> t, BinaryNode<K> stop, int delta) {
+        while (t != stop) {
+            t.size += delta;
+            t = compare(x, t.data) < 0 ? t.left : t.right;
+        }
+    }
+
+    /**
+     * Internal method to find the node with the largest item smaller than x, or smaller than or equal to x.
+     * @param x the item to compare with.
+     * @param inclusive true if the node with item x is a result.
+     * @return the node or null.
+     */
+    private BinaryNode<K> floor(K x, boolean inclusive) {
+        BinaryNode<K> candidate = null;
+        BinaryNode<K> t = root;
+        while (t != null) {
+            int result = compare(x, t.data);
+            if (result > 0) {
+                candidate = t;
+                t = t.right;
+            } else if (result < 0 || !inclusive) {
+                t = t.left;
+            } else {
+                return t;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Internal method to find the node with the smallest item greater than x, or greater than or equal to x.
+     * @param x the item to compare with.
+     * @param inclusive true if the node with item x is a result.
+     * @return the node or null.
+     */
+    private BinaryNode<K> ceiling(K x, boolean inclusive) {
+        BinaryNode<K> candidate = null;
+        BinaryNode<K> t = root;
+        while (t != null) {
+            int result = compare(x, t.data);
+            if (result < 0) {
+                candidate = t;
+                t = t.left;
+            } else if (result > 0 || !inclusive) {
+                t = t.right;
+            } else {
+                return t;
+            }
+        }
+        return candidate;
+    }
+
     /**
      * Internal method to find the smallest item in a subtree.
      * @param t the node that roots the tree.
      * @return node containing the smallest item.
      */
-    private BinaryNode findMin(BinaryNode t) {
-        if (t == null) {
-            return null;
-        } else if (t.left == null) {
-            return t;
+    private BinaryNode<K> findMin(BinaryNode<K> t) {
+        if (t != null) {
+            while (t.left != null) {
+                t = t.left;
+            }
         }
-        return findMin(t.left);
+
+        return t;
     }
 
     /**
@@ -237,7 +1362,7 @@ public class BinarySearchTree {
      * @param t the node that roots the tree.
      * @return node containing the largest item.
      */
-    private BinaryNode findMax(BinaryNode t) {
+    private BinaryNode<K> findMax(BinaryNode<K> t) {
         if (t != null) {
             while (t.right != null) {
                 t = t.right;
@@ -248,22 +1373,105 @@ public class BinarySearchTree {
     }
 
     /**
-     * Internal method to find an item in a subtree.
+     * Internal method to find an item in a subtree, with the natural ordering of the items.
+     * The comparator has its own loop in findCompared, so each loop has a single compare
+     * call that the JIT can inline.
      * @param x is item to search for.
      * @param t the node that roots the tree.
      * @return node containing the matched item.
      */
-    private BinaryNode find(Comparable x, BinaryNode t) {
-        if (t == null) {
-            return null;
+    @SuppressWarnings("unchecked")
+    private BinaryNode<K> find(K x, BinaryNode<K> t) {
+        while (t != null) {
+            int result = ((Comparable<? super K>) x).compareTo(t.data);
+            if (result < 0) {
+                t = t.left;
+            } else if (result > 0) {
+                t = t.right;
+            } else {
+                return t;    // Match
+            }
         }
-        if (x.compareTo(t.data) < 0) {
-            return find(x, t.left);
-        } else if (x.compareTo(t.data) > 0) {
-            return find(x, t.right);
-        } else {
-            return t;    // Match
+        return null;
+    }
+
+    /**
+     * Internal method to find an item in a subtree, with the comparator of the tree.
+     * @param x is item to search for.
+     * @param t the node that roots the tree.
+     * @return node containing the matched item.
+     */
+    private BinaryNode<K> findCompared(K x, BinaryNode<K> t) {
+        while (t != null) {
+            int result = comparator.compare(x, t.data);
+            if (result < 0) {
+                t = t.left;
+            } else if (result > 0) {
+                t = t.right;
+            } else {
+                return t;    // Match
+            }
         }
+        return null;
     }
-    private BinaryNode root;
+
+    /**
+     * Internal method to find an item and count the comparisons, for enabled metrics.
+     * @param x is item to search for.
+     * @param m the counters of the tree.
+     * @return node containing the matched item.
+     */
+    private BinaryNode<K> find(K x, MetricsCounters m) {
+        int compared = 0;
+        BinaryNode<K> t = root;
+        while (t != null) {
+            int result = compare(x, t.data);
+            compared++;
+            if (result < 0) {
+                t = t.left;
+            } else if (result > 0) {
+                t = t.right;
+            } else {
+                break;    // Match
+            }
+        }
+        m.find(compared, t != null);
+        return t;
+    }
+
+    /**
+     * Internal method to compare two items with the comparator, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * The comparator that orders the items.
+     * @return the comparator, null for the natural ordering of the items
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+    private BinaryNode<K> root;
+    /**
+     * The order of the items, null for their natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+    private final BalanceMode balanceMode;
+    /**
+     * Largest size since the tree was last rebuilt as a whole, for BalanceMode.SCAPEGOAT.
+     */
+    private int maxSize;
+    /**
+     * Number of changes, lets the iterators fail fast.
+     */
+    private int modCount;
+    /**
+     * The counters of {@link #metrics()}, null while the metrics are disabled. Not volatile, a
+     * volatile read costs measurable time in a small tree; a switch by the MXBean from another
+     * thread is seen by the owner of the tree without a guarantee of when.
+     */
+    private MetricsCounters metrics;
 }
@@ -0,0 +1,117 @@
+package JDev.Trees;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Buffered binary input from a channel, the counterpart of {@link ChannelOutput}.
+ * The channel is read in blocks of the buffer size, only as far as the reads need.
+ */
+public final class ChannelInput {
+
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public ChannelInput(ReadableByteChannel channel) {
+        this(channel, ChannelOutput.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel The channel to read from, a blocking channel.
+     * @param bufferSize The size of the buffer, at least 16 bytes.
+     */
+    public ChannelInput(ReadableByteChannel channel, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size " + bufferSize + " < 16");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        buffer.flip();
+    }
+
+    public int readByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            fill(1);
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Read an int of 4 bytes, big-endian.
+     */
+    public int readInt() throws IOException {
+        if (buffer.remaining() < 4) {
+            fill(4);
+        }
+        return buffer.getInt();
+    }
+
+    /**
+     * Read an unsigned varint.
+     * @throws IOException if the varint is longer than 10 bytes or the channel ends
+     */
+    public long readVarLong() throws IOException {
+        if (buffer.remaining() < MAX_VARINT_SIZE) {
+            // near the end of the buffer or of the channel: byte by byte
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Read a zigzag varint.
+     */
+    public long readSignedVarLong() throws IOException {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public void readBytes(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                fill(1);
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Read from the channel until at least count bytes are buffered.
+     * @throws EOFException if the channel ends before
+     */
+    private void fill(int count) throws IOException {
+        buffer.compact();
+        try {
+            while (buffer.position() < count) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException();
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+    }
+}
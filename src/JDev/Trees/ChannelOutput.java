@@ -0,0 +1,100 @@
+package JDev.Trees;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered binary output to a channel, for {@link TreeSerializer} and the {@link KeyCodec}s.
+ * Numbers are written as varints: 7 bits per byte, least significant group first, the high bit
+ * set on all bytes but the last. The buffer is written to the channel when it is full and by flush.
+ */
+public final class ChannelOutput {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Longest varint of a long.
+     */
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public ChannelOutput(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel The channel to write to, a blocking channel.
+     * @param bufferSize The size of the buffer, at least 16 bytes.
+     */
+    public ChannelOutput(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size " + bufferSize + " < 16");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    public void writeByte(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) b);
+    }
+
+    /**
+     * Write an int as 4 bytes, big-endian.
+     */
+    public void writeInt(int v) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush();
+        }
+        buffer.putInt(v);
+    }
+
+    /**
+     * Write a long as unsigned varint, 1 byte for 0 to 127, up to 10 bytes.
+     */
+    public void writeVarLong(long v) throws IOException {
+        if (buffer.remaining() < MAX_VARINT_SIZE) {
+            flush();
+        }
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    /**
+     * Write a long as zigzag varint, so that small negative numbers are short too.
+     */
+    public void writeSignedVarLong(long v) throws IOException {
+        writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    public void writeBytes(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Write the buffered bytes to the channel.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
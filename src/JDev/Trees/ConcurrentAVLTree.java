@@ -0,0 +1,975 @@
+package JDev.Trees;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Thread safe AVL-tree for any number of reading and writing threads.
+ * <p>
+ * This is the relaxed balance AVL-tree of Bronson, Casper, Chafi and Olukotun,
+ * "A Practical Concurrent Binary Search Tree" (PPoPP 2010):
+ * <ul>
+ * <li>Readers take no locks. Every node has a version that changes when the node moves down in a
+ * rotation ("shrinks"), and a search validates the version of each node after it has read the
+ * next link (optimistic hand-over-hand validation). A failed validation repeats only the last step.</li>
+ * <li>Writers lock only the nodes they change (at most the parent, the node and two children for
+ * a double rotation), so writers in different parts of the tree do not block each other.</li>
+ * <li>A removed node with two children stays in the tree as a routing node and is unlinked
+ * later, when it has lost a child.</li>
+ * <li>Heights are repaired after the update by the thread that damaged them; the tree may be
+ * out of balance for a moment, but is a correct AVL-tree again when all updates are finished.
+ * Unlike the paper a rotation reports every node it may have damaged, not only the deepest one.</li>
+ * </ul>
+ * The iterator visits the keys in ascending order and is weakly consistent: it never throws
+ * ConcurrentModificationException, returns every key that is in the tree during the whole
+ * iteration and may or may not return keys inserted or removed in the meantime.
+ *
+ * @param <K> the type of the keys
+ */
+public class ConcurrentAVLTree<K> implements Iterable<K> {
+
+    // bits of Node.shrinkOVL
+    private static final long UNLINKED = 1L;
+    private static final long SHRINKING = 2L;
+    private static final long SHRINK_COUNT_INCR = 4L;
+
+    private static final int SPIN_COUNT = 100;
+    private static final int YIELD_COUNT = 0;
+
+    // results of nodeCondition besides the new height
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    private static final Object RETRY = new Object();
+
+    private static final class Node<K> {
+
+        final K key;
+        volatile int height;
+        /**
+         * false for a routing node: the key was removed, the node only guides the searches.
+         */
+        volatile boolean present;
+        volatile long shrinkOVL;
+        volatile Node<K> parent;
+        volatile Node<K> left;
+        volatile Node<K> right;
+
+        Node(K key, Node<K> parent) {
+            this.key = key;
+            this.height = 1;
+            this.present = true;
+            this.parent = parent;
+        }
+
+        Node<K> child(boolean leftSide) {
+            return leftSide ? left : right;
+        }
+
+        /**
+         * Wait until a rotation that started with version ovl is finished.
+         */
+        void waitUntilShrinkCompleted(long ovl) {
+            if (!isShrinking(ovl)) {
+                return;
+            }
+
+            for (int tries = 0; tries < SPIN_COUNT; tries++) {
+                if (shrinkOVL != ovl) {
+                    return;
+                }
+            }
+
+            for (int tries = 0; tries < YIELD_COUNT; tries++) {
+                Thread.yield();
+                if (shrinkOVL != ovl) {
+                    return;
+                }
+            }
+
+            // the rotating thread holds the lock of this node until the rotation is complete
+            synchronized (this) {
+            }
+        }
+    }
+
+    /**
+     * Sentinel without key, the root of the tree is its right child.
+     */
+    private final Node<K> rootHolder = new Node<>(null, null);
+    /**
+     * The order of the keys, null for their natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * New empty tree, the keys are ordered by their natural ordering and must implement Comparable.
+     */
+    public ConcurrentAVLTree() {
+        this(null);
+    }
+
+    /**
+     * New empty tree with the keys ordered by a comparator.
+     *
+     * @param comparator The order of the keys, null for their natural ordering.
+     */
+    public ConcurrentAVLTree(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Compare two keys with the comparator of the tree, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    private static boolean isShrinking(long ovl) {
+        return (ovl & SHRINKING) != 0;
+    }
+
+    private static boolean isUnlinked(long ovl) {
+        return (ovl & UNLINKED) != 0;
+    }
+
+    private static boolean isShrinkingOrUnlinked(long ovl) {
+        return (ovl & (SHRINKING | UNLINKED)) != 0;
+    }
+
+    private static long beginShrink(long ovl) {
+        return ovl | SHRINKING;
+    }
+
+    private static long endShrink(long ovl) {
+        return ovl + SHRINK_COUNT_INCR;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Find element
+     * @param x Key to find.
+     * @return Key if found, null if not found.
+     */
+    @SuppressWarnings("unchecked")
+    public K find(K x) {
+        while (true) {
+            Node<K> holder = rootHolder;
+            Node<K> right = holder.right;
+            if (right == null) {
+                return null;
+            }
+            int rightCmp = compare(x, right.key);
+            if (rightCmp == 0) {
+                return right.present ? right.key : null;
+            }
+            long ovl = right.shrinkOVL;
+            if (isShrinkingOrUnlinked(ovl)) {
+                right.waitUntilShrinkCompleted(ovl);
+            } else if (right == holder.right) {
+                Object result = attemptFind(x, right, rightCmp < 0, ovl);
+                if (result != RETRY) {
+                    return (K) result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find element if it is a basic type
+     * @param x Key to find
+     * @param isBasicDataType true or false is oke
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(K x, boolean isBasicDataType) {
+        return find(x) != null;
+    }
+
+    /**
+     * Search below node, which was reached with version nodeOVL.
+     * @return the key, null or RETRY if the caller must validate its own step again
+     */
+    private Object attemptFind(K x, Node<K> node, boolean leftSide, long nodeOVL) {
+        while (true) {
+            Node<K> child = node.child(leftSide);
+
+            if (child == null) {
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+                // the empty link was read while node was valid: x is not in the tree
+                return null;
+            }
+
+            int childCmp = compare(x, child.key);
+            if (childCmp == 0) {
+                return child.present ? child.key : null;
+            }
+
+            long childOVL = child.shrinkOVL;
+            if (isShrinkingOrUnlinked(childOVL)) {
+                child.waitUntilShrinkCompleted(childOVL);
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+                // else read the link again
+            } else if (child != node.child(leftSide)) {
+                // the link changed before childOVL could protect it
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+            } else {
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+                // the step to child is valid, from now on only child must be validated
+                Object result = attemptFind(x, child, childCmp < 0, childOVL);
+                if (result != RETRY) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x The key of the new node.
+     */
+    public void insert(K x) {
+        update(x, true);
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(K x) {
+        update(x, false);
+    }
+
+    /**
+     * Removes all element, one key at a time in ascending order. Every remove is atomic on its own:
+     * a key inserted by another thread at the same time is removed or stays in the tree, but an
+     * insert that returned is never lost.
+     */
+    public void removeAll() {
+        K x = higher(null);
+        while (x != null) {
+            remove(x);
+            x = higher(x);
+        }
+    }
+
+    /**
+     * Check tree is empty
+     * @return
+     */
+    public boolean isEmpty() {
+        return higher(null) == null;
+    }
+
+    /**
+     * Insert or remove a key.
+     * @param insert true to insert, false to remove
+     * @return true if the tree was changed
+     */
+    private boolean update(K x, boolean insert) {
+        while (true) {
+            Node<K> holder = rootHolder;
+            Node<K> right = holder.right;
+            if (right == null) {
+                if (!insert) {
+                    return false;
+                }
+                // type (and null) check of the first key, the others are checked by the comparisons
+                compare(x, x);
+                if (attemptInsertIntoEmpty(holder, x)) {
+                    return true;
+                }
+            } else {
+                long ovl = right.shrinkOVL;
+                if (isShrinkingOrUnlinked(ovl)) {
+                    right.waitUntilShrinkCompleted(ovl);
+                } else if (right == holder.right) {
+                    Object result = attemptUpdate(x, insert, holder, right, ovl);
+                    if (result != RETRY) {
+                        return result == Boolean.TRUE;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean attemptInsertIntoEmpty(Node<K> holder, K x) {
+        synchronized (holder) {
+            if (holder.right == null) {
+                holder.right = new Node<>(x, holder);
+                holder.height = 2;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Update below node, which was reached from parent with version nodeOVL.
+     * @return Boolean.TRUE if changed, Boolean.FALSE if not, RETRY if the caller must validate its step again
+     */
+    private Object attemptUpdate(K x, boolean insert, Node<K> parent, Node<K> node, long nodeOVL) {
+        int cmp = compare(x, node.key);
+        if (cmp == 0) {
+            return attemptNodeUpdate(insert, parent, node);
+        }
+
+        boolean leftSide = cmp < 0;
+
+        while (true) {
+            Node<K> child = node.child(leftSide);
+
+            if (node.shrinkOVL != nodeOVL) {
+                return RETRY;
+            }
+
+            if (child == null) {
+                // x is not in the tree
+                if (!insert) {
+                    return Boolean.FALSE;
+                }
+
+                boolean success;
+                Node<K> damaged;
+                synchronized (node) {
+                    // with the lock on node no rotation can move it any more
+                    if (node.shrinkOVL != nodeOVL) {
+                        return RETRY;
+                    }
+
+                    if (node.child(leftSide) != null) {
+                        // lost a race with another insert, read the link again
+                        success = false;
+                        damaged = null;
+                    } else {
+                        Node<K> newNode = new Node<>(x, node);
+                        if (leftSide) {
+                            node.left = newNode;
+                        } else {
+                            node.right = newNode;
+                        }
+                        success = true;
+                        damaged = fixHeight_nl(node);
+                    }
+                }
+                if (success) {
+                    fixHeightAndRebalance(damaged);
+                    return Boolean.TRUE;
+                }
+            } else {
+                long childOVL = child.shrinkOVL;
+                if (isShrinkingOrUnlinked(childOVL)) {
+                    child.waitUntilShrinkCompleted(childOVL);
+                } else if (child != node.child(leftSide)) {
+                    // the link changed before childOVL could protect it, read it again
+                } else {
+                    if (node.shrinkOVL != nodeOVL) {
+                        return RETRY;
+                    }
+                    Object result = attemptUpdate(x, insert, node, child, childOVL);
+                    if (result != RETRY) {
+                        return result;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert or remove the key of an existing node. The parent is only needed to unlink the node.
+     */
+    private Object attemptNodeUpdate(boolean insert, Node<K> parent, Node<K> node) {
+        if (!insert) {
+            if (!node.present) {
+                return Boolean.FALSE;
+            }
+
+            if (node.left == null || node.right == null) {
+                // the node can be unlinked, that needs the lock of the parent first
+                Node<K> damaged;
+                synchronized (parent) {
+                    if (isUnlinked(parent.shrinkOVL) || node.parent != parent) {
+                        return RETRY;
+                    }
+                    synchronized (node) {
+                        if (!node.present) {
+                            return Boolean.FALSE;
+                        }
+                        if (!attemptUnlink_nl(parent, node)) {
+                            return RETRY;
+                        }
+                    }
+                    damaged = fixHeight_nl(parent);
+                }
+                fixHeightAndRebalance(damaged);
+                return Boolean.TRUE;
+            }
+        }
+
+        synchronized (node) {
+            if (isUnlinked(node.shrinkOVL)) {
+                return RETRY;
+            }
+            if (node.present == insert) {
+                return Boolean.FALSE;
+            }
+            if (!insert && (node.left == null || node.right == null)) {
+                // a child was removed in the meantime, unlink instead
+                return RETRY;
+            }
+            // remove by turning the node into a routing node, or insert by reviving a routing node
+            node.present = insert;
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Splice out a node with at most one child. parent and node must be locked.
+     * Does not change any heights.
+     * @return false if node is no longer a child of parent or got a second child
+     */
+    private boolean attemptUnlink_nl(Node<K> parent, Node<K> node) {
+        Node<K> parentL = parent.left;
+        Node<K> parentR = parent.right;
+        if (parentL != node && parentR != node) {
+            return false;
+        }
+
+        Node<K> left = node.left;
+        Node<K> right = node.right;
+        if (left != null && right != null) {
+            return false;
+        }
+        Node<K> splice = left != null ? left : right;
+
+        if (parentL == node) {
+            parent.left = splice;
+        } else {
+            parent.right = splice;
+        }
+        if (splice != null) {
+            splice.parent = parent;
+        }
+
+        node.shrinkOVL = UNLINKED;
+        node.present = false;
+        return true;
+    }
+
+    /**
+     * What a node needs, read without locks.
+     * @return UNLINK_REQUIRED, REBALANCE_REQUIRED, NOTHING_REQUIRED or the new height of the node
+     */
+    private int nodeCondition(Node<K> node) {
+        Node<K> nL = node.left;
+        Node<K> nR = node.right;
+
+        if ((nL == null || nR == null) && !node.present) {
+            return UNLINK_REQUIRED;
+        }
+
+        int hN = node.height;
+        int hL0 = height(nL);
+        int hR0 = height(nR);
+
+        // Every thread that damages a node repairs it, so either this read was consistent
+        // or another thread is responsible for the node or one of its children.
+        int hNRepl = 1 + Math.max(hL0, hR0);
+        int bal = hL0 - hR0;
+
+        if (bal < -1 || bal > 1) {
+            return REBALANCE_REQUIRED;
+        }
+
+        return hN != hNRepl ? hNRepl : NOTHING_REQUIRED;
+    }
+
+    /**
+     * Repair heights, routing nodes and balance from node up to the root, as far as needed.
+     * A rotation can damage more than one node, the others wait on a stack until the
+     * repair of the deepest one is done.
+     */
+    private void fixHeightAndRebalance(Node<K> node) {
+        ArrayDeque<Node<K>> pending = null;
+        while (true) {
+            int condition = NOTHING_REQUIRED;
+            if (node != null && node.parent != null && !isUnlinked(node.shrinkOVL)) {
+                condition = nodeCondition(node);
+            }
+            if (condition == NOTHING_REQUIRED) {
+                if (pending == null || pending.isEmpty()) {
+                    return;
+                }
+                node = pending.pop();
+                continue;
+            }
+
+            if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+                synchronized (node) {
+                    node = fixHeight_nl(node);
+                }
+            } else {
+                Node<K> nParent = node.parent;
+                synchronized (nParent) {
+                    if (!isUnlinked(nParent.shrinkOVL) && node.parent == nParent) {
+                        synchronized (node) {
+                            if (pending == null) {
+                                pending = new ArrayDeque<>();
+                            }
+                            node = rebalance_nl(nParent, node, pending);
+                        }
+                    }
+                    // else try again with the new parent
+                }
+            }
+        }
+    }
+
+    /**
+     * Fix the height of a locked node.
+     * @return the lowest damaged node this thread is responsible for, null if nothing is left to do
+     */
+    private Node<K> fixHeight_nl(Node<K> node) {
+        int c = nodeCondition(node);
+        switch (c) {
+            case REBALANCE_REQUIRED:
+            case UNLINK_REQUIRED:
+                // can not be repaired with the lock of the node alone
+                return node;
+            case NOTHING_REQUIRED:
+                return null;
+            default:
+                node.height = c;
+                // the parent is damaged now
+                return node.parent;
+        }
+    }
+
+    /**
+     * nParent and n must be locked.
+     * @param pending receives the damaged nodes besides the returned one
+     * @return the deepest damaged node or null
+     */
+    private Node<K> rebalance_nl(Node<K> nParent, Node<K> n, ArrayDeque<Node<K>> pending) {
+        Node<K> nL = n.left;
+        Node<K> nR = n.right;
+
+        if ((nL == null || nR == null) && !n.present) {
+            if (attemptUnlink_nl(nParent, n)) {
+                return fixHeight_nl(nParent);
+            }
+            return n;
+        }
+
+        int hN = n.height;
+        int hL0 = height(nL);
+        int hR0 = height(nR);
+        int hNRepl = 1 + Math.max(hL0, hR0);
+        int bal = hL0 - hR0;
+
+        if (bal > 1) {
+            return rebalanceToRight_nl(nParent, n, nL, hR0, pending);
+        } else if (bal < -1) {
+            return rebalanceToLeft_nl(nParent, n, nR, hL0, pending);
+        } else if (hNRepl != hN) {
+            n.height = hNRepl;
+            return fixHeight_nl(nParent);
+        } else {
+            return null;
+        }
+    }
+
+    private Node<K> rebalanceToRight_nl(Node<K> nParent, Node<K> n, Node<K> nL, int hR0, ArrayDeque<Node<K>> pending) {
+        // the left side is too high: rotate right, first rotate nL left if nL.right is higher than nL.left
+        synchronized (nL) {
+            int hL = nL.height;
+            if (hL - hR0 <= 1) {
+                return n;
+            }
+            Node<K> nLR = nL.right;
+            int hLL0 = height(nL.left);
+            int hLR0 = height(nLR);
+            if (hLL0 >= hLR0) {
+                return rotateRight_nl(nParent, n, nL, hR0, hLL0, nLR, hLR0, pending);
+            }
+            synchronized (nLR) {
+                int hLR = nLR.height;
+                if (hLL0 >= hLR) {
+                    return rotateRight_nl(nParent, n, nL, hR0, hLL0, nLR, hLR, pending);
+                }
+                int hLRL = height(nLR.left);
+                int b = hLL0 - hLRL;
+                if (b >= -1 && b <= 1 && !((hLL0 == 0 || hLRL == 0) && !nL.present)) {
+                    // nL will not be damaged by the double rotation
+                    return rotateRightOverLeft_nl(nParent, n, nL, hR0, hLL0, nLR, hLRL, pending);
+                }
+                // The double rotation would damage nL, so do its first half on its own:
+                // rotate nL left even if nL is balanced, n is repaired with a single rotation later.
+                pending.push(n);
+                return rotateLeft_nl(n, nL, hLL0, nLR, nLR.left, hLRL, height(nLR.right), pending);
+            }
+        }
+    }
+
+    private Node<K> rebalanceToLeft_nl(Node<K> nParent, Node<K> n, Node<K> nR, int hL0, ArrayDeque<Node<K>> pending) {
+        synchronized (nR) {
+            int hR = nR.height;
+            if (hL0 - hR >= -1) {
+                return n;
+            }
+            Node<K> nRL = nR.left;
+            int hRL0 = height(nRL);
+            int hRR0 = height(nR.right);
+            if (hRR0 >= hRL0) {
+                return rotateLeft_nl(nParent, n, hL0, nR, nRL, hRL0, hRR0, pending);
+            }
+            synchronized (nRL) {
+                int hRL = nRL.height;
+                if (hRR0 >= hRL) {
+                    return rotateLeft_nl(nParent, n, hL0, nR, nRL, hRL, hRR0, pending);
+                }
+                int hRLR = height(nRL.right);
+                int b = hRR0 - hRLR;
+                if (b >= -1 && b <= 1 && !((hRR0 == 0 || hRLR == 0) && !nR.present)) {
+                    return rotateLeftOverRight_nl(nParent, n, hL0, nR, nRL, hRR0, hRLR, pending);
+                }
+                pending.push(n);
+                return rotateRight_nl(n, nR, nRL, hRR0, height(nRL.left), nRL.right, hRLR, pending);
+            }
+        }
+    }
+
+    private Node<K> rotateRight_nl(Node<K> nParent, Node<K> n, Node<K> nL, int hR, int hLL, Node<K> nLR, int hLR, ArrayDeque<Node<K>> pending) {
+        long nodeOVL = n.shrinkOVL;
+        Node<K> nPL = nParent.left;
+
+        n.shrinkOVL = beginShrink(nodeOVL);
+
+        // Links from the shrinking node change first, links to it last, so a search can not
+        // pass the node without seeing its version change.
+        n.left = nLR;
+        if (nLR != null) {
+            nLR.parent = n;
+        }
+
+        nL.right = n;
+        n.parent = nL;
+
+        if (nPL == n) {
+            nParent.left = nL;
+        } else {
+            nParent.right = nL;
+        }
+        nL.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hLR, hR);
+        n.height = hNRepl;
+        nL.height = 1 + Math.max(hLL, hNRepl);
+
+        n.shrinkOVL = endShrink(nodeOVL);
+
+        // n is the deepest damaged node, then nL, then nParent
+        int balN = hLR - hR;
+        boolean nDamaged = balN < -1 || balN > 1 || ((nLR == null || hR == 0) && !n.present);
+        int balL = hLL - hNRepl;
+        boolean nLDamaged = balL < -1 || balL > 1 || (hLL == 0 && !nL.present);
+        return damaged(nParent, nL, nLDamaged, n, nDamaged, pending);
+    }
+
+    private Node<K> rotateLeft_nl(Node<K> nParent, Node<K> n, int hL, Node<K> nR, Node<K> nRL, int hRL, int hRR, ArrayDeque<Node<K>> pending) {
+        long nodeOVL = n.shrinkOVL;
+        Node<K> nPL = nParent.left;
+
+        n.shrinkOVL = beginShrink(nodeOVL);
+
+        n.right = nRL;
+        if (nRL != null) {
+            nRL.parent = n;
+        }
+
+        nR.left = n;
+        n.parent = nR;
+
+        if (nPL == n) {
+            nParent.left = nR;
+        } else {
+            nParent.right = nR;
+        }
+        nR.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hL, hRL);
+        n.height = hNRepl;
+        nR.height = 1 + Math.max(hNRepl, hRR);
+
+        n.shrinkOVL = endShrink(nodeOVL);
+
+        int balN = hRL - hL;
+        boolean nDamaged = balN < -1 || balN > 1 || ((nRL == null || hL == 0) && !n.present);
+        int balR = hRR - hNRepl;
+        boolean nRDamaged = balR < -1 || balR > 1 || (hRR == 0 && !nR.present);
+        return damaged(nParent, nR, nRDamaged, n, nDamaged, pending);
+    }
+
+    private Node<K> rotateRightOverLeft_nl(Node<K> nParent, Node<K> n, Node<K> nL, int hR, int hLL, Node<K> nLR, int hLRL, ArrayDeque<Node<K>> pending) {
+        long nodeOVL = n.shrinkOVL;
+        long leftOVL = nL.shrinkOVL;
+
+        Node<K> nPL = nParent.left;
+        Node<K> nLRL = nLR.left;
+        Node<K> nLRR = nLR.right;
+        int hLRR = height(nLRR);
+
+        n.shrinkOVL = beginShrink(nodeOVL);
+        nL.shrinkOVL = beginShrink(leftOVL);
+
+        n.left = nLRR;
+        if (nLRR != null) {
+            nLRR.parent = n;
+        }
+
+        nL.right = nLRL;
+        if (nLRL != null) {
+            nLRL.parent = nL;
+        }
+
+        nLR.left = nL;
+        nL.parent = nLR;
+        nLR.right = n;
+        n.parent = nLR;
+
+        if (nPL == n) {
+            nParent.left = nLR;
+        } else {
+            nParent.right = nLR;
+        }
+        nLR.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hLRR, hR);
+        n.height = hNRepl;
+        int hLRepl = 1 + Math.max(hLL, hLRL);
+        nL.height = hLRepl;
+        nLR.height = 1 + Math.max(hLRepl, hNRepl);
+
+        nL.shrinkOVL = endShrink(leftOVL);
+        n.shrinkOVL = endShrink(nodeOVL);
+
+        // the caller made sure that nL is not damaged
+        int balN = hLRR - hR;
+        boolean nDamaged = balN < -1 || balN > 1 || ((nLRR == null || hR == 0) && !n.present);
+        int balLR = hLRepl - hNRepl;
+        boolean nLRDamaged = balLR < -1 || balLR > 1;
+        return damaged(nParent, nLR, nLRDamaged, n, nDamaged, pending);
+    }
+
+    private Node<K> rotateLeftOverRight_nl(Node<K> nParent, Node<K> n, int hL, Node<K> nR, Node<K> nRL, int hRR, int hRLR, ArrayDeque<Node<K>> pending) {
+        long nodeOVL = n.shrinkOVL;
+        long rightOVL = nR.shrinkOVL;
+
+        Node<K> nPL = nParent.left;
+        Node<K> nRLL = nRL.left;
+        int hRLL = height(nRLL);
+        Node<K> nRLR = nRL.right;
+
+        n.shrinkOVL = beginShrink(nodeOVL);
+        nR.shrinkOVL = beginShrink(rightOVL);
+
+        n.right = nRLL;
+        if (nRLL != null) {
+            nRLL.parent = n;
+        }
+
+        nR.left = nRLR;
+        if (nRLR != null) {
+            nRLR.parent = nR;
+        }
+
+        nRL.right = nR;
+        nR.parent = nRL;
+        nRL.left = n;
+        n.parent = nRL;
+
+        if (nPL == n) {
+            nParent.left = nRL;
+        } else {
+            nParent.right = nRL;
+        }
+        nRL.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hL, hRLL);
+        n.height = hNRepl;
+        int hRRepl = 1 + Math.max(hRLR, hRR);
+        nR.height = hRRepl;
+        nRL.height = 1 + Math.max(hNRepl, hRRepl);
+
+        n.shrinkOVL = endShrink(nodeOVL);
+        nR.shrinkOVL = endShrink(rightOVL);
+
+        int balN = hRLL - hL;
+        boolean nDamaged = balN < -1 || balN > 1 || ((nRLL == null || hL == 0) && !n.present);
+        int balRL = hRRepl - hNRepl;
+        boolean nRLDamaged = balRL < -1 || balRL > 1;
+        return damaged(nParent, nRL, nRLDamaged, n, nDamaged, pending);
+    }
+
+    /**
+     * Result of a rotation below nParent: top is the new child of nParent, bottom the node that moved down.
+     * If neither is damaged, nParent is fixed right away. Otherwise the deepest damaged node is returned
+     * and the others are left on the stack, nParent always, because the height of its child may have changed.
+     */
+    private Node<K> damaged(Node<K> nParent, Node<K> top, boolean topDamaged, Node<K> bottom, boolean bottomDamaged, ArrayDeque<Node<K>> pending) {
+        if (!topDamaged && !bottomDamaged) {
+            return fixHeight_nl(nParent);
+        }
+        pending.push(nParent);
+        if (topDamaged && bottomDamaged) {
+            pending.push(top);
+        }
+        return bottomDamaged ? bottom : top;
+    }
+
+    /**
+     * Smallest key in the tree greater than x.
+     * @param x the lower bound, null for the smallest key of the tree
+     * @return the key or null if there is none
+     */
+    private K higher(K x) {
+        while (true) {
+            Node<K> node = higherNode(x);
+            if (node == null) {
+                return null;
+            }
+            K key = node.key;
+            if (node.present) {
+                return key;
+            }
+            // a routing node, continue behind it
+            x = key;
+        }
+    }
+
+    /**
+     * Node with the smallest key greater than x, routing nodes included.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<K> higherNode(K x) {
+        while (true) {
+            Node<K> holder = rootHolder;
+            Node<K> right = holder.right;
+            if (right == null) {
+                return null;
+            }
+            long ovl = right.shrinkOVL;
+            if (isShrinkingOrUnlinked(ovl)) {
+                right.waitUntilShrinkCompleted(ovl);
+            } else if (right == holder.right) {
+                Object result = attemptHigher(x, right, ovl, null);
+                if (result != RETRY) {
+                    return (Node<K>) result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Search the successor of x below node, with the same validation as attemptFind.
+     * @param candidate the node where the search last went left, the successor if node has no better one
+     */
+    private Object attemptHigher(K x, Node<K> node, long nodeOVL, Node<K> candidate) {
+        boolean leftSide = x == null || compare(x, node.key) < 0;
+        if (leftSide) {
+            candidate = node;
+        }
+
+        while (true) {
+            Node<K> child = node.child(leftSide);
+
+            if (child == null) {
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+                return candidate;
+            }
+
+            long childOVL = child.shrinkOVL;
+            if (isShrinkingOrUnlinked(childOVL)) {
+                child.waitUntilShrinkCompleted(childOVL);
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+            } else if (child != node.child(leftSide)) {
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+            } else {
+                if (node.shrinkOVL != nodeOVL) {
+                    return RETRY;
+                }
+                Object result = attemptHigher(x, child, childOVL, candidate);
+                if (result != RETRY) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterator over the keys in ascending order. Each step is a search for the next key,
+     * so the iterator keeps no nodes and works while other threads change the tree.
+     * @return the iterator, remove() is supported
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<K>() {
+
+            private K next = higher(null);
+            private K last;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public K next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = higher(last);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ConcurrentAVLTree.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
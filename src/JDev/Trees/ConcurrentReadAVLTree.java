@@ -0,0 +1,289 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread safe AVL-tree for read-mostly use: any number of threads may call find and the
+ * traversal methods without taking a lock, while insert and remove are serialized.
+ * <p>
+ * Readers walk the nodes of an {@link AVLTree} optimistically and validate afterwards that no
+ * writer was active in the meantime (a sequence lock). A reader that raced with a rotation
+ * throws its result away and tries again; after a few failed attempts it takes the read lock,
+ * so a reader is never starved by a steady stream of writes. A torn rotation is never returned.
+ *
+ * @param <K> the type of the keys
+ */
+public class ConcurrentReadAVLTree<K> {
+
+    /**
+     * Optimistic attempts before a reader falls back to the read lock.
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 4;
+
+    /**
+     * An AVL-tree of 2^31 nodes is less than 46 levels high, a longer path means a torn read.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * A traversal checks every so many nodes if it is still valid, so it can not run in circles.
+     */
+    private static final int VALIDATE_INTERVAL = 1024;
+
+    private static final Object RETRY = new Object();
+
+    private final AVLTree<K> tree;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * New empty tree, the keys are ordered by their natural ordering and must implement Comparable.
+     */
+    public ConcurrentReadAVLTree() {
+        this(null);
+    }
+
+    /**
+     * New empty tree with the keys ordered by a comparator.
+     *
+     * @param comparator The order of the keys, null for their natural ordering.
+     */
+    public ConcurrentReadAVLTree(Comparator<? super K> comparator) {
+        tree = new AVLTree<>(comparator);
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return tree.comparator();
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x The key of the new node.
+     */
+    public void insert(K x) {
+        long stamp = lock.writeLock();
+        try {
+            tree.insert(x);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(K x) {
+        long stamp = lock.writeLock();
+        try {
+            tree.remove(x);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all element
+     */
+    public void removeAll() {
+        long stamp = lock.writeLock();
+        try {
+            tree.removeAll();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Check tree is empty
+     * @return
+     */
+    public boolean isEmpty() {
+        long stamp = lock.tryOptimisticRead();
+        boolean empty = tree.root() == null;
+        if (lock.validate(stamp)) {
+            return empty;
+        }
+        stamp = lock.readLock();
+        try {
+            return tree.isEmpty();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Find element
+     * @param x Key to find.
+     * @return Key if found, null if not found.
+     */
+    @SuppressWarnings("unchecked")
+    public K find(K x) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                // a writer holds the lock right now
+                continue;
+            }
+            Object result;
+            try {
+                result = optimisticFind(x);
+            } catch (RuntimeException ex) {
+                // a half initialized node can throw, but only if the read was invalid
+                if (lock.validate(stamp)) {
+                    throw ex;
+                }
+                continue;
+            }
+            if (result != RETRY && lock.validate(stamp)) {
+                return (K) result;
+            }
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return tree.find(x);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Find element if it is a basic type
+     * @param x Key to find
+     * @param isBasicDataType true or false is oke
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(K x, boolean isBasicDataType) {
+        return find(x) != null;
+    }
+
+    /**
+     * Search without the lock. The result is only valid if the stamp is still valid afterwards.
+     * @return the key, null or RETRY if the path was too long to be consistent
+     */
+    private Object optimisticFind(K x) {
+        AVLNode<K> cur = tree.root();
+        for (int depth = 0; cur != null; depth++) {
+            if (depth == MAX_DEPTH) {
+                return RETRY;
+            }
+            K data = cur.data;
+            int result = tree.compare(x, data);
+
+            if (result == 0) {
+                return data;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get ArrayList of element in tree, a consistent copy of the tree at one point in time.
+     * @param visitMode
+     * @return ArrayList of element in tree
+     */
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                continue;
+            }
+            ArrayList<K> arrayList = new ArrayList<>();
+            boolean complete;
+            try {
+                complete = visit(tree.root(), visitMode, arrayList, stamp, 0, 0) >= 0;
+            } catch (RuntimeException ex) {
+                if (lock.validate(stamp)) {
+                    throw ex;
+                }
+                continue;
+            }
+            if (complete && lock.validate(stamp)) {
+                return arrayList;
+            }
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return tree.toArrayList(visitMode);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree
+     */
+    public Object[] toArray(VisitMode visitMode) {
+        return toArrayList(visitMode).toArray();
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @param  a array of element type
+     * @return Array of element in tree
+     */
+    public <T> T[] toArray(VisitMode visitMode, T[] a) {
+        return toArrayList(visitMode).toArray(a);
+    }
+
+    /**
+     * Optimistic traversal of a subtree.
+     * @param depth depth of node, a path longer than MAX_DEPTH is a torn read
+     * @param visited number of nodes visited so far
+     * @return the new number of visited nodes, -1 if the traversal was given up
+     */
+    private int visit(AVLNode<K> node, VisitMode visitMode, ArrayList<K> arrayList, long stamp, int depth, int visited) {
+        if (node == null) {
+            return visited;
+        }
+        if (depth == MAX_DEPTH) {
+            return -1;
+        }
+        visited++;
+        if (visited % VALIDATE_INTERVAL == 0 && !lock.validate(stamp)) {
+            return -1;
+        }
+
+        AVLNode<K> left = node.left;
+        AVLNode<K> right = node.right;
+        K data = node.data;
+
+        if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+            visited = visit(left, visitMode, arrayList, stamp, depth + 1, visited);
+            if (visited < 0) {
+                return -1;
+            }
+            arrayList.add(data);
+            return visit(right, visitMode, arrayList, stamp, depth + 1, visited);
+        } else if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            visited = visit(right, visitMode, arrayList, stamp, depth + 1, visited);
+            if (visited < 0) {
+                return -1;
+            }
+            arrayList.add(data);
+            return visit(left, visitMode, arrayList, stamp, depth + 1, visited);
+        } else {
+            arrayList.add(data);
+            visited = visit(left, visitMode, arrayList, stamp, depth + 1, visited);
+            if (visited < 0) {
+                return -1;
+            }
+            return visit(right, visitMode, arrayList, stamp, depth + 1, visited);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package JDev.Trees;
+
+
+public class DoubleAVLNode {
+
+    public DoubleAVLNode left;
+    public DoubleAVLNode right;
+    public DoubleAVLNode parent;
+    public double data;
+    public int balance;
+    public int height;
+
+    public DoubleAVLNode(double x) {
+        left = right = parent = null;
+        balance = 0;
+        height = 0;
+        data = x;
+    }
+}
@@ -0,0 +1,19 @@
+package JDev.Trees;
+
+
+public class IntAVLNode {
+
+    public IntAVLNode left;
+    public IntAVLNode right;
+    public IntAVLNode parent;
+    public int data;
+    public int balance;
+    public int height;
+
+    public IntAVLNode(int x) {
+        left = right = parent = null;
+        balance = 0;
+        height = 0;
+        data = x;
+    }
+}
@@ -0,0 +1,63 @@
+package JDev.Trees;
+
+import java.util.Objects;
+
+/**
+ * A closed interval [lo, hi] of an {@link IntervalTree}, like a time range.
+ *
+ * @param <T> the type of the endpoints
+ */
+public final class Interval<T> {
+
+    private final T lo;
+    private final T hi;
+
+    /**
+     * New interval, the endpoints are checked by the tree that gets it.
+     *
+     * @param lo The start of the interval, included.
+     * @param hi The end of the interval, included.
+     */
+    public Interval(T lo, T hi) {
+        if (lo == null || hi == null) {
+            throw new NullPointerException("endpoint is null");
+        }
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * The start of the interval.
+     * @return lo
+     */
+    public T getLo() {
+        return lo;
+    }
+
+    /**
+     * The end of the interval.
+     * @return hi
+     */
+    public T getHi() {
+        return hi;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Interval)) {
+            return false;
+        }
+        Interval<?> other = (Interval<?>) o;
+        return lo.equals(other.lo) && hi.equals(other.hi);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * lo.hashCode() + hi.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lo + ", " + hi + "]";
+    }
+}
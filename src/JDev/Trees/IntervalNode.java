@@ -0,0 +1,18 @@
+package JDev.Trees;
+
+/**
+ * Node of an {@link IntervalTree}, an AVL node keyed by an interval and augmented with the
+ * largest end of the intervals in its subtree.
+ */
+public class IntervalNode<T> extends AVLNode<Interval<T>> {
+
+    /**
+     * The largest hi of the intervals in the subtree of this node, the node included.
+     */
+    public T max;
+
+    public IntervalNode(Interval<T> x) {
+        super(x);
+        max = x.getHi();
+    }
+}
@@ -0,0 +1,295 @@
+package JDev.Trees;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Interval tree on an {@link AVLTree}: the intervals are ordered by their start, then by their
+ * end, and every node knows the largest end in its subtree. The AVL balancing keeps that
+ * maximum up to date through the rotations and on the way up after an insert or remove, so
+ * overlaps can skip every subtree that ends before the query starts.
+ * <p>
+ * The endpoints are ordered by their natural ordering, or by a comparator given to the
+ * constructor. The intervals are closed, [lo, hi] overlaps [hi, x]. Like AVLTree, an interval
+ * that is already in the tree is ignored.
+ *
+ * @param <T> the type of the endpoints
+ */
+public class IntervalTree<T> implements Iterable<Interval<T>> {
+
+    /**
+     * The order of the endpoints, null for their natural ordering.
+     */
+    private final Comparator<? super T> comparator;
+    /**
+     * The nodes are all {@link IntervalNode}s.
+     */
+    private final AVLTree<Interval<T>> tree;
+
+    /**
+     * New empty tree, the endpoints are ordered by their natural ordering and must implement Comparable.
+     */
+    public IntervalTree() {
+        this(null);
+    }
+
+    /**
+     * New empty tree with the endpoints ordered by a comparator.
+     *
+     * @param comparator The order of the endpoints, null for their natural ordering.
+     */
+    public IntervalTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.tree = new AVLTree<Interval<T>>(this::compareIntervals) {
+            @Override
+            void augment(AVLNode<Interval<T>> node) {
+                updateMax((IntervalNode<T>) node);
+            }
+        };
+    }
+
+    /**
+     * Add the interval [lo, hi] into the tree.
+     *
+     * @param lo The start of the interval.
+     * @param hi The end of the interval.
+     * @throws IllegalArgumentException if lo is greater than hi
+     */
+    public void insert(T lo, T hi) {
+        insert(new Interval<>(lo, hi));
+    }
+
+    /**
+     * Add a new interval into the tree.
+     *
+     * @param x The interval.
+     * @throws IllegalArgumentException if its start is greater than its end
+     */
+    public void insert(Interval<T> x) {
+        checkInterval(x.getLo(), x.getHi());
+        // walk down to the leaf where the new node belongs, like AVLTreeMap.put
+        AVLNode<Interval<T>> node = tree.root();
+        if (node == null) {
+            tree.insertNode(null, 1, new IntervalNode<>(x));
+            return;
+        }
+        while (true) {
+            int result = compareIntervals(x, node.data);
+            if (result == 0) {
+                // do nothing: This interval already exists
+                return;
+            }
+            AVLNode<Interval<T>> next = result < 0 ? node.left : node.right;
+            if (next == null) {
+                tree.insertNode(node, result, new IntervalNode<>(x));
+                return;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Removes the interval [lo, hi] from the tree, if it is existent.
+     *
+     * @param lo The start of the interval.
+     * @param hi The end of the interval.
+     */
+    public void remove(T lo, T hi) {
+        remove(new Interval<>(lo, hi));
+    }
+
+    /**
+     * Removes an interval from the tree, if it is existent.
+     *
+     * @param x The interval to remove.
+     */
+    public void remove(Interval<T> x) {
+        AVLNode<Interval<T>> node = tree.findNode(x);
+        if (node != null) {
+            tree.remove(node);
+        }
+    }
+
+    /**
+     * Check if the interval [lo, hi] is in the tree.
+     *
+     * @param lo The start of the interval.
+     * @param hi The end of the interval.
+     * @return true if exist (false if not exist)
+     */
+    public boolean contains(T lo, T hi) {
+        return tree.findNode(new Interval<>(lo, hi)) != null;
+    }
+
+    /**
+     * Removes all intervals
+     */
+    public void removeAll() {
+        tree.removeAll();
+    }
+
+    /**
+     * Check tree is empty
+     * @return true if the tree has no interval
+     */
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /**
+     * Number of intervals in the tree
+     * @return number of intervals
+     */
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * The comparator that orders the endpoints.
+     * @return the comparator, null for the natural ordering of the endpoints
+     */
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Iterator over all intervals, ordered by their start and then by their end.
+     * @return iterator of the intervals in the tree
+     */
+    @Override
+    public Iterator<Interval<T>> iterator() {
+        return tree.iterator();
+    }
+
+    /**
+     * The intervals that contain a point, see {@link #overlaps(Object, Object)}.
+     *
+     * @param point The point.
+     * @return lazy iterator of the intervals with lo &lt;= point &lt;= hi
+     */
+    public Iterator<Interval<T>> overlaps(T point) {
+        return overlaps(point, point);
+    }
+
+    /**
+     * The intervals that overlap [lo, hi], ordered by their start and then by their end. The
+     * iterator is lazy: it walks down to the first overlap and goes on only when asked, so the
+     * first k of them cost O(log n + k) when the overlaps are next to each other in the order of
+     * the tree, like time ranges of similar length, and never more than O(log n) each.
+     *
+     * @param lo The start of the range.
+     * @param hi The end of the range.
+     * @return lazy iterator of the intervals that have a point in [lo, hi]
+     * @throws IllegalArgumentException if lo is greater than hi
+     */
+    public Iterator<Interval<T>> overlaps(T lo, T hi) {
+        checkInterval(lo, hi);
+        return new OverlapIterator(lo, hi);
+    }
+
+    /**
+     * Recomputes the largest end of the subtree of a node, from its own end and its children.
+     * Called by the AVL balancing for every node whose children changed.
+     */
+    private void updateMax(IntervalNode<T> node) {
+        T max = node.data.getHi();
+        IntervalNode<T> left = (IntervalNode<T>) node.left;
+        IntervalNode<T> right = (IntervalNode<T>) node.right;
+        if (left != null && compare(left.max, max) > 0) {
+            max = left.max;
+        }
+        if (right != null && compare(right.max, max) > 0) {
+            max = right.max;
+        }
+        node.max = max;
+    }
+
+    private void checkInterval(T lo, T hi) {
+        if (compare(lo, hi) > 0) {
+            throw new IllegalArgumentException("lo is greater than hi: [" + lo + ", " + hi + "]");
+        }
+    }
+
+    /**
+     * The order of the intervals in the tree: by start, then by end.
+     */
+    private int compareIntervals(Interval<T> a, Interval<T> b) {
+        int result = compare(a.getLo(), b.getLo());
+        return result != 0 ? result : compare(a.getHi(), b.getHi());
+    }
+
+    /**
+     * Compare two endpoints with the comparator of the tree, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(T a, T b) {
+        return comparator == null ? ((Comparable<? super T>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * In-order walk with a stack that only enters subtrees whose largest end reaches lo, and
+     * stops at the first interval that starts after hi: all later ones start after it.
+     */
+    private final class OverlapIterator implements Iterator<Interval<T>> {
+
+        private final T lo;
+        private final T hi;
+        private final ArrayDeque<IntervalNode<T>> stack = new ArrayDeque<>();
+        private IntervalNode<T> next;
+        private final int expectedModCount = tree.modCount();
+
+        OverlapIterator(T lo, T hi) {
+            this.lo = lo;
+            this.hi = hi;
+            pushLeft(tree.root());
+            next = advance();
+        }
+
+        /**
+         * Push a node and its left descendants, as long as their subtrees reach lo.
+         */
+        private void pushLeft(AVLNode<Interval<T>> node) {
+            IntervalNode<T> n = (IntervalNode<T>) node;
+            while (n != null && compare(n.max, lo) >= 0) {
+                stack.push(n);
+                n = (IntervalNode<T>) n.left;
+            }
+        }
+
+        private IntervalNode<T> advance() {
+            while (!stack.isEmpty()) {
+                IntervalNode<T> n = stack.pop();
+                if (compare(n.data.getLo(), hi) > 0) {
+                    stack.clear();
+                    return null;
+                }
+                pushLeft(n.right);
+                if (compare(n.data.getHi(), lo) >= 0) {
+                    return n;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Interval<T> next() {
+            if (tree.modCount() != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            IntervalNode<T> n = next;
+            if (n == null) {
+                throw new NoSuchElementException();
+            }
+            next = advance();
+            return n.data;
+        }
+    }
+}
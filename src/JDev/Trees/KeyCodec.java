@@ -0,0 +1,95 @@
+package JDev.Trees;
+
+import java.io.IOException;
+
+/**
+ * Binary encoding of the keys for {@link TreeSerializer}. The keys are written in ascending order
+ * and each key is encoded relative to the key before it, so a codec can write only the difference.
+ * <p>
+ * The codecs for Integer and Long write the difference to the key before as zigzag varint, 1 to 3
+ * bytes for dense keys instead of 4 or 8. The codec for String writes the length of the common
+ * prefix with the key before and the rest of the chars as varints, 1 byte per ASCII char.
+ * Other key types implement this interface.
+ *
+ * @param <K> the type of the keys
+ */
+public interface KeyCodec<K> {
+
+    /**
+     * Write a key.
+     * @param key The key to write.
+     * @param previous The key written before, null for the first key.
+     * @param out The output.
+     */
+    void write(K key, K previous, ChannelOutput out) throws IOException;
+
+    /**
+     * Read a key.
+     * @param previous The key read before, null for the first key.
+     * @param in The input.
+     * @return the key
+     */
+    K read(K previous, ChannelInput in) throws IOException;
+
+    KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+        @Override
+        public void write(Integer key, Integer previous, ChannelOutput out) throws IOException {
+            out.writeSignedVarLong(previous == null ? key : (long) key - previous);
+        }
+
+        @Override
+        public Integer read(Integer previous, ChannelInput in) throws IOException {
+            long v = in.readSignedVarLong();
+            return (int) (previous == null ? v : previous + v);
+        }
+    };
+
+    KeyCodec<Long> LONG = new KeyCodec<Long>() {
+        @Override
+        public void write(Long key, Long previous, ChannelOutput out) throws IOException {
+            // the difference may overflow, it is undone by the same overflow on read
+            out.writeSignedVarLong(previous == null ? key : key - previous);
+        }
+
+        @Override
+        public Long read(Long previous, ChannelInput in) throws IOException {
+            long v = in.readSignedVarLong();
+            return previous == null ? v : previous + v;
+        }
+    };
+
+    KeyCodec<String> STRING = new KeyCodec<String>() {
+        @Override
+        public void write(String key, String previous, ChannelOutput out) throws IOException {
+            int prefix = 0;
+            if (previous != null) {
+                int max = Math.min(key.length(), previous.length());
+                while (prefix < max && key.charAt(prefix) == previous.charAt(prefix)) {
+                    prefix++;
+                }
+            }
+            out.writeVarLong(prefix);
+            out.writeVarLong(key.length() - prefix);
+            for (int i = prefix; i < key.length(); i++) {
+                out.writeVarLong(key.charAt(i));
+            }
+        }
+
+        @Override
+        public String read(String previous, ChannelInput in) throws IOException {
+            long prefix = in.readVarLong();
+            long suffix = in.readVarLong();
+            if (prefix > (previous == null ? 0 : previous.length()) || suffix > Integer.MAX_VALUE - prefix) {
+                throw new IOException("Corrupt string key");
+            }
+            char[] chars = new char[(int) (prefix + suffix)];
+            if (prefix > 0) {
+                previous.getChars(0, (int) prefix, chars, 0);
+            }
+            for (int i = (int) prefix; i < chars.length; i++) {
+                chars[i] = (char) in.readVarLong();
+            }
+            return new String(chars);
+        }
+    };
+}
@@ -0,0 +1,19 @@
+package JDev.Trees;
+
+
+public class LongAVLNode {
+
+    public LongAVLNode left;
+    public LongAVLNode right;
+    public LongAVLNode parent;
+    public long data;
+    public int balance;
+    public int height;
+
+    public LongAVLNode(long x) {
+        left = right = parent = null;
+        balance = 0;
+        height = 0;
+        data = x;
+    }
+}
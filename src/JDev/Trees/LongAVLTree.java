@@ -0,0 +1,389 @@
+package JDev.Trees;
+
+/**
+ * AVL-tree with primitive long keys. Same operations as {@link AVLTree}, but the keys
+ * are stored without boxing and compared without calling compareTo.
+ */
+public class LongAVLTree {
+
+    private LongAVLNode root;
+    private int size;
+
+    /**
+     * Add a new element with key "x" into the tree.
+     * 
+     * @param x
+     *            The key of the new node.
+     */
+    public void insert(long x) {
+        LongAVLNode node = this.root;
+        // If the root is null, the new node is the root of the tree.
+        if (node == null) {
+            this.root = new LongAVLNode(x);
+            size++;
+            return;
+        }
+
+        // walk down to the leaf where the new node belongs
+        while (true) {
+            if (x < node.data) {
+                if (node.left == null) {
+                    LongAVLNode n = new LongAVLNode(x);
+                    node.left = n;
+                    n.parent = node;
+                    break;
+                }
+                node = node.left;
+            } else if (x > node.data) {
+                if (node.right == null) {
+                    LongAVLNode n = new LongAVLNode(x);
+                    node.right = n;
+                    n.parent = node;
+                    break;
+                }
+                node = node.right;
+            } else {
+                // do nothing: This node already exists
+                return;
+            }
+        }
+        size++;
+
+        // Node is inserted now, continue checking the balance
+        rebalance(node);
+    }
+
+    /**
+     * Check the balance for each node on the way up and call required methods for balancing the tree.
+     * The retracing stops as soon as the height of a subtree is the same as before the update.
+     * 
+     * @param node : The node to check the balance for, usually you start with the parent of a leaf.
+     */
+    private void rebalance(LongAVLNode node) {
+        while (true) {
+            int oldHeight = node.height;
+
+            setBalance(node);
+            int balance = node.balance;
+
+            // check the balance
+            if (balance == -2) {
+                if (height(node.left.left) >= height(node.left.right)) {
+                    node = rotateRight(node);
+                } else {
+                    node = doubleRotateLeftRight(node);
+                }
+            } else if (balance == 2) {
+                if (height(node.right.right) >= height(node.right.left)) {
+                    node = rotateLeft(node);
+                } else {
+                    node = doubleRotateRightLeft(node);
+                }
+            }
+
+            if (node.parent == null) {
+                this.root = node;
+                return;
+            }
+            if (node.height == oldHeight) {
+                return;
+            }
+            // we did not reach the root yet and the parent is affected
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(long x) {
+        // First we must find the node, after this we can delete it.
+        remove(this.root, x);
+    }
+
+    /**
+     * Removes all element
+     */
+    public void removeAll() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Check tree is empty
+     * @return
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Number of elements in the tree
+     * @return number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds a node and calls a method to remove the node.
+     * 
+     * @param node The node to start the search.
+     * @param x The KEY of node to remove.
+     */
+    private void remove(LongAVLNode node, long x) {
+        LongAVLNode cur = node;
+        while (cur != null) {
+            if (x < cur.data) {
+                cur = cur.left;
+            } else if (x > cur.data) {
+                cur = cur.right;
+            } else {
+                // we found the node in the tree.. now lets go on!
+                remove(cur);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes a node from a AVL-Tree, while balancing will be done if necessary.
+     * 
+     * @param node The node to be removed.
+     */
+    private void remove(LongAVLNode node) {
+        LongAVLNode vicTim;
+        size--;
+        // at least one child of q, q will be removed directly
+        if (node.left == null || node.right == null) {
+            vicTim = node;
+        } else {
+            // q has two children -> will be replaced by successor
+            vicTim = successor(node);
+            node.data = vicTim.data;
+        }
+
+        LongAVLNode p;
+        if (vicTim.left != null) {
+            p = vicTim.left;
+        } else {
+            p = vicTim.right;
+        }
+
+        if (p != null) {
+            p.parent = vicTim.parent;
+        }
+
+        if (vicTim.parent == null) {
+            this.root = p;
+        } else {
+            if (vicTim == vicTim.parent.left) {
+                vicTim.parent.left = p;
+            } else {
+                vicTim.parent.right = p;
+            }
+            // balancing must be done until the root is reached.
+            rebalance(vicTim.parent);
+        }
+    }
+
+    /**
+     * Left rotation using the given node.
+     * 
+     * @param node The node for the rotation.
+     * 
+     * @return The root of the rotated tree.
+     */
+    private LongAVLNode rotateLeft(LongAVLNode node) {
+
+        LongAVLNode v = node.right;
+        v.parent = node.parent;
+
+        node.right = v.left;
+
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+
+        v.left = node;
+        node.parent = v;
+
+        if (v.parent != null) {
+            if (v.parent.right == node) {
+                v.parent.right = v;
+            } else if (v.parent.left == node) {
+                v.parent.left = v;
+            }
+        }
+
+        setBalance(node);
+        setBalance(v);
+
+        return v;
+    }
+
+    /**
+     * Right rotation using the given node.
+     * 
+     * @param node The node for the rotation
+     * 
+     * @return The root of the new rotated tree.
+     */
+    private LongAVLNode rotateRight(LongAVLNode node) {
+
+        LongAVLNode v = node.left;
+        v.parent = node.parent;
+
+        node.left = v.right;
+
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+
+        v.right = node;
+        node.parent = v;
+
+        if (v.parent != null) {
+            if (v.parent.right == node) {
+                v.parent.right = v;
+            } else if (v.parent.left == node) {
+                v.parent.left = v;
+            }
+        }
+
+        setBalance(node);
+        setBalance(v);
+
+        return v;
+    }
+
+    /**
+     * 
+     * @param node The node for the rotation.
+     * @return The root after the double rotation.
+     */
+    private LongAVLNode doubleRotateLeftRight(LongAVLNode node) {
+        node.left = rotateLeft(node.left);
+        return rotateRight(node);
+    }
+
+    /**
+     * 
+     * @param node The node for the rotation.
+     * @return The root after the double rotation.
+     */
+    private LongAVLNode doubleRotateRightLeft(LongAVLNode node) {
+        node.right = rotateRight(node.right);
+        return rotateLeft(node);
+    }
+
+    /**
+     * Returns the successor of a node with two children.
+     * 
+     * @param node The predecessor.
+     * @return The successor of node q.
+     */
+    private LongAVLNode successor(LongAVLNode node) {
+        LongAVLNode r = node.right;
+        while (r.left != null) {
+            r = r.left;
+        }
+        return r;
+    }
+
+    /**
+     * Returns the cached "height" of a node.
+     * 
+     * @param node
+     * @return The height of a node (-1, if node is not existent eg. NULL).
+     */
+    private int height(LongAVLNode node) {
+        return node == null ? -1 : node.height;
+    }
+
+    /**
+     * Recalculates height and balance of a node from the cached heights of its children.
+     * 
+     * @param node The node to update.
+     */
+    private void setBalance(LongAVLNode node) {
+        int leftHeight = height(node.left);
+        int rightHeight = height(node.right);
+        node.height = 1 + Math.max(leftHeight, rightHeight);
+        node.balance = rightHeight - leftHeight;
+    }
+
+    /**
+     * Find element
+     * @param x Key to find
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(long x) {
+        LongAVLNode cur = root;
+        while (cur != null) {
+            if (x < cur.data) {
+                cur = cur.left;
+            } else if (x > cur.data) {
+                cur = cur.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode 
+     * @return Array of element in tree
+     */
+    public long[] toArray(VisitMode visitMode) {
+        long[] array = new long[size];
+
+        if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+            LeftRootRightVisit(root, array, 0);
+        }
+
+        if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            RightRootLeftVisit(root, array, 0);
+        }
+
+        if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+            RootLeftRightVisit(root, array, 0);
+        }
+
+        return array;
+    }
+
+    private int LeftRootRightVisit(LongAVLNode node, long[] array, int index) {
+        if (node == null) {
+            return index;
+        }
+
+        index = LeftRootRightVisit(node.left, array, index);
+        array[index++] = node.data;
+        return LeftRootRightVisit(node.right, array, index);
+    }
+
+    private int RightRootLeftVisit(LongAVLNode node, long[] array, int index) {
+        if (node == null) {
+            return index;
+        }
+
+        index = RightRootLeftVisit(node.right, array, index);
+        array[index++] = node.data;
+        return RightRootLeftVisit(node.left, array, index);
+    }
+
+    private int RootLeftRightVisit(LongAVLNode node, long[] array, int index) {
+        if (node == null) {
+            return index;
+        }
+        array[index++] = node.data;
+
+        index = RootLeftRightVisit(node.left, array, index);
+
+        return RootLeftRightVisit(node.right, array, index);
+    }
+}
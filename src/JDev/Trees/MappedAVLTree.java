@@ -0,0 +1,492 @@
+package JDev.Trees;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Base class of the AVL-trees that keep their nodes in a memory-mapped file instead of the Java heap.
+ * A node is a fixed size record (left, right, parent, height, key) addressed by its slot number,
+ * the tree is persisted as it is modified and opening an existing file needs no deserialization.
+ * <p>
+ * File layout: a header of {@value #HEADER_SIZE} bytes, followed by the node records.
+ * Slot 0 is the "null" node with height -1. Removed slots are kept in a free list and reused.
+ * A single mapping is limited to 2 GB, so the number of nodes is limited to 2 GB / record size.
+ * <p>
+ * Subclasses implement the descent for their key type and write the keys.
+ */
+public abstract class MappedAVLTree implements Closeable {
+
+    protected static final int KEY_TYPE_LONG = 1;
+    protected static final int KEY_TYPE_INT = 2;
+    protected static final int KEY_TYPE_BYTES = 3;
+
+    protected static final int NIL = 0;
+
+    private static final int MAGIC = 0x4A415654;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // header fields
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_KEY_TYPE = 8;
+    private static final int H_KEY_WIDTH = 12;
+    private static final int H_ROOT = 16;
+    private static final int H_SIZE = 20;
+    private static final int H_TOP = 24;
+    private static final int H_FREE = 28;
+    private static final int H_CAPACITY = 32;
+
+    // node record fields
+    private static final int LEFT = 0;
+    private static final int RIGHT = 4;
+    private static final int PARENT = 8;
+    private static final int HEIGHT = 12;
+    private static final int KEY = 16;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int keyWidth;
+    private final int recordSize;
+
+    /**
+     * The mapped region. Replaced by a larger mapping when the tree grows,
+     * so subclasses must not keep it in a local variable across a call to newSlot.
+     */
+    protected MappedByteBuffer buffer;
+
+    // write-through copies of the header fields
+    private int root;
+    private int size;
+    private int top;
+    private int free;
+    private int capacity;
+
+    /**
+     * Open the tree stored in a file, or create a new empty tree if the file does not exist or is empty.
+     *
+     * @param path the file
+     * @param keyType one of the KEY_TYPE constants, stored in the header and checked when opening
+     * @param keyWidth number of bytes of a key
+     * @throws IOException if the file can not be mapped or holds a different kind of tree
+     */
+    protected MappedAVLTree(File path, int keyType, int keyWidth) throws IOException {
+        if (keyWidth <= 0) {
+            throw new IllegalArgumentException("Illegal key width: " + keyWidth);
+        }
+        this.keyWidth = keyWidth;
+        // keep the records 8 byte aligned, so long keys never straddle a cache line
+        this.recordSize = (KEY + keyWidth + 7) & ~7;
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+
+        try {
+            if (channel.size() == 0) {
+                map(INITIAL_CAPACITY);
+                buffer.putInt(H_MAGIC, MAGIC);
+                buffer.putInt(H_VERSION, VERSION);
+                buffer.putInt(H_KEY_TYPE, keyType);
+                buffer.putInt(H_KEY_WIDTH, keyWidth);
+                clear();
+            } else {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException(path + " is not a tree file");
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                if (buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != VERSION) {
+                    throw new IOException(path + " is not a tree file");
+                }
+                if (buffer.getInt(H_KEY_TYPE) != keyType || buffer.getInt(H_KEY_WIDTH) != keyWidth) {
+                    throw new IOException(path + " holds a tree with a different key type");
+                }
+                map(buffer.getInt(H_CAPACITY));
+                root = buffer.getInt(H_ROOT);
+                size = buffer.getInt(H_SIZE);
+                top = buffer.getInt(H_TOP);
+                free = buffer.getInt(H_FREE);
+            }
+        } catch (IOException ex) {
+            file.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Map the file with room for a number of slots, the file grows if necessary.
+     */
+    private void map(int slots) throws IOException {
+        long length = HEADER_SIZE + (long) slots * recordSize;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Tree file can not grow beyond 2 GB");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        capacity = slots;
+        buffer.putInt(H_CAPACITY, capacity);
+    }
+
+    /**
+     * Reset to an empty tree. Only the NIL slot is written.
+     */
+    private void clear() {
+        setRoot(NIL);
+        setSize(0);
+        setTop(1);
+        setFree(NIL);
+        int nil = offset(NIL);
+        buffer.putInt(nil + LEFT, NIL);
+        buffer.putInt(nil + RIGHT, NIL);
+        buffer.putInt(nil + PARENT, NIL);
+        buffer.putInt(nil + HEIGHT, -1);
+    }
+
+    private void setRoot(int n) {
+        root = n;
+        buffer.putInt(H_ROOT, n);
+    }
+
+    private void setSize(int n) {
+        size = n;
+        buffer.putInt(H_SIZE, n);
+    }
+
+    private void setTop(int n) {
+        top = n;
+        buffer.putInt(H_TOP, n);
+    }
+
+    private void setFree(int n) {
+        free = n;
+        buffer.putInt(H_FREE, n);
+    }
+
+    private int offset(int n) {
+        return HEADER_SIZE + n * recordSize;
+    }
+
+    protected final int root() {
+        return root;
+    }
+
+    protected final int left(int n) {
+        return buffer.getInt(offset(n) + LEFT);
+    }
+
+    protected final int right(int n) {
+        return buffer.getInt(offset(n) + RIGHT);
+    }
+
+    private int parent(int n) {
+        return buffer.getInt(offset(n) + PARENT);
+    }
+
+    private int height(int n) {
+        return buffer.getInt(offset(n) + HEIGHT);
+    }
+
+    private void setLeft(int n, int child) {
+        buffer.putInt(offset(n) + LEFT, child);
+    }
+
+    private void setRight(int n, int child) {
+        buffer.putInt(offset(n) + RIGHT, child);
+    }
+
+    private void setParent(int n, int p) {
+        buffer.putInt(offset(n) + PARENT, p);
+    }
+
+    /**
+     * Position of the key of a node in {@link #buffer}.
+     * @param n the slot
+     * @return byte offset of the key
+     */
+    protected final int keyOffset(int n) {
+        return offset(n) + KEY;
+    }
+
+    /**
+     * Take a slot from the free list or the end of the file for a new node. The mapping grows by half if full.
+     * The caller writes the key into the slot and then calls {@link #link}.
+     *
+     * @return the new slot
+     * @throws IOException if the file can not grow
+     */
+    protected final int newSlot() throws IOException {
+        int n;
+        if (free != NIL) {
+            n = free;
+            setFree(left(n));
+        } else {
+            if (top == capacity) {
+                map(capacity + (capacity >> 1));
+            }
+            n = top;
+            setTop(top + 1);
+        }
+        int o = offset(n);
+        buffer.putInt(o + LEFT, NIL);
+        buffer.putInt(o + RIGHT, NIL);
+        buffer.putInt(o + PARENT, NIL);
+        buffer.putInt(o + HEIGHT, 0);
+        return n;
+    }
+
+    /**
+     * Attach a new node below a parent and rebalance the tree.
+     *
+     * @param n the new node, from {@link #newSlot}
+     * @param p the parent, NIL if the tree is empty
+     * @param leftSide true to become the left child of p
+     */
+    protected final void link(int n, int p, boolean leftSide) {
+        setSize(size + 1);
+        if (p == NIL) {
+            setRoot(n);
+            return;
+        }
+        setParent(n, p);
+        if (leftSide) {
+            setLeft(p, n);
+        } else {
+            setRight(p, n);
+        }
+        rebalance(p);
+    }
+
+    /**
+     * Removes a node from the tree, while balancing will be done if necessary.
+     *
+     * @param node The node to be removed.
+     */
+    protected final void unlink(int node) {
+        int vicTim;
+        if (left(node) == NIL || right(node) == NIL) {
+            vicTim = node;
+        } else {
+            // two children -> will be replaced by successor
+            vicTim = right(node);
+            while (left(vicTim) != NIL) {
+                vicTim = left(vicTim);
+            }
+            for (int i = 0; i < keyWidth; i++) {
+                buffer.put(keyOffset(node) + i, buffer.get(keyOffset(vicTim) + i));
+            }
+        }
+
+        int p = left(vicTim) != NIL ? left(vicTim) : right(vicTim);
+        int vicTimParent = parent(vicTim);
+        if (p != NIL) {
+            setParent(p, vicTimParent);
+        }
+
+        if (vicTimParent == NIL) {
+            setRoot(p);
+        } else {
+            if (left(vicTimParent) == vicTim) {
+                setLeft(vicTimParent, p);
+            } else {
+                setRight(vicTimParent, p);
+            }
+            rebalance(vicTimParent);
+        }
+
+        setLeft(vicTim, free);
+        setFree(vicTim);
+        setSize(size - 1);
+    }
+
+    /**
+     * Walk up from a node, restore the height and the balance of every node on the way.
+     * Stops as soon as the height of a subtree is the same as before the update.
+     */
+    private void rebalance(int node) {
+        while (node != NIL) {
+            int oldHeight = height(node);
+            updateHeight(node);
+            int balance = height(right(node)) - height(left(node));
+
+            if (balance == -2) {
+                int l = left(node);
+                if (height(left(l)) < height(right(l))) {
+                    rotateLeft(l);
+                }
+                node = rotateRight(node);
+            } else if (balance == 2) {
+                int r = right(node);
+                if (height(right(r)) < height(left(r))) {
+                    rotateRight(r);
+                }
+                node = rotateLeft(node);
+            }
+
+            if (height(node) == oldHeight) {
+                return;
+            }
+            node = parent(node);
+        }
+    }
+
+    private int rotateLeft(int node) {
+        int v = right(node);
+        int p = parent(node);
+        setParent(v, p);
+
+        int inner = left(v);
+        setRight(node, inner);
+        if (inner != NIL) {
+            setParent(inner, node);
+        }
+
+        setLeft(v, node);
+        setParent(node, v);
+
+        replaceChild(p, node, v);
+
+        updateHeight(node);
+        updateHeight(v);
+        return v;
+    }
+
+    private int rotateRight(int node) {
+        int v = left(node);
+        int p = parent(node);
+        setParent(v, p);
+
+        int inner = right(v);
+        setLeft(node, inner);
+        if (inner != NIL) {
+            setParent(inner, node);
+        }
+
+        setRight(v, node);
+        setParent(node, v);
+
+        replaceChild(p, node, v);
+
+        updateHeight(node);
+        updateHeight(v);
+        return v;
+    }
+
+    private void replaceChild(int p, int oldChild, int newChild) {
+        if (p == NIL) {
+            setRoot(newChild);
+        } else if (left(p) == oldChild) {
+            setLeft(p, newChild);
+        } else {
+            setRight(p, newChild);
+        }
+    }
+
+    private void updateHeight(int node) {
+        int l = height(left(node));
+        int r = height(right(node));
+        buffer.putInt(offset(node) + HEIGHT, 1 + (l >= r ? l : r));
+    }
+
+    /**
+     * Copy the key of a node into an array created by the subclass.
+     *
+     * @param node the slot
+     * @param array the target array
+     * @param index position in the array
+     */
+    protected abstract void copyKey(int node, Object array, int index);
+
+    /**
+     * Copy all keys into an array in the order of visitMode.
+     *
+     * @param visitMode
+     * @param array an array of length size(), passed to copyKey
+     */
+    protected final void visit(VisitMode visitMode, Object array) {
+        if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+            LeftRootRightVisit(root, array, 0);
+        }
+
+        if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            RightRootLeftVisit(root, array, 0);
+        }
+
+        if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+            RootLeftRightVisit(root, array, 0);
+        }
+    }
+
+    private int LeftRootRightVisit(int node, Object array, int index) {
+        if (node == NIL) {
+            return index;
+        }
+
+        index = LeftRootRightVisit(left(node), array, index);
+        copyKey(node, array, index++);
+        return LeftRootRightVisit(right(node), array, index);
+    }
+
+    private int RightRootLeftVisit(int node, Object array, int index) {
+        if (node == NIL) {
+            return index;
+        }
+
+        index = RightRootLeftVisit(right(node), array, index);
+        copyKey(node, array, index++);
+        return RightRootLeftVisit(left(node), array, index);
+    }
+
+    private int RootLeftRightVisit(int node, Object array, int index) {
+        if (node == NIL) {
+            return index;
+        }
+        copyKey(node, array, index++);
+
+        index = RootLeftRightVisit(left(node), array, index);
+
+        return RootLeftRightVisit(right(node), array, index);
+    }
+
+    /**
+     * Removes all element. The file keeps its size.
+     */
+    public void removeAll() {
+        clear();
+    }
+
+    /**
+     * Check tree is empty
+     * @return
+     */
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * Number of elements in the tree
+     * @return number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Write all changes to the storage device.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * Write all changes and close the file. The tree can not be used afterwards.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+}
@@ -0,0 +1,138 @@
+package JDev.Trees;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * AVL-tree with fixed length byte[] keys, stored in a memory-mapped file. See {@link MappedAVLTree}.
+ * Keys are ordered lexicographically with the bytes treated as unsigned, so big-endian encoded
+ * numbers and ASCII strings keep their natural order.
+ */
+public class MappedBytesAVLTree extends MappedAVLTree {
+
+    private final int keyLength;
+
+    /**
+     * Open the tree stored in a file, or create a new empty tree.
+     *
+     * @param file the file
+     * @param keyLength length of every key in bytes
+     * @throws IOException if the file can not be mapped or holds a different kind of tree
+     */
+    public MappedBytesAVLTree(File file, int keyLength) throws IOException {
+        super(file, KEY_TYPE_BYTES, keyLength);
+        this.keyLength = keyLength;
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x The key of the new node, keyLength bytes.
+     * @throws IOException if the file can not grow
+     */
+    public void insert(byte[] x) throws IOException {
+        checkLength(x);
+        int parent = NIL;
+        boolean leftSide = false;
+        int node = root();
+        while (node != NIL) {
+            int result = compare(x, node);
+            parent = node;
+            if (result < 0) {
+                leftSide = true;
+                node = left(node);
+            } else if (result > 0) {
+                leftSide = false;
+                node = right(node);
+            } else {
+                // do nothing: This node already exists
+                return;
+            }
+        }
+        int n = newSlot();
+        int offset = keyOffset(n);
+        for (int i = 0; i < keyLength; i++) {
+            buffer.put(offset + i, x[i]);
+        }
+        link(n, parent, leftSide);
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(byte[] x) {
+        checkLength(x);
+        int node = findNode(x);
+        if (node != NIL) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Find element
+     * @param x Key to find
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(byte[] x) {
+        checkLength(x);
+        return findNode(x) != NIL;
+    }
+
+    private int findNode(byte[] x) {
+        int node = root();
+        while (node != NIL) {
+            int result = compare(x, node);
+            if (result < 0) {
+                node = left(node);
+            } else if (result > 0) {
+                node = right(node);
+            } else {
+                return node;
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * Compare a key with the key of a node, unsigned byte by byte.
+     */
+    private int compare(byte[] x, int node) {
+        int offset = keyOffset(node);
+        for (int i = 0; i < keyLength; i++) {
+            int a = x[i] & 0xFF;
+            int b = buffer.get(offset + i) & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+
+    private void checkLength(byte[] x) {
+        if (x.length != keyLength) {
+            throw new IllegalArgumentException("Key length is " + x.length + ", expected " + keyLength);
+        }
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree, every key is a new array
+     */
+    public byte[][] toArray(VisitMode visitMode) {
+        byte[][] array = new byte[size()][];
+        visit(visitMode, array);
+        return array;
+    }
+
+    @Override
+    protected void copyKey(int node, Object array, int index) {
+        byte[] key = new byte[keyLength];
+        int offset = keyOffset(node);
+        for (int i = 0; i < keyLength; i++) {
+            key[i] = buffer.get(offset + i);
+        }
+        ((byte[][]) array)[index] = key;
+    }
+}
@@ -0,0 +1,100 @@
+package JDev.Trees;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * AVL-tree with int keys, stored in a memory-mapped file. See {@link MappedAVLTree}.
+ */
+public class MappedIntAVLTree extends MappedAVLTree {
+
+    /**
+     * Open the tree stored in a file, or create a new empty tree.
+     *
+     * @param file the file
+     * @throws IOException if the file can not be mapped or holds a different kind of tree
+     */
+    public MappedIntAVLTree(File file) throws IOException {
+        super(file, KEY_TYPE_INT, 4);
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x The key of the new node.
+     * @throws IOException if the file can not grow
+     */
+    public void insert(int x) throws IOException {
+        int parent = NIL;
+        boolean leftSide = false;
+        int node = root();
+        while (node != NIL) {
+            int key = buffer.getInt(keyOffset(node));
+            parent = node;
+            if (x < key) {
+                leftSide = true;
+                node = left(node);
+            } else if (x > key) {
+                leftSide = false;
+                node = right(node);
+            } else {
+                // do nothing: This node already exists
+                return;
+            }
+        }
+        int n = newSlot();
+        buffer.putInt(keyOffset(n), x);
+        link(n, parent, leftSide);
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(int x) {
+        int node = findNode(x);
+        if (node != NIL) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Find element
+     * @param x Key to find
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(int x) {
+        return findNode(x) != NIL;
+    }
+
+    private int findNode(int x) {
+        int node = root();
+        while (node != NIL) {
+            int key = buffer.getInt(keyOffset(node));
+            if (x < key) {
+                node = left(node);
+            } else if (x > key) {
+                node = right(node);
+            } else {
+                return node;
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree
+     */
+    public int[] toArray(VisitMode visitMode) {
+        int[] array = new int[size()];
+        visit(visitMode, array);
+        return array;
+    }
+
+    @Override
+    protected void copyKey(int node, Object array, int index) {
+        ((int[]) array)[index] = buffer.getInt(keyOffset(node));
+    }
+}
@@ -0,0 +1,100 @@
+package JDev.Trees;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * AVL-tree with long keys, stored in a memory-mapped file. See {@link MappedAVLTree}.
+ */
+public class MappedLongAVLTree extends MappedAVLTree {
+
+    /**
+     * Open the tree stored in a file, or create a new empty tree.
+     *
+     * @param file the file
+     * @throws IOException if the file can not be mapped or holds a different kind of tree
+     */
+    public MappedLongAVLTree(File file) throws IOException {
+        super(file, KEY_TYPE_LONG, 8);
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x The key of the new node.
+     * @throws IOException if the file can not grow
+     */
+    public void insert(long x) throws IOException {
+        int parent = NIL;
+        boolean leftSide = false;
+        int node = root();
+        while (node != NIL) {
+            long key = buffer.getLong(keyOffset(node));
+            parent = node;
+            if (x < key) {
+                leftSide = true;
+                node = left(node);
+            } else if (x > key) {
+                leftSide = false;
+                node = right(node);
+            } else {
+                // do nothing: This node already exists
+                return;
+            }
+        }
+        int n = newSlot();
+        buffer.putLong(keyOffset(n), x);
+        link(n, parent, leftSide);
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(long x) {
+        int node = findNode(x);
+        if (node != NIL) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Find element
+     * @param x Key to find
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(long x) {
+        return findNode(x) != NIL;
+    }
+
+    private int findNode(long x) {
+        int node = root();
+        while (node != NIL) {
+            long key = buffer.getLong(keyOffset(node));
+            if (x < key) {
+                node = left(node);
+            } else if (x > key) {
+                node = right(node);
+            } else {
+                return node;
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree
+     */
+    public long[] toArray(VisitMode visitMode) {
+        long[] array = new long[size()];
+        visit(visitMode, array);
+        return array;
+    }
+
+    @Override
+    protected void copyKey(int node, Object array, int index) {
+        ((long[]) array)[index] = buffer.getLong(keyOffset(node));
+    }
+}
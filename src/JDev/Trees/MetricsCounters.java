@@ -0,0 +1,46 @@
+package JDev.Trees;
+
+/**
+ * The counters of a tree while its metrics are enabled. A tree without metrics has no counters
+ * at all, so all it pays is the check for null in the counted operations.
+ * Like the trees, the counters are not thread safe; see {@link TreeMetrics}.
+ */
+final class MetricsCounters {
+
+    long inserts;
+    long removes;
+    long finds;
+    long hits;
+    long comparisons;
+    long findComparisons;
+    int maxSearchLength;
+    long doubleRotations;
+    long rebalanceSteps;
+    /**
+     * The rotation count of the tree when the counters were created, for the single rotations.
+     */
+    final long rotationsAtStart;
+
+    MetricsCounters() {
+        this(0);
+    }
+
+    MetricsCounters(long rotationsAtStart) {
+        this.rotationsAtStart = rotationsAtStart;
+    }
+
+    /**
+     * Count a find that compared with the given number of nodes.
+     */
+    void find(int compared, boolean hit) {
+        finds++;
+        if (hit) {
+            hits++;
+        }
+        comparisons += compared;
+        findComparisons += compared;
+        if (compared > maxSearchLength) {
+            maxSearchLength = compared;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package JDev.Trees;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * Fork-join forEach and reduce over the spliterators of the trees. A task splits its spliterator
+ * in two halves until the halves are small enough for one thread. The trees split at the middle
+ * rank, so the halves have the same size and the tasks stay balanced for any shape of the tree.
+ * The tasks run in the pool of the calling worker thread, or in the common pool.
+ */
+final class ParallelTraversal {
+
+    /**
+     * Fewer elements are not split further, the overhead of a task would be larger than the work.
+     */
+    private static final long MIN_LEAF_SIZE = 1 << 10;
+
+    /**
+     * Number of leaf tasks per worker thread, so that the workers can balance uneven leaves.
+     */
+    private static final int LEAVES_PER_THREAD = 8;
+
+    private ParallelTraversal() {
+    }
+
+    /**
+     * Call an action for every element, in parallel and in no particular order.
+     */
+    static <K> void forEach(Spliterator<K> elements, Consumer<? super K> action) {
+        new ForEachTask<>(elements, action, leafSize(elements)).invoke();
+    }
+
+    /**
+     * Reduce the elements in their order: each leaf task accumulates its elements from identity,
+     * the results of neighbouring halves are combined left to right.
+     */
+    static <K, R> R reduce(Spliterator<K> elements, R identity, BiFunction<R, ? super K, R> accumulator,
+            BinaryOperator<R> combiner) {
+        return new ReduceTask<>(elements, identity, accumulator, combiner, leafSize(elements)).invoke();
+    }
+
+    private static long leafSize(Spliterator<?> elements) {
+        int threads = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism()
+                : ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(MIN_LEAF_SIZE, elements.estimateSize() / ((long) threads * LEAVES_PER_THREAD));
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ForEachTask<K> extends RecursiveAction {
+
+        private final Spliterator<K> elements;
+        private final Consumer<? super K> action;
+        private final long leafSize;
+
+        ForEachTask(Spliterator<K> elements, Consumer<? super K> action, long leafSize) {
+            this.elements = elements;
+            this.action = action;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            Spliterator<K> prefix;
+            if (elements.estimateSize() <= leafSize || (prefix = elements.trySplit()) == null) {
+                elements.forEachRemaining(action);
+                return;
+            }
+            ForEachTask<K> left = new ForEachTask<>(prefix, action, leafSize);
+            left.fork();
+            compute();
+            left.join();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ReduceTask<K, R> extends RecursiveTask<R> {
+
+        private final Spliterator<K> elements;
+        private final R identity;
+        private final BiFunction<R, ? super K, R> accumulator;
+        private final BinaryOperator<R> combiner;
+        private final long leafSize;
+        private R result;
+
+        ReduceTask(Spliterator<K> elements, R identity, BiFunction<R, ? super K, R> accumulator,
+                BinaryOperator<R> combiner, long leafSize) {
+            this.elements = elements;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected R compute() {
+            Spliterator<K> prefix;
+            if (elements.estimateSize() <= leafSize || (prefix = elements.trySplit()) == null) {
+                result = identity;
+                elements.forEachRemaining(x -> result = accumulator.apply(result, x));
+                return result;
+            }
+            ReduceTask<K, R> left = new ReduceTask<>(prefix, identity, accumulator, combiner, leafSize);
+            left.fork();
+            R right = compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package JDev.Trees;
+
+/**
+ * Immutable node of a {@link PersistentAVLTree}. A node can be shared by any number of versions
+ * of the tree, so it has no parent link and is never changed after construction.
+ */
+public final class PersistentAVLNode<K> {
+
+    public final PersistentAVLNode<K> left;
+    public final PersistentAVLNode<K> right;
+    public final K data;
+    public final int height;
+    /**
+     * Number of nodes in the subtree of this node, the node included.
+     */
+    public final int size;
+
+    public PersistentAVLNode(K x, PersistentAVLNode<K> lt, PersistentAVLNode<K> rt) {
+        left = lt;
+        right = rt;
+        data = x;
+        int leftHeight = lt == null ? -1 : lt.height;
+        int rightHeight = rt == null ? -1 : rt.height;
+        height = 1 + Math.max(leftHeight, rightHeight);
+        size = 1 + (lt == null ? 0 : lt.size) + (rt == null ? 0 : rt.size);
+    }
+}
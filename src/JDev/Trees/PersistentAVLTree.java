@@ -0,0 +1,472 @@
+package JDev.Trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Immutable AVL-tree. insert and remove do not change the tree, they return a new version:
+ * only the nodes on the path to the changed key (and the few nodes of the rotations) are copied,
+ * all other nodes are shared with the old version. An update costs O(log n) time and new nodes.
+ * <p>
+ * A version never changes, so any number of threads may read and iterate it without locking,
+ * for as long as they like. See {@link SnapshotAVLTree} for a mutable tree with O(1) snapshots.
+ * The keys are ordered by their natural ordering, or by a comparator given to the constructor.
+ *
+ * @param <K> the type of the keys
+ */
+public final class PersistentAVLTree<K> implements Iterable<K> {
+
+    /**
+     * The order of the keys, null for their natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+    private final PersistentAVLNode<K> root;
+
+    /**
+     * New empty tree, the keys are ordered by their natural ordering and must implement Comparable.
+     */
+    public PersistentAVLTree() {
+        this(null, null);
+    }
+
+    /**
+     * New empty tree with the keys ordered by a comparator.
+     *
+     * @param comparator The order of the keys, null for their natural ordering.
+     */
+    public PersistentAVLTree(Comparator<? super K> comparator) {
+        this(comparator, null);
+    }
+
+    private PersistentAVLTree(Comparator<? super K> comparator, PersistentAVLNode<K> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    /**
+     * The version with a new element with key "x".
+     *
+     * @param x The key of the new node.
+     * @return The new version, or this tree if x is already in it.
+     */
+    public PersistentAVLTree<K> insert(K x) {
+        if (root == null) {
+            // type (and null) check of the first key, the others are checked by the comparisons
+            compare(x, x);
+            return new PersistentAVLTree<>(comparator, new PersistentAVLNode<>(x, null, null));
+        }
+        PersistentAVLNode<K> newRoot = insert(root, x);
+        return newRoot == root ? this : new PersistentAVLTree<>(comparator, newRoot);
+    }
+
+    /**
+     * The version without the element with key "x".
+     *
+     * @param x The KEY of node to remove.
+     * @return The new version, or this tree if x is not in it.
+     */
+    public PersistentAVLTree<K> remove(K x) {
+        PersistentAVLNode<K> newRoot = remove(root, x);
+        return newRoot == root ? this : new PersistentAVLTree<>(comparator, newRoot);
+    }
+
+    /**
+     * The empty version, with the same ordering.
+     *
+     * @return an empty tree
+     */
+    public PersistentAVLTree<K> removeAll() {
+        return root == null ? this : new PersistentAVLTree<K>(comparator);
+    }
+
+    /**
+     * Check tree is empty
+     * @return true if the tree has no element
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Number of elements in the tree, in O(1).
+     * @return the number of elements
+     */
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * Find element
+     * @param x Key to find
+     * @return Key if exist (null if not exist)
+     */
+    public K find(K x) {
+        if (comparator == null) {
+            return find(root, x);
+        }
+        PersistentAVLNode<K> node = findNode(x);
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Check if an element is in the tree.
+     * @param x Key to find
+     * @return true if exist (false if not exist)
+     */
+    public boolean contains(K x) {
+        // a key with the natural ordering is never null, so the element tells whether it was found
+        return comparator == null ? find(root, x) != null : findNode(x) != null;
+    }
+
+    /**
+     * Find the smallest element.
+     * @return the smallest element or null if the tree is empty
+     */
+    public K findMin() {
+        PersistentAVLNode<K> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.data;
+    }
+
+    /**
+     * Find the largest element.
+     * @return the largest element or null if the tree is empty
+     */
+    public K findMax() {
+        PersistentAVLNode<K> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.data;
+    }
+
+    /**
+     * The k-th smallest element, counting from 0, in O(log n).
+     * @param k Index of the element
+     * @return The element
+     * @throws IndexOutOfBoundsException if k is not in [0, size)
+     */
+    public K select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size());
+        }
+        PersistentAVLNode<K> node = root;
+        while (true) {
+            int leftSize = node.left == null ? 0 : node.left.size;
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.data;
+            }
+        }
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Get ArrayList of element in tree
+     * @param visitMode
+     * @return ArrayList of element in tree
+     */
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        ArrayList<K> arrayList = new ArrayList<>(size());
+        Iterator<K> iterator = iterator(visitMode);
+        while (iterator.hasNext()) {
+            arrayList.add(iterator.next());
+        }
+        return arrayList;
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree
+     */
+    public Object[] toArray(VisitMode visitMode) {
+        return toArrayList(visitMode).toArray();
+    }
+
+    /**
+     * Iterator over the elements in ascending order (LEFT_ROOT_RIGHT).
+     * @return iterator of element in tree
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return iterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Iterator over the elements in the given order. The version can not change, so the iterator
+     * never fails and needs no lock; it keeps the path to the next node on a stack.
+     * remove is not supported.
+     * @param visitMode
+     * @return iterator of element in tree
+     */
+    public Iterator<K> iterator(VisitMode visitMode) {
+        return new StackIterator(visitMode);
+    }
+
+    /**
+     * Spliterator over the elements in ascending order.
+     * @return spliterator of element in tree
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        return spliterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Spliterator over the elements in the given order, on top of {@link #iterator(VisitMode)}.
+     * @param visitMode
+     * @return spliterator of element in tree
+     */
+    public Spliterator<K> spliterator(VisitMode visitMode) {
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+                | Spliterator.IMMUTABLE;
+        if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+            characteristics |= Spliterator.SORTED;
+        }
+        return Spliterators.spliterator(iterator(visitMode), size(), characteristics);
+    }
+
+    /**
+     * Insert x into a subtree.
+     * @return The new root of the subtree, the same node if x is already in it.
+     */
+    private PersistentAVLNode<K> insert(PersistentAVLNode<K> node, K x) {
+        if (node == null) {
+            return new PersistentAVLNode<>(x, null, null);
+        }
+        int result = compare(x, node.data);
+        if (result < 0) {
+            PersistentAVLNode<K> left = insert(node.left, x);
+            return left == node.left ? node : balance(node.data, left, node.right);
+        } else if (result > 0) {
+            PersistentAVLNode<K> right = insert(node.right, x);
+            return right == node.right ? node : balance(node.data, node.left, right);
+        }
+        // do nothing: This node already exists
+        return node;
+    }
+
+    /**
+     * Remove x from a subtree.
+     * @return The new root of the subtree, the same node if x is not in it.
+     */
+    private PersistentAVLNode<K> remove(PersistentAVLNode<K> node, K x) {
+        if (node == null) {
+            return null;
+        }
+        int result = compare(x, node.data);
+        if (result < 0) {
+            PersistentAVLNode<K> left = remove(node.left, x);
+            return left == node.left ? node : balance(node.data, left, node.right);
+        } else if (result > 0) {
+            PersistentAVLNode<K> right = remove(node.right, x);
+            return right == node.right ? node : balance(node.data, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // two children: the successor takes the place of the node
+        PersistentAVLNode<K> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.data, node.left, removeMin(node.right));
+    }
+
+    /**
+     * Remove the smallest node of a subtree.
+     * @return The new root of the subtree.
+     */
+    private PersistentAVLNode<K> removeMin(PersistentAVLNode<K> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.data, removeMin(node.left), node.right);
+    }
+
+    /**
+     * A new node with key x over two subtrees whose heights differ by at most 2,
+     * with a single or double rotation if they differ by 2.
+     */
+    private static <K> PersistentAVLNode<K> balance(K x, PersistentAVLNode<K> left, PersistentAVLNode<K> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return rotateRight(x, left, right);
+            }
+            return doubleRotateLeftRight(x, left, right);
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return rotateLeft(x, left, right);
+            }
+            return doubleRotateRightLeft(x, left, right);
+        }
+        return new PersistentAVLNode<>(x, left, right);
+    }
+
+    private static <K> PersistentAVLNode<K> rotateRight(K x, PersistentAVLNode<K> left, PersistentAVLNode<K> right) {
+        return new PersistentAVLNode<>(left.data, left.left, new PersistentAVLNode<>(x, left.right, right));
+    }
+
+    private static <K> PersistentAVLNode<K> rotateLeft(K x, PersistentAVLNode<K> left, PersistentAVLNode<K> right) {
+        return new PersistentAVLNode<>(right.data, new PersistentAVLNode<>(x, left, right.left), right.right);
+    }
+
+    private static <K> PersistentAVLNode<K> doubleRotateLeftRight(K x, PersistentAVLNode<K> left,
+            PersistentAVLNode<K> right) {
+        PersistentAVLNode<K> middle = left.right;
+        return new PersistentAVLNode<>(middle.data,
+                new PersistentAVLNode<>(left.data, left.left, middle.left),
+                new PersistentAVLNode<>(x, middle.right, right));
+    }
+
+    private static <K> PersistentAVLNode<K> doubleRotateRightLeft(K x, PersistentAVLNode<K> left,
+            PersistentAVLNode<K> right) {
+        PersistentAVLNode<K> middle = right.left;
+        return new PersistentAVLNode<>(middle.data,
+                new PersistentAVLNode<>(x, left, middle.left),
+                new PersistentAVLNode<>(right.data, middle.right, right.right));
+    }
+
+    private static int height(PersistentAVLNode<?> node) {
+        return node == null ? -1 : node.height;
+    }
+
+    /**
+     * Find element, with the natural ordering of the keys.
+     * @param x Key to find
+     * @param node First node to find
+     * @return Key if exist (null if not exist)
+     */
+    @SuppressWarnings("unchecked")
+    private K find(PersistentAVLNode<K> node, K x) {
+        PersistentAVLNode<K> cur = node;
+        while (cur != null) {
+            int result = ((Comparable<? super K>) x).compareTo(cur.data);
+            if (result == 0) {
+                return cur.data;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the node of an element.
+     * @param x Key to find
+     * @return Node if exist (null if not exist)
+     */
+    private PersistentAVLNode<K> findNode(K x) {
+        PersistentAVLNode<K> cur = root;
+        while (cur != null) {
+            int result = compare(x, cur.data);
+            if (result == 0) {
+                return cur;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compare two keys with the comparator of the tree, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    private final class StackIterator implements Iterator<K> {
+
+        private final VisitMode visitMode;
+        /**
+         * LEFT_ROOT_RIGHT: the next node and its ancestors that are still to visit, RIGHT_ROOT_LEFT
+         * the same mirrored, ROOT_LEFT_RIGHT: the roots of the subtrees still to visit.
+         */
+        private final ArrayDeque<PersistentAVLNode<K>> stack = new ArrayDeque<>();
+
+        StackIterator(VisitMode visitMode) {
+            this.visitMode = visitMode;
+            if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+                if (root != null) {
+                    stack.push(root);
+                }
+            } else {
+                pushPath(root);
+            }
+        }
+
+        /**
+         * Push a node and the nodes on its left path (on its right path in RIGHT_ROOT_LEFT).
+         */
+        private void pushPath(PersistentAVLNode<K> node) {
+            boolean ascending = visitMode == VisitMode.LEFT_ROOT_RIGHT;
+            while (node != null) {
+                stack.push(node);
+                node = ascending ? node.left : node.right;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public K next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            PersistentAVLNode<K> node = stack.pop();
+            if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+                pushPath(node.right);
+            } else if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+                pushPath(node.left);
+            } else {
+                if (node.right != null) {
+                    stack.push(node.right);
+                }
+                if (node.left != null) {
+                    stack.push(node.left);
+                }
+            }
+            return node.data;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+
+package JDev.Trees;
+
+
+public class RedBlackNode<K> {
+
+    public RedBlackNode<K> left;
+    public RedBlackNode<K> right;
+    public RedBlackNode<K> parent;
+    public K data;
+    /**
+     * Color of the node, a new node is red.
+     */
+    public boolean red;
+
+    public RedBlackNode(K x) {
+        left = right = parent = null;
+        red = true;
+        data = x;
+    }
+}
@@ -0,0 +1,632 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Red-black tree with the same operations as {@link AVLTree}. The tree is less strictly balanced
+ * (at most 2 log2(n + 1) high instead of 1.44 log2 n), but an insert does at most two rotations
+ * and a remove at most three, most updates only recolor nodes. This suits write-heavy use better,
+ * finds walk slightly longer paths.
+ *
+ * @param <K> the type of the keys
+ */
+public class RedBlackTree<K> implements Iterable<K> {
+
+    /**
+     * The order of the keys, null for their natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+    private RedBlackNode<K> root;
+    private int size;
+    /**
+     * Number of structural changes, lets the iterators fail fast.
+     */
+    private int modCount;
+    /**
+     * Number of single rotations, see {@link #rotations()}.
+     */
+    private long rotations;
+
+    /**
+     * New empty tree, the keys are ordered by their natural ordering and must implement Comparable.
+     */
+    public RedBlackTree() {
+        this(null);
+    }
+
+    /**
+     * New empty tree with the keys ordered by a comparator.
+     *
+     * @param comparator The order of the keys, null for their natural ordering.
+     */
+    public RedBlackTree(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x
+     *            The key of the new node.
+     */
+    public void insert(K x) {
+        RedBlackNode<K> node = this.root;
+        if (node == null) {
+            // type (and null) check of the first key, the others are checked by the comparisons
+            compare(x, x);
+            this.root = new RedBlackNode<>(x);
+            this.root.red = false;
+            size++;
+            modCount++;
+            return;
+        }
+
+        RedBlackNode<K> n;
+        while (true) {
+            int result = compare(x, node.data);
+
+            if (result < 0) {
+                if (node.left == null) {
+                    n = new RedBlackNode<>(x);
+                    node.left = n;
+                    break;
+                }
+                node = node.left;
+            } else if (result > 0) {
+                if (node.right == null) {
+                    n = new RedBlackNode<>(x);
+                    node.right = n;
+                    break;
+                }
+                node = node.right;
+            } else {
+                // do nothing: This node already exists
+                return;
+            }
+        }
+        n.parent = node;
+        size++;
+        modCount++;
+
+        fixAfterInsert(n);
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(K x) {
+        RedBlackNode<K> node = findNode(x);
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    /**
+     * Removes all element
+     */
+    public void removeAll() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Check tree is empty
+     * @return
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Number of elements in the tree
+     * @return number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of rotations done since the tree was constructed.
+     * @return number of rotations
+     */
+    public long rotations() {
+        return rotations;
+    }
+
+    /**
+     * Find element
+     * @param x Key to find.
+     * @return Key if found, null if not found.
+     */
+    public K find(K x) {
+        RedBlackNode<K> node = findNode(x);
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Find element if it is a basic type
+     * @param x Key to find
+     * @param isBasicDataType true or false is oke
+     * @return true if exist (false if not exist)
+     */
+    public boolean find(K x, boolean isBasicDataType) {
+        try {
+            return findNode(x) != null;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Find the smallest element in the tree.
+     * @return smallest element or null if empty.
+     */
+    public K findMin() {
+        return root == null ? null : minNode(root).data;
+    }
+
+    /**
+     * Find the largest element in the tree.
+     * @return largest element or null if empty.
+     */
+    public K findMax() {
+        return root == null ? null : maxNode(root).data;
+    }
+
+    /**
+     * Get ArrayList of element in tree
+     * @param visitMode
+     * @return ArrayList of element in tree
+     */
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        ArrayList<K> arrayList = new ArrayList<>(size);
+        Iterator<K> iterator = iterator(visitMode);
+        while (iterator.hasNext()) {
+            arrayList.add(iterator.next());
+        }
+        return arrayList;
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @return Array of element in tree
+     */
+    public Object[] toArray(VisitMode visitMode) {
+        return toArrayList(visitMode).toArray();
+    }
+
+    /**
+     * Get Array of element in tree
+     * @param visitMode
+     * @param  a array of element type
+     * @return Array of element in tree
+     */
+    public <T> T[] toArray(VisitMode visitMode, T[] a) {
+        return toArrayList(visitMode).toArray(a);
+    }
+
+    /**
+     * Iterator over the elements in ascending order (LEFT_ROOT_RIGHT).
+     * @return iterator of element in tree
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return iterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Iterator over the elements in the given order. Each step follows the parent pointers to
+     * the next node, so the iterator needs no extra memory. The iterator fails fast if the tree
+     * is changed other than by its own remove, which is supported for LEFT_ROOT_RIGHT and
+     * RIGHT_ROOT_LEFT.
+     * @param visitMode
+     * @return iterator of element in tree
+     */
+    public Iterator<K> iterator(VisitMode visitMode) {
+        RedBlackNode<K> first = root;
+        if (first != null && visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+            first = minNode(first);
+        } else if (first != null && visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+            first = maxNode(first);
+        }
+        return new NodeIterator(visitMode, first);
+    }
+
+    /**
+     * Spliterator over the elements in ascending order.
+     * @return spliterator of element in tree
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        return spliterator(VisitMode.LEFT_ROOT_RIGHT);
+    }
+
+    /**
+     * Spliterator over the elements in the given order, on top of {@link #iterator(VisitMode)}.
+     * @param visitMode
+     * @return spliterator of element in tree
+     */
+    public Spliterator<K> spliterator(VisitMode visitMode) {
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.SIZED;
+        // this spliterator reports a null comparator, so it is only SORTED by the natural ordering
+        if (visitMode == VisitMode.LEFT_ROOT_RIGHT && comparator == null) {
+            characteristics |= Spliterator.SORTED;
+        }
+        return Spliterators.spliterator(iterator(visitMode), size, characteristics);
+    }
+
+    private final class NodeIterator implements Iterator<K> {
+
+        private final VisitMode visitMode;
+        private RedBlackNode<K> next;
+        private RedBlackNode<K> lastReturned;
+        private int expectedModCount = modCount;
+
+        NodeIterator(VisitMode visitMode, RedBlackNode<K> first) {
+            this.visitMode = visitMode;
+            this.next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public K next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            RedBlackNode<K> node = next;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            if (visitMode == VisitMode.LEFT_ROOT_RIGHT) {
+                next = successor(node);
+            } else if (visitMode == VisitMode.RIGHT_ROOT_LEFT) {
+                next = predecessor(node);
+            } else {
+                next = preOrderNext(node);
+            }
+            lastReturned = node;
+            return node.data;
+        }
+
+        @Override
+        public void remove() {
+            if (visitMode == VisitMode.ROOT_LEFT_RIGHT) {
+                // the rotations after a remove change the ROOT_LEFT_RIGHT order of the rest
+                throw new UnsupportedOperationException("remove in " + visitMode + " order");
+            }
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // A node with two children takes the key of its successor, whose node is unlinked.
+            // In ascending order that successor is the next element, it is now in lastReturned.
+            if (visitMode == VisitMode.LEFT_ROOT_RIGHT && lastReturned.left != null && lastReturned.right != null) {
+                next = lastReturned;
+            }
+            RedBlackTree.this.remove(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Returns the node with key x.
+     *
+     * @param x The key to search for.
+     * @return The node or null.
+     */
+    private RedBlackNode<K> findNode(K x) {
+        RedBlackNode<K> cur = root;
+        while (cur != null) {
+            int result = compare(x, cur.data);
+
+            if (result == 0) {
+                return cur;
+            } else if (result > 0) {
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compare two keys with the comparator of the tree, or by their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Removes a node from the tree. A node with two children takes the key of its successor,
+     * and the node of the successor is unlinked instead.
+     *
+     * @param node The node to be removed.
+     */
+    private void remove(RedBlackNode<K> node) {
+        size--;
+        modCount++;
+
+        if (node.left != null && node.right != null) {
+            RedBlackNode<K> s = successor(node);
+            node.data = s.data;
+            node = s;
+        }
+
+        // node has at most one child now
+        RedBlackNode<K> replacement = node.left != null ? node.left : node.right;
+        if (replacement != null) {
+            replaceChild(node, replacement);
+            node.left = node.right = node.parent = null;
+            // a red node can go without changes, a black node leaves a red child behind
+            if (!node.red) {
+                replacement.red = false;
+            }
+        } else if (node.parent == null) {
+            root = null;
+        } else {
+            // a black leaf leaves a hole in the black height, fix it while the leaf is still linked
+            if (!node.red) {
+                fixAfterRemove(node);
+            }
+            replaceChild(node, null);
+            node.parent = null;
+        }
+    }
+
+    /**
+     * Restore the red-black properties after a red node was added below node.parent:
+     * recolor while the uncle is red, then at most two rotations.
+     *
+     * @param node The new node.
+     */
+    private void fixAfterInsert(RedBlackNode<K> node) {
+        while (node != root && isRed(node.parent)) {
+            RedBlackNode<K> parent = node.parent;
+            RedBlackNode<K> grandParent = parent.parent;
+            if (parent == grandParent.left) {
+                RedBlackNode<K> uncle = grandParent.right;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandParent.red = true;
+                    node = grandParent;
+                } else {
+                    if (node == parent.right) {
+                        node = parent;
+                        rotateLeft(node);
+                        parent = node.parent;
+                    }
+                    parent.red = false;
+                    grandParent.red = true;
+                    rotateRight(grandParent);
+                }
+            } else {
+                RedBlackNode<K> uncle = grandParent.left;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandParent.red = true;
+                    node = grandParent;
+                } else {
+                    if (node == parent.left) {
+                        node = parent;
+                        rotateRight(node);
+                        parent = node.parent;
+                    }
+                    parent.red = false;
+                    grandParent.red = true;
+                    rotateLeft(grandParent);
+                }
+            }
+        }
+        root.red = false;
+    }
+
+    /**
+     * Restore the black height after a black node is removed: node carries one black too few.
+     * Recolor while the sibling and its children are black, then at most three rotations.
+     *
+     * @param node The node with the missing black.
+     */
+    private void fixAfterRemove(RedBlackNode<K> node) {
+        while (node != root && !isRed(node)) {
+            RedBlackNode<K> parent = node.parent;
+            if (node == parent.left) {
+                RedBlackNode<K> sibling = parent.right;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    parent.red = true;
+                    rotateLeft(parent);
+                    sibling = parent.right;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.red = true;
+                    node = parent;
+                } else {
+                    if (!isRed(sibling.right)) {
+                        sibling.left.red = false;
+                        sibling.red = true;
+                        rotateRight(sibling);
+                        sibling = parent.right;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.right.red = false;
+                    rotateLeft(parent);
+                    node = root;
+                }
+            } else {
+                RedBlackNode<K> sibling = parent.left;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    parent.red = true;
+                    rotateRight(parent);
+                    sibling = parent.left;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.red = true;
+                    node = parent;
+                } else {
+                    if (!isRed(sibling.left)) {
+                        sibling.right.red = false;
+                        sibling.red = true;
+                        rotateLeft(sibling);
+                        sibling = parent.left;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.left.red = false;
+                    rotateRight(parent);
+                    node = root;
+                }
+            }
+        }
+        node.red = false;
+    }
+
+    /**
+     * Left rotation using the given node, the right child takes its place.
+     *
+     * @param node The node for the rotation.
+     */
+    private void rotateLeft(RedBlackNode<K> node) {
+        rotations++;
+        RedBlackNode<K> v = node.right;
+        node.right = v.left;
+        if (v.left != null) {
+            v.left.parent = node;
+        }
+        replaceChild(node, v);
+        v.left = node;
+        node.parent = v;
+    }
+
+    /**
+     * Right rotation using the given node, the left child takes its place.
+     *
+     * @param node The node for the rotation.
+     */
+    private void rotateRight(RedBlackNode<K> node) {
+        rotations++;
+        RedBlackNode<K> v = node.left;
+        node.left = v.right;
+        if (v.right != null) {
+            v.right.parent = node;
+        }
+        replaceChild(node, v);
+        v.right = node;
+        node.parent = v;
+    }
+
+    /**
+     * Links a node into the place of another node below its parent, or makes it the root.
+     *
+     * @param node The node to be replaced.
+     * @param replacement The new node, may be null.
+     */
+    private void replaceChild(RedBlackNode<K> node, RedBlackNode<K> replacement) {
+        RedBlackNode<K> parent = node.parent;
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private static boolean isRed(RedBlackNode<?> node) {
+        return node != null && node.red;
+    }
+
+    private static <K> RedBlackNode<K> minNode(RedBlackNode<K> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static <K> RedBlackNode<K> maxNode(RedBlackNode<K> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the next node in ascending order.
+     */
+    private static <K> RedBlackNode<K> successor(RedBlackNode<K> node) {
+        if (node.right != null) {
+            return minNode(node.right);
+        }
+        RedBlackNode<K> p = node.parent;
+        while (p != null && node == p.right) {
+            node = p;
+            p = node.parent;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the next node in descending order.
+     */
+    private static <K> RedBlackNode<K> predecessor(RedBlackNode<K> node) {
+        if (node.left != null) {
+            return maxNode(node.left);
+        }
+        RedBlackNode<K> p = node.parent;
+        while (p != null && node == p.left) {
+            node = p;
+            p = node.parent;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the next node in ROOT_LEFT_RIGHT order.
+     */
+    private static <K> RedBlackNode<K> preOrderNext(RedBlackNode<K> node) {
+        if (node.left != null) {
+            return node.left;
+        }
+        if (node.right != null) {
+            return node.right;
+        }
+        RedBlackNode<K> p = node.parent;
+        while (p != null && (p.right == null || p.right == node)) {
+            node = p;
+            p = node.parent;
+        }
+        return p == null ? null : p.right;
+    }
+}
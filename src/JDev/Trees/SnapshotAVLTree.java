@@ -0,0 +1,174 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+
+/**
+ * Thread safe AVL-tree with O(1) snapshots. The tree is the current version of a
+ * {@link PersistentAVLTree}: insert and remove copy the path to the changed key and publish the
+ * new version, snapshot returns the current version without copying anything.
+ * <p>
+ * Writers are serialized, readers never lock: find and the iterators work on the version that
+ * was current when they started, and a snapshot can be read by any thread for as long as it likes
+ * while the writers go on. The price is that every insert and remove allocates O(log n) nodes.
+ * The keys are ordered by their natural ordering, or by a comparator given to the constructor.
+ *
+ * @param <K> the type of the keys
+ */
+public class SnapshotAVLTree<K> implements Iterable<K> {
+
+    private final Object writeLock = new Object();
+    private volatile PersistentAVLTree<K> current;
+
+    /**
+     * New empty tree, the keys are ordered by their natural ordering and must implement Comparable.
+     */
+    public SnapshotAVLTree() {
+        this(null);
+    }
+
+    /**
+     * New empty tree with the keys ordered by a comparator.
+     *
+     * @param comparator The order of the keys, null for their natural ordering.
+     */
+    public SnapshotAVLTree(Comparator<? super K> comparator) {
+        current = new PersistentAVLTree<>(comparator);
+    }
+
+    /**
+     * The current version of the tree, in O(1). It does not change with later updates of this tree.
+     *
+     * @return the immutable current version
+     */
+    public PersistentAVLTree<K> snapshot() {
+        return current;
+    }
+
+    /**
+     * Add a new element with key "x" into the tree.
+     *
+     * @param x The key of the new node.
+     */
+    public void insert(K x) {
+        synchronized (writeLock) {
+            current = current.insert(x);
+        }
+    }
+
+    /**
+     * Removes a node from the tree, if it is existent.
+     * @param x The KEY of node to remove.
+     */
+    public void remove(K x) {
+        synchronized (writeLock) {
+            current = current.remove(x);
+        }
+    }
+
+    /**
+     * Removes all element
+     */
+    public void removeAll() {
+        synchronized (writeLock) {
+            current = current.removeAll();
+        }
+    }
+
+    /**
+     * Check tree is empty
+     * @return true if the tree has no element
+     */
+    public boolean isEmpty() {
+        return current.isEmpty();
+    }
+
+    /**
+     * Number of elements in the tree, in O(1).
+     * @return the number of elements
+     */
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * Find element
+     * @param x Key to find
+     * @return Key if exist (null if not exist)
+     */
+    public K find(K x) {
+        return current.find(x);
+    }
+
+    /**
+     * Check if an element is in the tree.
+     * @param x Key to find
+     * @return true if exist (false if not exist)
+     */
+    public boolean contains(K x) {
+        return current.contains(x);
+    }
+
+    /**
+     * Find the smallest element.
+     * @return the smallest element or null if the tree is empty
+     */
+    public K findMin() {
+        return current.findMin();
+    }
+
+    /**
+     * Find the largest element.
+     * @return the largest element or null if the tree is empty
+     */
+    public K findMax() {
+        return current.findMax();
+    }
+
+    /**
+     * The comparator that orders the keys.
+     * @return the comparator, null for the natural ordering of the keys
+     */
+    public Comparator<? super K> comparator() {
+        return current.comparator();
+    }
+
+    /**
+     * Get ArrayList of element in tree
+     * @param visitMode
+     * @return ArrayList of element in tree
+     */
+    public ArrayList<K> toArrayList(VisitMode visitMode) {
+        return current.toArrayList(visitMode);
+    }
+
+    /**
+     * Iterator over the elements of the current version in ascending order. Later updates of
+     * the tree are not seen and do not disturb it.
+     * @return iterator of element in tree
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return current.iterator();
+    }
+
+    /**
+     * Iterator over the elements of the current version in the given order.
+     * @param visitMode
+     * @return iterator of element in tree
+     */
+    public Iterator<K> iterator(VisitMode visitMode) {
+        return current.iterator(visitMode);
+    }
+
+    /**
+     * Spliterator over the elements of the current version in ascending order.
+     * @return spliterator of element in tree
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        return current.spliterator();
+    }
+}
@@ -0,0 +1,134 @@
+package JDev.Trees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Input checks for the bulk loads of the trees: the keys must be sorted in ascending order,
+ * equal neighbours are either an error or removed. Batches of unsorted keys are sorted here.
+ * The order is given by a comparator, or by the natural ordering of the keys if it is null.
+ */
+final class SortedKeys {
+
+    private SortedKeys() {
+    }
+
+    /**
+     * Check that keys are sorted, one comparison per key.
+     * @param keys the keys, not changed
+     * @param comparator the order of the keys, null for their natural ordering
+     * @param removeDuplicates true to drop equal neighbours, false to reject them
+     * @return keys itself, or a copy without duplicates
+     * @throws IllegalArgumentException if the keys are not sorted, or contain duplicates that are not removed
+     */
+    static <K> K[] check(K[] keys, Comparator<? super K> comparator, boolean removeDuplicates) {
+        int duplicates = 0;
+        for (int i = 1; i < keys.length; i++) {
+            int result = compare(keys[i - 1], keys[i], comparator);
+            if (result > 0) {
+                throw new IllegalArgumentException("Keys are not sorted at index " + i);
+            }
+            if (result == 0) {
+                if (!removeDuplicates) {
+                    throw new IllegalArgumentException("Duplicate key at index " + i);
+                }
+                duplicates++;
+            }
+        }
+        if (duplicates == 0) {
+            return keys;
+        }
+
+        K[] distinct = Arrays.copyOf(keys, keys.length - duplicates);
+        int n = 1;
+        for (int i = 1; i < keys.length; i++) {
+            if (compare(keys[i], distinct[n - 1], comparator) != 0) {
+                distinct[n++] = keys[i];
+            }
+        }
+        return distinct;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> K[] check(List<? extends K> keys, Comparator<? super K> comparator, boolean removeDuplicates) {
+        return check((K[]) keys.toArray(), comparator, removeDuplicates);
+    }
+
+    /**
+     * Sort a batch of keys and remove the duplicates.
+     * @param keys the batch, not changed
+     * @param comparator the order of the keys, null for their natural ordering
+     * @return a new sorted array without duplicates
+     */
+    @SuppressWarnings("unchecked")
+    static <K> K[] sort(Collection<? extends K> keys, Comparator<? super K> comparator) {
+        K[] sorted = (K[]) keys.toArray();
+        Arrays.sort(sorted, comparator);
+        return check(sorted, comparator, true);
+    }
+
+    static <K> K[] check(Iterator<? extends K> keys, Comparator<? super K> comparator, boolean removeDuplicates) {
+        ArrayList<K> list = new ArrayList<>();
+        while (keys.hasNext()) {
+            list.add(keys.next());
+        }
+        return check(list, comparator, removeDuplicates);
+    }
+
+    /**
+     * Sorted keys taken from an iterator one at a time and checked against the key before,
+     * for the builds that know the number of keys and link them without copying them into an array.
+     */
+    static final class Stream<K> {
+
+        private final Iterator<? extends K> keys;
+        private final Comparator<? super K> comparator;
+        private K previous;
+        private int index;
+
+        Stream(Iterator<? extends K> keys, Comparator<? super K> comparator) {
+            this.keys = keys;
+            this.comparator = comparator;
+        }
+
+        /**
+         * @return the next key, greater than the one before
+         * @throws IllegalArgumentException if the keys are not sorted, have duplicates or ran out
+         */
+        K next() {
+            if (!keys.hasNext()) {
+                throw new IllegalArgumentException("Fewer keys than the size: " + index);
+            }
+            K key = keys.next();
+            // the first key is compared with itself, as type (and null) check
+            int result = compare(index == 0 ? key : previous, key, comparator);
+            if (result > 0) {
+                throw new IllegalArgumentException("Keys are not sorted at index " + index);
+            }
+            if (result == 0 && index > 0) {
+                throw new IllegalArgumentException("Duplicate key at index " + index);
+            }
+            previous = key;
+            index++;
+            return key;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the iterator has more keys than were taken
+         */
+        void checkEnd() {
+            if (keys.hasNext()) {
+                throw new IllegalArgumentException("More keys than the size: " + index);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> int compare(K a, K b, Comparator<? super K> comparator) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+}
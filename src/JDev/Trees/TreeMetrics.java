@@ -0,0 +1,205 @@
+package JDev.Trees;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Metrics of a tree at one moment: the counters since the metrics were enabled or reset, and
+ * the shape of the tree. Returned by the metrics() method of {@link AVLTree} and
+ * {@link BinarySearchTree}, and by their {@link TreeMetricsMXBean} for JMX clients.
+ * <p>
+ * The counters are 0 while the metrics are disabled. The depths are counted in edges like the
+ * height, the root has depth 0. The search lengths are counted in comparisons: a find for a key
+ * at depth d has length d + 1, a find on an empty tree has length 0.
+ */
+public final class TreeMetrics {
+
+    private final long inserts;
+    private final long removes;
+    private final long finds;
+    private final long hits;
+    private final long misses;
+    private final long comparisons;
+    private final long singleRotations;
+    private final long doubleRotations;
+    private final long rebalanceSteps;
+    private final int size;
+    private final int height;
+    private final double averageDepth;
+    private final double averageSearchLength;
+    private final int maxSearchLength;
+
+    private TreeMetrics(long inserts, long removes, long finds, long hits, long misses, long comparisons,
+            long singleRotations, long doubleRotations, long rebalanceSteps, int size, int height,
+            double averageDepth, double averageSearchLength, int maxSearchLength) {
+        this.inserts = inserts;
+        this.removes = removes;
+        this.finds = finds;
+        this.hits = hits;
+        this.misses = misses;
+        this.comparisons = comparisons;
+        this.singleRotations = singleRotations;
+        this.doubleRotations = doubleRotations;
+        this.rebalanceSteps = rebalanceSteps;
+        this.size = size;
+        this.height = height;
+        this.averageDepth = averageDepth;
+        this.averageSearchLength = averageSearchLength;
+        this.maxSearchLength = maxSearchLength;
+    }
+
+    /**
+     * The metrics of a tree.
+     *
+     * @param counters The counters of the tree, null if the metrics are disabled.
+     * @param singleRotations The rotations since the counters were created that were not part of a double rotation.
+     * @param size The number of nodes.
+     * @param height The height of the tree.
+     * @param depthSum The sum of the depths of all nodes.
+     * @return the metrics
+     */
+    static TreeMetrics of(MetricsCounters counters, long singleRotations, int size, int height, long depthSum) {
+        MetricsCounters c = counters == null ? new MetricsCounters() : counters;
+        double averageSearchLength = c.finds == 0 ? 0 : (double) c.findComparisons / c.finds;
+        return new TreeMetrics(c.inserts, c.removes, c.finds, c.hits, c.finds - c.hits, c.comparisons,
+                singleRotations, c.doubleRotations, c.rebalanceSteps, size, height,
+                size == 0 ? 0 : (double) depthSum / size, averageSearchLength, c.maxSearchLength);
+    }
+
+    /**
+     * The metrics from their JMX form, lets a proxy of {@link TreeMetricsMXBean} return them.
+     *
+     * @param data The attributes, named like the getters.
+     * @return the metrics
+     */
+    public static TreeMetrics from(CompositeData data) {
+        return new TreeMetrics((Long) data.get("inserts"), (Long) data.get("removes"), (Long) data.get("finds"),
+                (Long) data.get("hits"), (Long) data.get("misses"), (Long) data.get("comparisons"),
+                (Long) data.get("singleRotations"), (Long) data.get("doubleRotations"),
+                (Long) data.get("rebalanceSteps"), (Integer) data.get("size"), (Integer) data.get("height"),
+                (Double) data.get("averageDepth"), (Double) data.get("averageSearchLength"),
+                (Integer) data.get("maxSearchLength"));
+    }
+
+    /**
+     * Number of calls of insert, duplicates included.
+     * @return number of inserts
+     */
+    public long getInserts() {
+        return inserts;
+    }
+
+    /**
+     * Number of calls of remove, keys that were not in the tree included.
+     * @return number of removes
+     */
+    public long getRemoves() {
+        return removes;
+    }
+
+    /**
+     * Number of calls of find and contains.
+     * @return number of finds
+     */
+    public long getFinds() {
+        return finds;
+    }
+
+    /**
+     * Number of finds that found the key.
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of finds that did not find the key.
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of key comparisons of the descents of insert, remove and find.
+     * @return number of comparisons
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Number of rotations that were not part of a double rotation.
+     * @return number of single rotations
+     */
+    public long getSingleRotations() {
+        return singleRotations;
+    }
+
+    /**
+     * Number of double rotations, a left-right or right-left rotation counts as one.
+     * @return number of double rotations
+     */
+    public long getDoubleRotations() {
+        return doubleRotations;
+    }
+
+    /**
+     * Number of rebalance steps: the nodes whose height and balance were computed again on the
+     * way up in an AVLTree, the subtrees that were rebuilt in a scapegoat BinarySearchTree.
+     * @return number of rebalance steps
+     */
+    public long getRebalanceSteps() {
+        return rebalanceSteps;
+    }
+
+    /**
+     * Number of elements in the tree.
+     * @return size of the tree
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Height of the tree, 0 for a single node and -1 for an empty tree.
+     * @return height of the tree
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Average depth of the nodes, one less than the average search length of a find for a key of the tree.
+     * @return average depth, 0 for an empty tree
+     */
+    public double getAverageDepth() {
+        return averageDepth;
+    }
+
+    /**
+     * Average length of the finds that were counted, their comparisons per find.
+     * @return average search length, 0 if there was no find
+     */
+    public double getAverageSearchLength() {
+        return averageSearchLength;
+    }
+
+    /**
+     * Largest length of a find that was counted, the most comparisons of one find.
+     * @return max search length, 0 if there was no find
+     */
+    public int getMaxSearchLength() {
+        return maxSearchLength;
+    }
+
+    @Override
+    public String toString() {
+        return "TreeMetrics[inserts=" + inserts + ", removes=" + removes + ", finds=" + finds
+                + ", hits=" + hits + ", misses=" + misses + ", comparisons=" + comparisons
+                + ", singleRotations=" + singleRotations + ", doubleRotations=" + doubleRotations
+                + ", rebalanceSteps=" + rebalanceSteps + ", size=" + size + ", height=" + height
+                + ", averageDepth=" + averageDepth + ", averageSearchLength=" + averageSearchLength
+                + ", maxSearchLength=" + maxSearchLength + "]";
+    }
+}
@@ -0,0 +1,38 @@
+package JDev.Trees;
+
+/**
+ * JMX view of the metrics of a tree, get one with the metricsMXBean() method of
+ * {@link AVLTree} or {@link BinarySearchTree} and register it with an MBean server:
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(tree.metricsMXBean(),
+ *         new ObjectName("JDev.Trees:type=AVLTree,name=orders"));
+ * </pre>
+ * The trees are not thread safe, so a JMX client reads the counters and walks the tree while the
+ * owner may be changing it: the numbers can be slightly off, but the walk always ends. Enabling or
+ * disabling from JMX is seen by the owner of the tree without a guarantee of when.
+ */
+public interface TreeMetricsMXBean {
+
+    /**
+     * The counters and the shape of the tree, see {@link TreeMetrics}. Walks the whole tree.
+     * @return the current metrics, open type CompositeData for JMX clients
+     */
+    TreeMetrics getMetrics();
+
+    /**
+     * Check whether the counters are enabled.
+     * @return true if the tree counts its operations
+     */
+    boolean isEnabled();
+
+    /**
+     * Enable or disable the counters, enabling starts from 0.
+     * @param enabled true to count the operations of the tree
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Set the counters to 0, if they are enabled.
+     */
+    void reset();
+}
@@ -0,0 +1,172 @@
+package JDev.Trees;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Writes the keys of an {@link AVLTree} or a {@link BinarySearchTree} to a channel in a compact
+ * binary format, and loads them into a new tree.
+ * <p>
+ * Format: the magic number "JTRE" (4 bytes), the version (1 byte), the number of keys (varint),
+ * then the keys in ascending order, each encoded by the {@link KeyCodec} relative to the key before.
+ * Both directions stream through a small buffer. Loading uses the order of the keys: they are
+ * linked into a perfectly balanced tree as they are read, in linear time, without a rebalance per
+ * key and without an array of all keys.
+ */
+public final class TreeSerializer {
+
+    private static final int MAGIC = 0x4A545245;
+    private static final int VERSION = 1;
+
+    private TreeSerializer() {
+    }
+
+    /**
+     * Write the keys of a tree. The channel is not closed.
+     *
+     * @param tree The tree, it must not be changed while it is written.
+     * @param codec The encoding of the keys.
+     * @param channel The channel to write to.
+     */
+    public static <K> void write(AVLTree<K> tree, KeyCodec<K> codec, WritableByteChannel channel)
+            throws IOException {
+        write(tree.iterator(), tree.size(), codec, channel);
+    }
+
+    /**
+     * Write the items of a tree, see {@link #write(AVLTree, KeyCodec, WritableByteChannel)}.
+     */
+    public static <K> void write(BinarySearchTree<K> tree, KeyCodec<K> codec, WritableByteChannel channel)
+            throws IOException {
+        write(tree.iterator(), tree.size(), codec, channel);
+    }
+
+    /**
+     * Load an AVLTree with the natural ordering of the keys.
+     *
+     * @param channel The channel to read from. It is read in blocks, so it can be read beyond the end of the tree.
+     * @param codec The encoding of the keys, the same as for writing.
+     * @return the new tree
+     * @throws IOException if the channel fails, ends too early or has no tree of this format
+     */
+    public static <K> AVLTree<K> readAVLTree(ReadableByteChannel channel, KeyCodec<K> codec) throws IOException {
+        return readAVLTree(channel, codec, null);
+    }
+
+    /**
+     * Load an AVLTree with the keys ordered by a comparator, the same order as the written tree.
+     */
+    public static <K> AVLTree<K> readAVLTree(ReadableByteChannel channel, KeyCodec<K> codec,
+            Comparator<? super K> comparator) throws IOException {
+        KeyReader<K> keys = new KeyReader<>(new ChannelInput(channel), codec);
+        try {
+            return AVLTree.fromSorted(keys, keys.size, comparator);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Corrupt tree: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Load a BinarySearchTree, see {@link #readAVLTree(ReadableByteChannel, KeyCodec)}.
+     * The tree is perfectly balanced.
+     */
+    public static <K> BinarySearchTree<K> readBinarySearchTree(ReadableByteChannel channel, KeyCodec<K> codec)
+            throws IOException {
+        return readBinarySearchTree(channel, codec, null);
+    }
+
+    /**
+     * Load a BinarySearchTree with the items ordered by a comparator.
+     */
+    public static <K> BinarySearchTree<K> readBinarySearchTree(ReadableByteChannel channel, KeyCodec<K> codec,
+            Comparator<? super K> comparator) throws IOException {
+        return readBinarySearchTree(channel, codec, BalanceMode.NONE, comparator);
+    }
+
+    /**
+     * Load a BinarySearchTree that keeps its shape with a balancing strategy, like
+     * {@link BalanceMode#SCAPEGOAT} for a tree that gets more sorted items after loading.
+     * The format does not store the strategy, the same file can be loaded either way.
+     */
+    public static <K> BinarySearchTree<K> readBinarySearchTree(ReadableByteChannel channel, KeyCodec<K> codec,
+            BalanceMode balanceMode, Comparator<? super K> comparator) throws IOException {
+        KeyReader<K> keys = new KeyReader<>(new ChannelInput(channel), codec);
+        try {
+            return BinarySearchTree.fromSorted(keys, keys.size, balanceMode, comparator);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Corrupt tree: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static <K> void write(Iterator<K> keys, int size, KeyCodec<K> codec, WritableByteChannel channel)
+            throws IOException {
+        ChannelOutput out = new ChannelOutput(channel);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeVarLong(size);
+        K previous = null;
+        while (keys.hasNext()) {
+            K key = keys.next();
+            codec.write(key, previous, out);
+            previous = key;
+        }
+        out.flush();
+    }
+
+    /**
+     * The keys of a serialized tree, decoded as the tree build takes them.
+     */
+    private static final class KeyReader<K> implements Iterator<K> {
+
+        private final ChannelInput in;
+        private final KeyCodec<K> codec;
+        private final int size;
+        private int index;
+        private K previous;
+
+        KeyReader(ChannelInput in, KeyCodec<K> codec) throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a serialized tree");
+            }
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unknown version " + version);
+            }
+            long n = in.readVarLong();
+            if (n < 0 || n > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt tree size " + n);
+            }
+            this.in = in;
+            this.codec = codec;
+            this.size = (int) n;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public K next() {
+            if (index == size) {
+                throw new NoSuchElementException();
+            }
+            try {
+                previous = codec.read(previous, in);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            index++;
+            return previous;
+        }
+    }
+}